@@ -0,0 +1,29 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.BatchProcessingOfFinancialTransactionsApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application against its in-memory H2 database without the web server and
+ * without launching the job, for benchmarks that need Spring-managed components.
+ */
+final class BenchmarkApplicationContext {
+
+    private BenchmarkApplicationContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(BatchProcessingOfFinancialTransactionsApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties(
+                        "spring.batch.job.enabled=false",
+                        "app.notification.enabled=false",
+                        "logging.config=classpath:logback-benchmark.xml")
+                .properties(properties)
+                .run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares a JMH JSON result file with the saved baseline and exits with status 1 if any
+ * benchmark is worse than the baseline by more than the tolerance:
+ * {@code <baseline.json> <result.json> [tolerance]}.
+ * <p>
+ * Throughput scores must not drop, time-per-operation scores must not rise. A score
+ * beyond the tolerance only counts as a regression if its 99.9% confidence interval
+ * also lies wholly on the worse side of the baseline's, so a run whose error bars are
+ * wider than the tolerance does not fail on noise. Results without an interval, such as
+ * single-iteration runs, are judged on the tolerance alone. Benchmarks without a
+ * baseline entry are reported but do not fail the check. To accept a new baseline,
+ * copy the result file over the baseline.
+ */
+public class BenchmarkBaselineCheck {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaselineCheck <baseline.json> <result.json> [tolerance]");
+            System.exit(2);
+        }
+
+        Path baselinePath = Paths.get(args[0]);
+        Path resultPath = Paths.get(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.15;
+
+        if (!Files.exists(baselinePath)) {
+            System.err.println("No baseline at " + baselinePath + ", copy " + resultPath + " there to create one");
+            System.exit(2);
+        }
+
+        Map<String, JsonNode> baseline = readScores(baselinePath);
+        Map<String, JsonNode> results = readScores(resultPath);
+        int regressions = 0;
+
+        System.out.printf("%-90s %14s %14s %8s%n", "Benchmark", "Baseline", "Current", "Change");
+        int withinError = 0;
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode current = entry.getValue();
+            double score = current.path("primaryMetric").path("score").asDouble();
+            String unit = current.path("primaryMetric").path("scoreUnit").asText();
+            JsonNode previous = baseline.get(entry.getKey());
+
+            if (previous == null) {
+                System.out.printf("%-90s %14s %14.1f %8s  %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+
+            double baselineScore = previous.path("primaryMetric").path("score").asDouble();
+            double change = (score - baselineScore) / baselineScore;
+            boolean higherIsBetter = "thrpt".equals(current.path("mode").asText());
+            boolean beyondTolerance = higherIsBetter ? change < -tolerance : change > tolerance;
+            boolean beyondError = isBeyondError(previous, current, higherIsBetter);
+            String verdict = "";
+            if (beyondTolerance && beyondError) {
+                regressions++;
+                verdict = "  REGRESSION";
+            } else if (beyondTolerance) {
+                withinError++;
+                verdict = "  within error";
+            }
+
+            System.out.printf("%-90s %14.1f %14.1f %+7.1f%%  %s%s%n", entry.getKey(), baselineScore, score,
+                    change * 100, unit, verdict);
+        }
+
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.0f%% against %s%n",
+                    regressions, tolerance * 100, baselinePath);
+            System.exit(1);
+        }
+        System.out.printf("No regressions beyond %.0f%% against %s%n", tolerance * 100, baselinePath);
+        if (withinError > 0) {
+            System.out.printf("%d benchmark(s) changed by more than %.0f%% but within the confidence intervals; "
+                    + "add forks or iterations to narrow them%n", withinError, tolerance * 100);
+        }
+    }
+
+    /**
+     * @return whether the current confidence interval lies wholly on the worse side of the
+     *         baseline's, or true if either result has no interval
+     */
+    private static boolean isBeyondError(JsonNode baseline, JsonNode current, boolean higherIsBetter) {
+        JsonNode baselineInterval = baseline.path("primaryMetric").path("scoreConfidence");
+        JsonNode currentInterval = current.path("primaryMetric").path("scoreConfidence");
+        double baselineLow = baselineInterval.path(0).asDouble(Double.NaN);
+        double baselineHigh = baselineInterval.path(1).asDouble(Double.NaN);
+        double currentLow = currentInterval.path(0).asDouble(Double.NaN);
+        double currentHigh = currentInterval.path(1).asDouble(Double.NaN);
+        if (Double.isNaN(baselineLow) || Double.isNaN(baselineHigh)
+                || Double.isNaN(currentLow) || Double.isNaN(currentHigh)) {
+            return true;
+        }
+        return higherIsBetter ? currentHigh < baselineLow : currentLow > baselineHigh;
+    }
+
+    /**
+     * @return result entries keyed by benchmark name and sorted parameters
+     */
+    private static Map<String, JsonNode> readScores(Path path) throws IOException {
+        Map<String, JsonNode> scores = new LinkedHashMap<>();
+
+        for (JsonNode result : new ObjectMapper().readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            if (!params.isEmpty()) {
+                key.append(params);
+            }
+            scores.put(key.toString(), result);
+        }
+        return scores;
+    }
+}
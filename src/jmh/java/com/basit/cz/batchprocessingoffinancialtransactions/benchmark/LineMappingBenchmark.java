@@ -0,0 +1,99 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.MappedTransactionFileReader;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionLineParser;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV line mapping as done by {@code TransactionCsvReader}: byte ranges from the
+ * memory-mapped reader, Strings as a line-based reader would hand them over, and a full pass
+ * over a generated file. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 3, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Thread)
+public class LineMappingBenchmark {
+
+    static final int LINES = 10_000;
+    static final int FILE_ROWS = 200_000;
+
+    private final TransactionLineParser parser = new TransactionLineParser();
+
+    private String[] lines;
+    private byte[][] lineBytes;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        TransactionDataGenerator generator = new TransactionDataGenerator();
+        lines = new String[LINES];
+        lineBytes = new byte[LINES][];
+        for (int i = 0; i < LINES; i++) {
+            lines[i] = generator.nextLine();
+            lineBytes[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        file = Files.createTempFile("transactions-benchmark", ".csv");
+        new TransactionDataGenerator().writeCsv(file, FILE_ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseBytes(Blackhole blackhole) {
+        for (byte[] line : lineBytes) {
+            blackhole.consume(parser.parse(line, 0, line.length));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseStrings(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(parser.parse(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILE_ROWS)
+    public void readMappedFile(Blackhole blackhole) throws Exception {
+        MappedTransactionFileReader reader = new MappedTransactionFileReader(file, 0, -1);
+        reader.open(new ExecutionContext());
+        try {
+            FinancialTransaction transaction;
+            while ((transaction = reader.read()) != null) {
+                blackhole.consume(transaction);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ProcessingMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole job over a generated input file with serial and with async item processing,
+ * JDBC writer, against the in-memory H2 database. The table is emptied before every run
+ * so each one sees the same duplicate lookups. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+@State(Scope.Thread)
+public class ProcessingModeBenchmark {
+
+    static final int ROWS = 20_000;
+
+    @Param({"SERIAL", "ASYNC"})
+    private ProcessingMode processingMode;
+
+    private Path workDirectory;
+    private ConfigurableApplicationContext context;
+    private JobLauncher jobLauncher;
+    private Job job;
+    private JdbcTemplate jdbcTemplate;
+    private long run;
+
+    @Setup(Level.Trial)
+    public void startContext() throws IOException {
+        workDirectory = Files.createTempDirectory("processing-mode-benchmark");
+        Path input = workDirectory.resolve("transactions.csv");
+        new TransactionDataGenerator().writeCsv(input, ROWS);
+
+        context = BenchmarkApplicationContext.start(
+                "app.batch.input-file=" + input.toUri(),
+                "app.batch.output-directory=" + workDirectory,
+                "app.batch.writer-mode=JDBC",
+                "app.batch.processing-mode=" + processingMode);
+        jobLauncher = context.getBean(JobLauncher.class);
+        job = context.getBean("processTransactionsJob", Job.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyTable() {
+        jdbcTemplate.execute("TRUNCATE TABLE financial_transactions");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public BatchStatus runJob() throws Exception {
+        JobExecution execution = jobLauncher.run(job, new JobParametersBuilder()
+                .addLong("run", ++run)
+                .toJobParameters());
+        if (execution.getStatus() != BatchStatus.COMPLETED) {
+            throw new IllegalStateException("Job ended with " + execution.getStatus());
+        }
+        return execution.getStatus();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(workDirectory);
+    }
+}
@@ -0,0 +1,145 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible synthetic transactions in the input CSV format. The same seed always
+ * yields the same sequence, so benchmark runs and their baselines see identical data.
+ * <p>
+ * Amounts, hours, weekdays and merchants are mixed so every validation and fraud rule
+ * fires at a realistic rate. A configurable share of rows is invalid (negative amount,
+ * unknown type, bad account number, future timestamp) and a share reuses an earlier
+ * transaction ID.
+ */
+public class TransactionDataGenerator {
+
+    public static final long DEFAULT_SEED = 20240101L;
+    public static final String HEADER = "transactionId,accountNumber,amount,transactionType,description,timestamp,merchantId";
+
+    private static final String[] TRANSACTION_TYPES = {"DEBIT", "CREDIT", "TRANSFER", "PAYMENT", "DEPOSIT", "WITHDRAWAL"};
+    private static final String[] DESCRIPTIONS = {
+            "Purchase at grocery store", "Online subscription", "Salary deposit", "Rent payment",
+            "Transfer to savings", "Fuel station", "Restaurant bill", "Utility payment"};
+    private static final String[] SUSPICIOUS_MERCHANTS = {"ATM", "CASH", "UNKNOWN"};
+    private static final int ACCOUNT_COUNT = 10_000;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final SplittableRandom random;
+    private double invalidRatio = 0.05;
+    private double duplicateRatio = 0.01;
+    private long sequence;
+
+    // Fields of the row being generated
+    private String transactionId;
+    private String accountNumber;
+    private BigDecimal amount;
+    private String transactionType;
+    private String description;
+    private LocalDateTime timestamp;
+    private String merchantId;
+
+    public TransactionDataGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public TransactionDataGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public TransactionDataGenerator withInvalidRatio(double invalidRatio) {
+        this.invalidRatio = invalidRatio;
+        return this;
+    }
+
+    public TransactionDataGenerator withDuplicateRatio(double duplicateRatio) {
+        this.duplicateRatio = duplicateRatio;
+        return this;
+    }
+
+    public String nextLine() {
+        generate();
+        return transactionId + ',' + accountNumber + ',' + amount.toPlainString() + ',' + transactionType + ','
+                + description + ',' + timestamp.format(TIMESTAMP_FORMATTER) + ',' + merchantId;
+    }
+
+    /**
+     * @return the next row as an unprocessed entity, as the reader would map it
+     */
+    public FinancialTransaction nextTransaction() {
+        generate();
+        return new FinancialTransaction(transactionId, accountNumber, amount, transactionType,
+                description, timestamp, merchantId);
+    }
+
+    public void writeCsv(Path path, int rows) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                writer.write(nextLine());
+                writer.newLine();
+            }
+        }
+    }
+
+    private void generate() {
+        sequence++;
+        boolean duplicate = sequence > 1 && random.nextDouble() < duplicateRatio;
+        transactionId = String.format("TXN%010d", duplicate ? 1 + random.nextLong(sequence - 1) : sequence);
+        accountNumber = "ACC" + (100_000 + random.nextInt(ACCOUNT_COUNT));
+        amount = nextAmount();
+        transactionType = TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)];
+        description = DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+        timestamp = START.plusSeconds(random.nextLong(365L * 24 * 60 * 60));
+        merchantId = random.nextInt(10) == 0
+                ? SUSPICIOUS_MERCHANTS[random.nextInt(SUSPICIOUS_MERCHANTS.length)] + random.nextInt(1000)
+                : "MERCHANT" + random.nextInt(5000);
+
+        if (random.nextDouble() < invalidRatio) {
+            switch (random.nextInt(4)) {
+                case 0 -> amount = amount.negate();
+                case 1 -> transactionType = "REFUND";
+                case 2 -> accountNumber = "X" + accountNumber;
+                default -> timestamp = timestamp.plusYears(100);
+            }
+        }
+    }
+
+    private BigDecimal nextAmount() {
+        int bucket = random.nextInt(100);
+        if (bucket < 5) {
+            // Round amounts
+            return BigDecimal.valueOf(100L * (1 + random.nextInt(200)));
+        }
+        if (bucket < 10) {
+            // Above the default fraud threshold
+            return BigDecimal.valueOf(1_000_000L + random.nextLong(5_000_000L), 2);
+        }
+        return BigDecimal.valueOf(100L + random.nextLong(500_000L), 2);
+    }
+
+    /**
+     * Write a synthetic input file: {@code <path> <rows> [seed]}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TransactionDataGenerator <path> <rows> [seed]");
+            System.exit(1);
+        }
+
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        new TransactionDataGenerator(seed).writeCsv(Paths.get(args[0]), Integer.parseInt(args[1]));
+    }
+}
@@ -0,0 +1,107 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionDuplicateChecker;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionProcessor;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionIdIndexService;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.test.MetaDataInstanceFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TransactionProcessor#process} inside a step scope against the in-memory H2
+ * database: read callbacks of the duplicate checker, duplicate check, validation and
+ * fraud scoring, one chunk per invocation. Every iteration runs in a fresh step
+ * execution so the job's transaction ID index does not grow across iterations.
+ * Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+@State(Scope.Thread)
+public class TransactionProcessorBenchmark {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+    private TransactionProcessor processor;
+    private TransactionDuplicateChecker duplicateChecker;
+    private TransactionIdIndexService indexService;
+    private TransactionDataGenerator generator;
+
+    private StepExecution stepExecution;
+    private long executionId;
+    private final FinancialTransaction[] chunk = new FinancialTransaction[CHUNK_SIZE];
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkApplicationContext.start();
+        processor = context.getBean(TransactionProcessor.class);
+        duplicateChecker = context.getBean(TransactionDuplicateChecker.class);
+        indexService = context.getBean(TransactionIdIndexService.class);
+        generator = new TransactionDataGenerator();
+    }
+
+    @Setup(Level.Iteration)
+    public void startStep() {
+        executionId++;
+        JobExecution jobExecution = MetaDataInstanceFactory.createJobExecution("processTransactionsJob", 1L, executionId);
+        stepExecution = jobExecution.createStepExecution("processTransactionsStep");
+        stepExecution.setId(executionId);
+
+        indexService.buildIndex(executionId);
+        StepSynchronizationManager.register(stepExecution);
+        duplicateChecker.beforeChunk(new ChunkContext(new StepContext(stepExecution)));
+    }
+
+    @Setup(Level.Invocation)
+    public void readChunk() {
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            chunk[i] = generator.nextTransaction();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void process(Blackhole blackhole) throws Exception {
+        for (FinancialTransaction transaction : chunk) {
+            duplicateChecker.afterRead(transaction);
+        }
+        for (FinancialTransaction transaction : chunk) {
+            blackhole.consume(processor.process(transaction));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeStep() {
+        StepSynchronizationManager.close();
+        indexService.releaseIndex(executionId);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+}
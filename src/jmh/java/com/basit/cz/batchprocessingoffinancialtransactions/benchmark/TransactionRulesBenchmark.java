@@ -0,0 +1,91 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.AccountVelocityStore;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.FraudDetectionService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.ValidationService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ValidationService#validateTransaction} and
+ * {@link FraudDetectionService#calculateFraudScore} over generated rows, including the
+ * generator's share of invalid ones. Scores are rows per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 3, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Thread)
+public class TransactionRulesBenchmark {
+
+    static final int TRANSACTIONS = 10_000;
+
+    private final ValidationService validationService = new ValidationService();
+
+    private FraudDetectionService fraudDetectionService;
+    private FinancialTransaction[] transactions;
+    private LocalDateTime now;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        now = LocalDateTime.now();
+
+        TransactionDataGenerator generator = new TransactionDataGenerator();
+        transactions = new FinancialTransaction[TRANSACTIONS];
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            transactions[i] = generator.nextTransaction();
+        }
+    }
+
+    /**
+     * Scoring records every row in the velocity store, so each iteration starts from an
+     * empty one instead of the history of all iterations before it.
+     */
+    @Setup(Level.Iteration)
+    public void resetVelocityStore() {
+        ApplicationProperties appProperties = new ApplicationProperties();
+        fraudDetectionService = new FraudDetectionService();
+        ReflectionTestUtils.setField(fraudDetectionService, "appProperties", appProperties);
+        ReflectionTestUtils.setField(fraudDetectionService, "velocityStore", new AccountVelocityStore(appProperties));
+        ReflectionTestUtils.setField(fraudDetectionService, "metrics", new TransactionMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(fraudDetectionService, "resourceLoader", new DefaultResourceLoader());
+        fraudDetectionService.loadRules();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSACTIONS)
+    public void validateTransaction(Blackhole blackhole) {
+        for (FinancialTransaction transaction : transactions) {
+            blackhole.consume(validationService.validateTransaction(transaction, now));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSACTIONS)
+    public void calculateFraudScore(Blackhole blackhole) {
+        for (FinancialTransaction transaction : transactions) {
+            blackhole.consume(fraudDetectionService.calculateFraudScore(transaction));
+        }
+    }
+}
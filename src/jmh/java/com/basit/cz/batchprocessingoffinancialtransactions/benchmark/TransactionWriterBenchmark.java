@@ -0,0 +1,112 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.benchmark;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.JdbcTransactionWriter;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionWriter;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.WriterMode;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The JPA {@link TransactionWriter} and the {@link JdbcTransactionWriter} against the
+ * in-memory H2 database at several chunk sizes. Each invocation writes the same number
+ * of rows, one transaction per chunk as in the step, so scores are rows per second and
+ * comparable across chunk sizes. The table is emptied between iterations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+@State(Scope.Thread)
+public class TransactionWriterBenchmark {
+
+    static final int ROWS = 10_000;
+
+    @Param({"100", "1000", "5000"})
+    private int chunkSize;
+
+    @Param({"JPA", "JDBC"})
+    private WriterMode writerMode;
+
+    private ConfigurableApplicationContext context;
+    private ItemWriter<FinancialTransaction> writer;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionDataGenerator generator;
+
+    private final List<Chunk<FinancialTransaction>> chunks = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkApplicationContext.start();
+        writer = writerMode == WriterMode.JDBC
+                ? context.getBean(JdbcTransactionWriter.class)
+                : context.getBean(TransactionWriter.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        generator = new TransactionDataGenerator().withInvalidRatio(0).withDuplicateRatio(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() {
+        jdbcTemplate.execute("TRUNCATE TABLE financial_transactions");
+    }
+
+    @Setup(Level.Invocation)
+    public void processChunks() {
+        chunks.clear();
+        for (int written = 0; written < ROWS; written += chunkSize) {
+            Chunk<FinancialTransaction> chunk = new Chunk<>();
+            for (int i = 0; i < Math.min(chunkSize, ROWS - written); i++) {
+                FinancialTransaction transaction = generator.nextTransaction();
+                transaction.setFraudScore(0.1);
+                transaction.setStatus(TransactionStatus.VALID);
+                chunk.add(transaction);
+            }
+            chunks.add(chunk);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void write() {
+        for (Chunk<FinancialTransaction> chunk : chunks) {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    writer.write(chunk);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to write chunk", e);
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+}
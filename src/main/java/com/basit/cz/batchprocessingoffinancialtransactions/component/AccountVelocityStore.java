@@ -0,0 +1,287 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Recent transaction history per account, used for velocity features: transaction count,
+ * amount sum and distinct merchants over sliding windows ending at a transaction's
+ * timestamp.
+ * <p>
+ * Accounts are keyed on the digits of {@code ACC\d+}, read as a number after a leading 1
+ * so that {@code ACC012} and {@code ACC0012} stay apart. Each account keeps a ring of
+ * its last {@code historySize} transactions as three primitive arrays (seconds, cents and
+ * a 16-bit merchant hash), so the store needs about {@code 9 + 10 * historySize} bytes per
+ * account and no objects per account. The table is set-associative with a fixed
+ * number of accounts: when all slots of a set are taken, the account that was seen least
+ * recently is evicted, which keeps the heap bounded for any number of accounts.
+ * <p>
+ * Counts over a window cannot exceed {@code historySize}. Sets are locked in stripes, so
+ * partition threads can record concurrently.
+ */
+@Component
+public class AccountVelocityStore {
+
+    private static final int WAYS = 4;
+    private static final int LOCK_STRIPES = 1024;
+    private static final long EPOCH_BASE = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long UNKNOWN_ACCOUNT = -1;
+
+    private final int sets;
+    private final int historySize;
+
+    // Per slot: account key + 1 (0 = empty), next ring position and number of entries
+    private final long[] keys;
+    private final byte[] next;
+    private final byte[] sizes;
+
+    // Per slot and ring position
+    private final int[] seconds;
+    private final int[] cents;
+    private final short[] merchants;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @Autowired
+    public AccountVelocityStore(ApplicationProperties appProperties) {
+        this(appProperties.getBatch().getVelocityMaxAccounts(), appProperties.getBatch().getVelocityHistorySize());
+    }
+
+    public AccountVelocityStore(int maxAccounts, int historySize) {
+        if (historySize < 1 || historySize > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("historySize must be between 1 and " + Byte.MAX_VALUE);
+        }
+        this.sets = Math.max(1, (maxAccounts + WAYS - 1) / WAYS);
+        this.historySize = historySize;
+
+        int slots = sets * WAYS;
+        if ((long) slots * historySize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("maxAccounts * historySize must fit in one array");
+        }
+        this.keys = new long[slots];
+        this.next = new byte[slots];
+        this.sizes = new byte[slots];
+        this.seconds = new int[slots * historySize];
+        this.cents = new int[slots * historySize];
+        this.merchants = new short[slots * historySize];
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Add a transaction to its account's history. Transactions without a numeric
+     * account key are ignored.
+     */
+    public void record(String accountNumber, LocalDateTime timestamp, BigDecimal amount, String merchantId) {
+        if (amount != null) {
+            record(accountNumber, timestamp, toCents(amount), merchantId);
+        }
+    }
+
+    /**
+     * Same as {@link #record(String, LocalDateTime, BigDecimal, String)} with the amount
+     * in cents.
+     */
+    public void record(String accountNumber, LocalDateTime timestamp, long amountCents, String merchantId) {
+        long key = accountKey(accountNumber);
+        if (key == UNKNOWN_ACCOUNT || timestamp == null) {
+            return;
+        }
+
+        int second = toSecond(timestamp);
+        int storedCents = (int) Math.max(0, Math.min(Integer.MAX_VALUE, amountCents));
+        short merchant = merchantHash(merchantId);
+        int set = set(key);
+
+        synchronized (locks[set & (LOCK_STRIPES - 1)]) {
+            int slot = findOrClaimSlot(set, key + 1);
+            int base = slot * historySize;
+            int position = next[slot];
+
+            seconds[base + position] = second;
+            cents[base + position] = storedCents;
+            merchants[base + position] = merchant;
+            next[slot] = (byte) ((position + 1) % historySize);
+            if (sizes[slot] < historySize) {
+                sizes[slot]++;
+            }
+        }
+    }
+
+    /**
+     * Compute the velocity windows of an account that end at the given time, including
+     * a transaction recorded at that time.
+     *
+     * @param windowSeconds window lengths in seconds
+     * @return one entry per window length, or null if the account number has no numeric
+     * key or no history
+     */
+    public Window[] windows(String accountNumber, LocalDateTime timestamp, int[] windowSeconds) {
+        long key = accountKey(accountNumber);
+        if (key == UNKNOWN_ACCOUNT || timestamp == null) {
+            return null;
+        }
+
+        int set = set(key);
+        synchronized (locks[set & (LOCK_STRIPES - 1)]) {
+            int slot = findSlot(set, key + 1);
+            return slot >= 0 ? windows(slot * historySize, sizes[slot], toSecond(timestamp), windowSeconds) : null;
+        }
+    }
+
+    public int getMaxAccounts() {
+        return sets * WAYS;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    private int set(long key) {
+        return (int) Long.remainderUnsigned(mix(key), sets);
+    }
+
+    private int findSlot(int set, long storedKey) {
+        for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+            if (keys[slot] == storedKey) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int findOrClaimSlot(int set, long storedKey) {
+        int first = set * WAYS;
+        int victim = first;
+        int victimLastSeen = Integer.MAX_VALUE;
+
+        for (int slot = first; slot < first + WAYS; slot++) {
+            if (keys[slot] == storedKey) {
+                return slot;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = storedKey;
+                return slot;
+            }
+            int lastSeen = lastSeen(slot);
+            if (lastSeen < victimLastSeen) {
+                victim = slot;
+                victimLastSeen = lastSeen;
+            }
+        }
+
+        keys[victim] = storedKey;
+        next[victim] = 0;
+        sizes[victim] = 0;
+        return victim;
+    }
+
+    private int lastSeen(int slot) {
+        int latest = (next[slot] + historySize - 1) % historySize;
+        return seconds[slot * historySize + latest];
+    }
+
+    private Window[] windows(int base, int size, int now, int[] windowSeconds) {
+        Window[] windows = new Window[windowSeconds.length];
+
+        for (int w = 0; w < windowSeconds.length; w++) {
+            int from = now - windowSeconds[w];
+            int count = 0;
+            long amountCents = 0;
+            int distinctMerchants = 0;
+
+            for (int i = 0; i < size; i++) {
+                int second = seconds[base + i];
+                if (second <= from || second > now) {
+                    continue;
+                }
+                count++;
+                amountCents += cents[base + i];
+
+                short merchant = merchants[base + i];
+                if (merchant != 0 && isFirstMerchantInWindow(base, i, merchant, from, now)) {
+                    distinctMerchants++;
+                }
+            }
+            windows[w] = new Window(count, amountCents, distinctMerchants);
+        }
+        return windows;
+    }
+
+    private boolean isFirstMerchantInWindow(int base, int index, short merchant, int from, int now) {
+        for (int j = 0; j < index; j++) {
+            int second = seconds[base + j];
+            if (merchants[base + j] == merchant && second > from && second <= now) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the digits after the {@code ACC} prefix as a number, preceded by a 1 to keep
+     * leading zeros apart, or -1 if there are none
+     */
+    static long accountKey(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() < 4 || accountNumber.length() > 21
+                || !accountNumber.startsWith("ACC")) {
+            return UNKNOWN_ACCOUNT;
+        }
+
+        long key = 1;
+        for (int i = 3; i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return UNKNOWN_ACCOUNT;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    private static int toSecond(LocalDateTime timestamp) {
+        long second = timestamp.toEpochSecond(ZoneOffset.UTC) - EPOCH_BASE;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, second));
+    }
+
+    private static long toCents(BigDecimal amount) {
+        BigDecimal value = amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP);
+        if (value.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) >= 0) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.max(0, value.intValue());
+    }
+
+    /**
+     * @return a non-zero 16-bit hash, or 0 for a missing merchant
+     */
+    private static short merchantHash(String merchantId) {
+        if (merchantId == null || merchantId.isEmpty()) {
+            return 0;
+        }
+        int h = merchantId.hashCode();
+        short hash = (short) (h ^ (h >>> 16));
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long mix(long key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Transactions of one account within a window, amounts in cents.
+     */
+    public record Window(int count, long amountCents, int distinctMerchants) {
+    }
+}
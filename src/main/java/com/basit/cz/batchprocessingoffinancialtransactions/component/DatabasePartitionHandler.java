@@ -0,0 +1,189 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.PartitionWorkItemService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.PartitionHandler;
+import org.springframework.batch.core.partition.StepExecutionSplitter;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manager side of partitioning across JVMs. Instead of running the partitions, it
+ * publishes them as work items in the job repository database, where worker JVMs claim
+ * and run them (see {@code PartitionWorkerService}), and polls until every work item has
+ * finished.
+ * <p>
+ * If no worker holds a live lease on any partition of the step for {@code claimTimeoutMillis},
+ * because no worker runs or every worker died, the partitions left are withdrawn and
+ * failed, which fails the step. Work items are deleted once the step is done with them.
+ * <p>
+ * Workers update the partition step executions in the job repository only, so once they
+ * finish this copies their state into the manager's step executions. Job listeners and
+ * the report then see them as if they had run locally.
+ */
+public class DatabasePartitionHandler implements PartitionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabasePartitionHandler.class);
+
+    private static final long WAITING_LOG_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final String stepName;
+    private final int gridSize;
+    private final long pollMillis;
+    private final long claimTimeoutMillis;
+    private final PartitionWorkItemService workItems;
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+
+    /**
+     * @param stepName           name of the worker step bean that runs each partition
+     * @param claimTimeoutMillis how long partitions may wait with no worker holding any of them
+     */
+    public DatabasePartitionHandler(String stepName, int gridSize, long pollMillis, long claimTimeoutMillis,
+                                    PartitionWorkItemService workItems, JobExplorer jobExplorer,
+                                    JobRepository jobRepository) {
+        this.stepName = stepName;
+        this.gridSize = gridSize;
+        this.pollMillis = pollMillis;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        this.workItems = workItems;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+    }
+
+    @Override
+    public Collection<StepExecution> handle(StepExecutionSplitter stepSplitter, StepExecution managerStepExecution)
+            throws Exception {
+        Set<StepExecution> partitions = stepSplitter.split(managerStepExecution, gridSize);
+        if (partitions.isEmpty()) {
+            return partitions;
+        }
+
+        long jobExecutionId = managerStepExecution.getJobExecutionId();
+        Map<Long, StepExecution> partitionsById = new HashMap<>();
+        for (StepExecution partition : partitions) {
+            partitionsById.put(partition.getId(), partition);
+        }
+        workItems.publish(partitions, stepName);
+
+        long nextWaitingLog = System.currentTimeMillis() + WAITING_LOG_INTERVAL_MILLIS;
+        long lastClaimed = System.currentTimeMillis();
+        boolean cancelled = false;
+        while (true) {
+            Set<Long> unfinished = workItems.getUnfinished(jobExecutionId);
+            unfinished.retainAll(partitionsById.keySet());
+            if (unfinished.isEmpty()) {
+                break;
+            }
+
+            // Workers stop the partitions they run on their own; nobody would start the others
+            if (!cancelled && isStopping(jobExecutionId)) {
+                stopPending(jobExecutionId, partitionsById);
+                cancelled = true;
+                continue;
+            }
+
+            long now = System.currentTimeMillis();
+            boolean claimed = workItems.hasLiveClaim(jobExecutionId);
+            if (claimed) {
+                lastClaimed = now;
+            } else if (now - lastClaimed >= claimTimeoutMillis) {
+                abandonUnclaimed(jobExecutionId, partitionsById);
+                lastClaimed = now;
+                continue;
+            }
+
+            if (now >= nextWaitingLog) {
+                if (claimed) {
+                    logger.info("Waiting for workers to finish {} of {} partitions of job execution {}",
+                            unfinished.size(), partitions.size(), jobExecutionId);
+                } else {
+                    logger.warn("No worker has claimed the {} unfinished partitions of job execution {} for {} s; "
+                                    + "is a JVM running with app.batch.partition-worker-enabled=true?",
+                            unfinished.size(), jobExecutionId, (now - lastClaimed) / 1000);
+                }
+                nextWaitingLog = now + WAITING_LOG_INTERVAL_MILLIS;
+            }
+            Thread.sleep(pollMillis);
+        }
+
+        for (StepExecution partition : partitions) {
+            StepExecution result = jobExplorer.getStepExecution(jobExecutionId, partition.getId());
+            if (result != null) {
+                copyState(result, partition);
+            }
+            TransactionStatisticsAccumulator.publish(partition);
+        }
+        workItems.delete(jobExecutionId);
+        return partitions;
+    }
+
+    private boolean isStopping(long jobExecutionId) {
+        JobExecution jobExecution = jobExplorer.getJobExecution(jobExecutionId);
+        return jobExecution != null && jobExecution.isStopping();
+    }
+
+    private void stopPending(long jobExecutionId, Map<Long, StepExecution> partitionsById) {
+        List<Long> cancelled = workItems.cancelPending(jobExecutionId);
+        for (Long stepExecutionId : cancelled) {
+            StepExecution partition = partitionsById.get(stepExecutionId);
+            if (partition != null) {
+                partition.setStatus(BatchStatus.STOPPED);
+                partition.setExitStatus(ExitStatus.STOPPED);
+                partition.setEndTime(LocalDateTime.now());
+                jobRepository.update(partition);
+            }
+        }
+        logger.info("Job execution {} is stopping; withdrew {} unclaimed partitions", jobExecutionId, cancelled.size());
+    }
+
+    private void abandonUnclaimed(long jobExecutionId, Map<Long, StepExecution> partitionsById) {
+        List<Long> abandoned = workItems.abandonUnclaimed(jobExecutionId);
+        String message = "No worker claimed the partition within " + claimTimeoutMillis + " ms";
+        for (Long stepExecutionId : abandoned) {
+            StepExecution partition = jobExplorer.getStepExecution(jobExecutionId, stepExecutionId);
+            if (partition == null) {
+                partition = partitionsById.get(stepExecutionId);
+            }
+            if (partition != null) {
+                partition.setStatus(BatchStatus.FAILED);
+                partition.setExitStatus(ExitStatus.FAILED.addExitDescription(message));
+                partition.setEndTime(LocalDateTime.now());
+                jobRepository.update(partition);
+            }
+        }
+        logger.error("No worker claimed a partition of job execution {} within {} ms; failed {} partitions",
+                jobExecutionId, claimTimeoutMillis, abandoned.size());
+    }
+
+    private static void copyState(StepExecution source, StepExecution target) {
+        target.setStatus(source.getStatus());
+        target.setExitStatus(source.getExitStatus());
+        target.setReadCount(source.getReadCount());
+        target.setWriteCount(source.getWriteCount());
+        target.setCommitCount(source.getCommitCount());
+        target.setRollbackCount(source.getRollbackCount());
+        target.setReadSkipCount(source.getReadSkipCount());
+        target.setProcessSkipCount(source.getProcessSkipCount());
+        target.setWriteSkipCount(source.getWriteSkipCount());
+        target.setFilterCount(source.getFilterCount());
+        target.setStartTime(source.getStartTime());
+        target.setEndTime(source.getEndTime());
+        target.setLastUpdated(source.getLastUpdated());
+        target.setExecutionContext(source.getExecutionContext());
+        target.setVersion(source.getVersion());
+    }
+}
@@ -0,0 +1,297 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.FraudRuleType;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.AmountCents;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FraudRuleSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FraudRuleSet} compiled into an evaluation plan. Rules run in ascending cost,
+ * heavier rules first among equal costs. {@link #score} evaluates every rule, since the
+ * score is stored and reported.
+ * <p>
+ * Weights are summed as integer millionths, so the outcome does not depend on the order
+ * in which rules are evaluated. Amount limits are compiled to cents, so amount rules
+ * compare longs unless a transaction amount has no cents value. Velocity windows are
+ * read from the {@link AccountVelocityStore} only when the first velocity rule is reached.
+ * Rule evaluation times are recorded for one transaction in {@value #TIMING_SAMPLE_RATE},
+ * so timing does not add two clock reads per rule to every transaction.
+ * <p>
+ * Immutable and thread-safe.
+ */
+public class FraudRulePlan {
+
+    private static final long WEIGHT_SCALE = 1_000_000;
+    private static final long MAX_SCORE = WEIGHT_SCALE;
+    private static final int TIMING_SAMPLE_RATE = 64;
+
+    private final CompiledRule[] rules;
+    private final long threshold;
+    private final int[] windowSeconds;
+    private final AccountVelocityStore velocityStore;
+
+    private FraudRulePlan(List<CompiledRule> rules, long threshold, int[] windowSeconds,
+                          AccountVelocityStore velocityStore) {
+        this.rules = rules.toArray(new CompiledRule[0]);
+        this.threshold = threshold;
+        this.windowSeconds = windowSeconds;
+        this.velocityStore = velocityStore;
+    }
+
+    /**
+     * @param defaultAmount limit for amount rules that do not declare one
+     * @throws IllegalArgumentException if a rule definition is incomplete
+     */
+    public static FraudRulePlan compile(FraudRuleSet ruleSet, BigDecimal defaultAmount,
+                                        AccountVelocityStore velocityStore, TransactionMetrics metrics) {
+        List<FraudRuleSet.Rule> definitions = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (FraudRuleSet.Rule definition : ruleSet.getRules()) {
+            if (definition.getName() == null || definition.getType() == null) {
+                throw new IllegalArgumentException("Every fraud rule needs a name and a type");
+            }
+            if (!names.add(definition.getName())) {
+                throw new IllegalArgumentException("Duplicate fraud rule name: " + definition.getName());
+            }
+            if (definition.isEnabled() && definition.getWeight() > 0) {
+                definitions.add(definition);
+            }
+        }
+        definitions.sort(Comparator.comparingInt(FraudRulePlan::cost)
+                .thenComparing(Comparator.comparingDouble(FraudRuleSet.Rule::getWeight).reversed()));
+
+        List<Integer> windows = new ArrayList<>();
+        List<CompiledRule> rules = new ArrayList<>();
+        for (FraudRuleSet.Rule definition : definitions) {
+            int windowIndex = -1;
+            if (isVelocityRule(definition.getType())) {
+                if (definition.getWindowMinutes() <= 0) {
+                    throw new IllegalArgumentException("Fraud rule " + definition.getName() + " needs windowMinutes");
+                }
+                int seconds = definition.getWindowMinutes() * 60;
+                windowIndex = windows.indexOf(seconds);
+                if (windowIndex < 0) {
+                    windowIndex = windows.size();
+                    windows.add(seconds);
+                }
+            }
+
+            rules.add(new CompiledRule(definition.getName(), toWeight(definition.getWeight()), windowIndex,
+                    condition(definition, defaultAmount),
+                    metrics.fraudRuleTimer(definition.getName()), metrics.fraudRuleHits(definition.getName())));
+        }
+
+        return new FraudRulePlan(rules, toWeight(ruleSet.getThreshold()),
+                windows.stream().mapToInt(Integer::intValue).toArray(), velocityStore);
+    }
+
+    /**
+     * Score a transaction between 0 and 1, evaluating every rule. Recording the
+     * transaction in its account's velocity history is left to the caller.
+     */
+    public double score(FinancialTransaction transaction) {
+        long score = 0;
+        AccountVelocityStore.Window[] windows = null;
+        boolean windowsRead = false;
+        boolean timed = ThreadLocalRandom.current().nextInt(TIMING_SAMPLE_RATE) == 0;
+
+        for (CompiledRule rule : rules) {
+            long startNanos = timed ? System.nanoTime() : 0;
+            boolean hit;
+            if (rule.windowIndex < 0) {
+                hit = rule.condition.test(transaction, null);
+            } else {
+                if (!windowsRead) {
+                    windows = velocityStore.windows(transaction.getAccountNumber(), transaction.getTimestamp(),
+                            windowSeconds);
+                    windowsRead = true;
+                }
+                hit = windows != null && rule.condition.test(transaction, windows[rule.windowIndex]);
+            }
+            if (timed) {
+                rule.timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+
+            if (hit) {
+                score += rule.weight;
+                rule.hits.increment();
+            }
+        }
+        return (double) Math.min(score, MAX_SCORE) / WEIGHT_SCALE;
+    }
+
+    public boolean isFraudulent(double score) {
+        return toWeight(score) > threshold;
+    }
+
+    public double getThreshold() {
+        return (double) threshold / WEIGHT_SCALE;
+    }
+
+    /**
+     * @return rule names in evaluation order
+     */
+    public List<String> getRuleNames() {
+        List<String> names = new ArrayList<>(rules.length);
+        for (CompiledRule rule : rules) {
+            names.add(rule.name);
+        }
+        return names;
+    }
+
+    private static int cost(FraudRuleSet.Rule definition) {
+        return definition.getCost() != null ? definition.getCost() : definition.getType().getDefaultCost();
+    }
+
+    private static long toWeight(double value) {
+        return Math.round(value * WEIGHT_SCALE);
+    }
+
+    private static boolean isVelocityRule(FraudRuleType type) {
+        return type == FraudRuleType.VELOCITY_COUNT
+                || type == FraudRuleType.VELOCITY_AMOUNT
+                || type == FraudRuleType.VELOCITY_MERCHANTS;
+    }
+
+    private static Condition condition(FraudRuleSet.Rule definition, BigDecimal defaultAmount) {
+        BigDecimal amount = definition.getAmount() != null ? definition.getAmount() : defaultAmount;
+        int count = definition.getCount();
+
+        switch (definition.getType()) {
+            case AMOUNT_ABOVE: {
+                long amountFloorCents = AmountCents.floorOf(amount);
+                return (transaction, window) -> isAbove(transaction, amount, amountFloorCents);
+            }
+
+            case HOUR_BETWEEN: {
+                int from = checkHour(definition, definition.getFromHour());
+                int to = checkHour(definition, definition.getToHour());
+                if (from <= to) {
+                    return (transaction, window) -> {
+                        int hour = transaction.getTimestamp().getHour();
+                        return hour >= from && hour <= to;
+                    };
+                }
+                return (transaction, window) -> {
+                    int hour = transaction.getTimestamp().getHour();
+                    return hour >= from || hour <= to;
+                };
+            }
+
+            case DAY_OF_WEEK: {
+                if (definition.getDays().isEmpty()) {
+                    throw new IllegalArgumentException("Fraud rule " + definition.getName() + " needs days");
+                }
+                EnumSet<DayOfWeek> days = EnumSet.copyOf(definition.getDays());
+                return (transaction, window) -> days.contains(transaction.getTimestamp().getDayOfWeek());
+            }
+
+            case TRANSACTION_TYPE_AMOUNT_ABOVE: {
+                String transactionType = definition.getTransactionType();
+                long amountFloorCents = AmountCents.floorOf(amount);
+                return (transaction, window) -> transactionType != null
+                        && transactionType.equals(transaction.getTransactionType())
+                        && isAbove(transaction, amount, amountFloorCents);
+            }
+
+            case ROUND_AMOUNT: {
+                if (definition.getAmount() == null || definition.getAmount().signum() <= 0) {
+                    throw new IllegalArgumentException("Fraud rule " + definition.getName() + " needs a positive amount");
+                }
+                BigDecimal multiple = definition.getAmount();
+                long multipleCents = AmountCents.of(multiple);
+                if (multipleCents == AmountCents.NONE) {
+                    return (transaction, window) -> transaction.getAmount().remainder(multiple).signum() == 0;
+                }
+                return (transaction, window) -> {
+                    long amountCents = transaction.getAmountCents();
+                    return amountCents != AmountCents.NONE
+                            ? amountCents % multipleCents == 0
+                            : transaction.getAmount().remainder(multiple).signum() == 0;
+                };
+            }
+
+            case MERCHANT_CONTAINS: {
+                String[] values = definition.getValues().stream()
+                        .map(value -> value.toUpperCase(Locale.ROOT))
+                        .toArray(String[]::new);
+                return (transaction, window) -> containsAnyIgnoreCase(transaction.getMerchantId(), values);
+            }
+
+            case VELOCITY_COUNT:
+                return (transaction, window) -> window.count() >= count;
+
+            case VELOCITY_AMOUNT: {
+                long amountFloorCents = AmountCents.floorOf(amount);
+                return (transaction, window) -> window.count() >= Math.max(count, 1)
+                        && window.amountCents() > amountFloorCents;
+            }
+
+            case VELOCITY_MERCHANTS:
+                return (transaction, window) -> window.distinctMerchants() >= count;
+
+            default:
+                throw new IllegalArgumentException("Unsupported fraud rule type: " + definition.getType());
+        }
+    }
+
+    /**
+     * @param limitFloorCents {@link AmountCents#floorOf(BigDecimal)} of the limit
+     */
+    private static boolean isAbove(FinancialTransaction transaction, BigDecimal limit, long limitFloorCents) {
+        long amountCents = transaction.getAmountCents();
+        return amountCents != AmountCents.NONE
+                ? amountCents > limitFloorCents
+                : transaction.getAmount().compareTo(limit) > 0;
+    }
+
+    private static int checkHour(FraudRuleSet.Rule definition, int hour) {
+        if (hour < 0 || hour > 23) {
+            throw new IllegalArgumentException("Fraud rule " + definition.getName() + " has an invalid hour: " + hour);
+        }
+        return hour;
+    }
+
+    /**
+     * Substring search that ignores ASCII case without copying the merchant ID.
+     */
+    private static boolean containsAnyIgnoreCase(String merchantId, String[] upperCaseValues) {
+        if (merchantId == null) {
+            return false;
+        }
+        for (String value : upperCaseValues) {
+            for (int i = 0; i + value.length() <= merchantId.length(); i++) {
+                if (merchantId.regionMatches(true, i, value, 0, value.length())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+        /**
+         * @param window the rule's velocity window, null for other rules
+         */
+        boolean test(FinancialTransaction transaction, AccountVelocityStore.Window window);
+    }
+
+    private record CompiledRule(String name, long weight, int windowIndex, Condition condition,
+                                Timer timer, Counter hits) {
+    }
+}
@@ -0,0 +1,577 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads transactions from a gzip-compressed CSV file, inflating it as it goes instead of
+ * decompressing it to disk first.
+ * <p>
+ * BGZF files (block gzip, as written by {@code bgzip}) are a series of independent
+ * members of at most 64 KiB whose compressed size is recorded in their header, so member
+ * boundaries are known without inflating. Their members are inflated in parallel on the
+ * decompression executor, a bounded number ahead of the reader, and parsed in file
+ * order. Other gzip files, including concatenated multi-member files, are inflated
+ * member by member on the reader thread. Every member's CRC and length are verified.
+ * <p>
+ * The position of the next unread line is saved in the {@link ExecutionContext} as the
+ * compressed offset of its member and its offset in the member's uncompressed data. A
+ * restart seeks to that member and only inflates that member's data before the line.
+ * The member offset is also saved as {@link MappedTransactionFileReader#BYTE_OFFSET_KEY},
+ * so progress is reported against the compressed file size. The first line of the file
+ * is the header.
+ */
+public class GzipTransactionFileReader extends ItemStreamSupport implements ItemStreamReader<FinancialTransaction> {
+
+    private static final Logger logger = LoggerFactory.getLogger(GzipTransactionFileReader.class);
+
+    public static final String MEMBER_OFFSET_KEY = "member.offset";
+    public static final String MEMBER_DATA_OFFSET_KEY = "member.dataOffset";
+
+    private static final int ID1 = 0x1f;
+    private static final int ID2 = 0x8b;
+    private static final int CM_DEFLATE = 8;
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    private static final int FIXED_HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+
+    private static final int HEADER_READ_SIZE = 8192;
+    private static final int BLOCK_HEADER_READ_SIZE = 64;
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int PIECE_SIZE = 256 * 1024;
+    private static final int BLOCKS_AHEAD_PER_THREAD = 4;
+
+    private static final ThreadLocal<Inflater> BLOCK_INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final Path path;
+    private final String source;
+    private final AsyncTaskExecutor decompressionExecutor;
+    private final int maxBlocksAhead;
+    private final TransactionLineParser parser = new TransactionLineParser();
+    private TransactionMetrics metrics;
+
+    private FileChannel channel;
+    private long fileLength;
+
+    // BGZF: blocks being inflated, in file order, and the offset of the next block to submit
+    private boolean blockCompressed;
+    private final ArrayDeque<Future<Piece>> blocksAhead = new ArrayDeque<>();
+    private long nextBlockOffset;
+
+    private MemberInflater memberInflater;
+
+    private Piece piece;
+    private int position;
+    private long pendingSkip;
+    private boolean exhausted;
+
+    // A line that continues into the next piece, and where it started
+    private byte[] carry = new byte[1024];
+    private int carryLength;
+    private boolean carrying;
+    private long carryMemberOffset;
+    private long carryMemberDataOffset;
+
+    private byte[] lineBytes;
+    private int lineStart;
+    private int lineEnd;
+
+    /**
+     * @param decompressionThreads threads of {@code decompressionExecutor}, which bound
+     *                             how many blocks are inflated ahead of the reader
+     */
+    public GzipTransactionFileReader(Path path, AsyncTaskExecutor decompressionExecutor, int decompressionThreads) {
+        this.path = path;
+        this.source = path.toString();
+        this.decompressionExecutor = decompressionExecutor;
+        this.maxBlocksAhead = Math.max(1, decompressionThreads) * BLOCKS_AHEAD_PER_THREAD;
+        setName("transactionCsvReader");
+    }
+
+    /**
+     * @param metrics receives per-row parse timings, or null to skip timing
+     */
+    public void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return true if the file starts with the gzip magic bytes
+     */
+    public static boolean isGzip(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(2);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Read both bytes
+            }
+            return magic.position() == 2 && (magic.get(0) & 0xff) == ID1 && (magic.get(1) & 0xff) == ID2;
+        }
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            fileLength = channel.size();
+
+            MemberHeader first = readHeader(channel, 0, fileLength, HEADER_READ_SIZE);
+            if (first == null) {
+                throw new ItemStreamException(path + " is not a gzip file");
+            }
+            blockCompressed = first.blockSize() > 0;
+
+            long memberOffset = 0;
+            long memberDataOffset = 0;
+            String offsetKey = getExecutionContextKey(MEMBER_OFFSET_KEY);
+            if (executionContext.containsKey(offsetKey)) {
+                memberOffset = executionContext.getLong(offsetKey);
+                memberDataOffset = executionContext.getLong(getExecutionContextKey(MEMBER_DATA_OFFSET_KEY));
+                logger.info("Restarting {} at member offset {} + {} uncompressed bytes",
+                        path.getFileName(), memberOffset, memberDataOffset);
+            }
+
+            blocksAhead.clear();
+            nextBlockOffset = memberOffset;
+            memberInflater = blockCompressed ? null : new MemberInflater(memberOffset);
+            piece = null;
+            position = 0;
+            pendingSkip = memberDataOffset;
+            exhausted = false;
+            carrying = false;
+            carryLength = 0;
+
+            logger.info("Gzip CSV reader configured with file: {} ({})", path,
+                    blockCompressed ? "BGZF, inflating blocks in parallel" : "gzip, inflating sequentially");
+
+            if (memberOffset == 0 && memberDataOffset == 0) {
+                nextLine(); // Skip header
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + path, e);
+        }
+    }
+
+    @Override
+    public FinancialTransaction read() throws Exception {
+        while (nextLine()) {
+            int end = lineEnd;
+            if (end > lineStart && lineBytes[end - 1] == '\r') {
+                end--;
+            }
+            // Skip blank and comment lines
+            if (end == lineStart || lineBytes[lineStart] == '#') {
+                continue;
+            }
+
+            FinancialTransaction transaction;
+            if (metrics == null) {
+                transaction = parser.parse(lineBytes, lineStart, end - lineStart);
+            } else {
+                long startNanos = System.nanoTime();
+                transaction = parser.parse(lineBytes, lineStart, end - lineStart);
+                metrics.recordParse(startNanos);
+            }
+            // A line has no byte offset of its own in the compressed file
+            transaction.setSourceFile(source);
+            return transaction;
+        }
+        return null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+
+        long memberOffset;
+        long memberDataOffset;
+        if (carrying) {
+            memberOffset = carryMemberOffset;
+            memberDataOffset = carryMemberDataOffset;
+        } else if (piece != null) {
+            memberOffset = piece.memberOffset();
+            memberDataOffset = piece.memberDataOffset() + position;
+        } else if (exhausted) {
+            memberOffset = fileLength;
+            memberDataOffset = 0;
+        } else {
+            return; // Nothing read since open, the saved position still holds
+        }
+        executionContext.putLong(getExecutionContextKey(MEMBER_OFFSET_KEY), memberOffset);
+        executionContext.putLong(getExecutionContextKey(MEMBER_DATA_OFFSET_KEY), memberDataOffset);
+        executionContext.putLong(getExecutionContextKey(MappedTransactionFileReader.BYTE_OFFSET_KEY), memberOffset);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        for (Future<Piece> block : blocksAhead) {
+            block.cancel(false);
+        }
+        blocksAhead.clear();
+        if (memberInflater != null) {
+            memberInflater.end();
+            memberInflater = null;
+        }
+        piece = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close " + path, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Locate the next line, in the current piece or, if it spans pieces, in the carry
+     * buffer, and leave its bounds in {@link #lineBytes}, {@link #lineStart} and
+     * {@link #lineEnd} (excluding the line feed).
+     *
+     * @return false at the end of the file
+     */
+    private boolean nextLine() throws IOException {
+        while (true) {
+            if (piece != null) {
+                byte[] data = piece.data();
+                for (int i = position; i < piece.length(); i++) {
+                    if (data[i] == '\n') {
+                        if (carrying) {
+                            appendToCarry(data, position, i - position);
+                            setLine(carry, 0, carryLength);
+                            carrying = false;
+                        } else {
+                            setLine(data, position, i);
+                        }
+                        position = i + 1;
+                        return true;
+                    }
+                }
+
+                if (position < piece.length()) {
+                    if (!carrying) {
+                        carrying = true;
+                        carryLength = 0;
+                        carryMemberOffset = piece.memberOffset();
+                        carryMemberDataOffset = piece.memberDataOffset() + position;
+                    }
+                    appendToCarry(data, position, piece.length() - position);
+                }
+            }
+
+            piece = nextPiece();
+            position = 0;
+            if (piece == null) {
+                exhausted = true;
+                if (carrying) {
+                    // Last line without a trailing line feed
+                    carrying = false;
+                    setLine(carry, 0, carryLength);
+                    return true;
+                }
+                return false;
+            }
+            if (pendingSkip > 0) {
+                position = (int) Math.min(pendingSkip, piece.length());
+                pendingSkip -= position;
+            }
+        }
+    }
+
+    private void setLine(byte[] bytes, int start, int end) {
+        lineBytes = bytes;
+        lineStart = start;
+        lineEnd = end;
+    }
+
+    private void appendToCarry(byte[] data, int offset, int length) {
+        // A line returned from the carry buffer is parsed before the next append
+        if (carryLength + length > carry.length) {
+            byte[] larger = new byte[Math.max(carry.length * 2, carryLength + length)];
+            System.arraycopy(carry, 0, larger, 0, carryLength);
+            carry = larger;
+        }
+        System.arraycopy(data, offset, carry, carryLength, length);
+        carryLength += length;
+    }
+
+    /**
+     * @return the next piece of uncompressed data in file order, or null at the end
+     */
+    private Piece nextPiece() throws IOException {
+        if (!blockCompressed) {
+            return memberInflater.next();
+        }
+
+        while (blocksAhead.size() < maxBlocksAhead && nextBlockOffset < fileLength) {
+            MemberHeader header = readHeader(channel, nextBlockOffset, fileLength, BLOCK_HEADER_READ_SIZE);
+            if (header == null || header.blockSize() <= 0) {
+                throw new IOException("Invalid BGZF block at byte " + nextBlockOffset + " of " + path);
+            }
+            long blockOffset = nextBlockOffset;
+            FileChannel blockChannel = channel;
+            blocksAhead.add(decompressionExecutor.submit(() -> inflateBlock(blockChannel, blockOffset, header)));
+            nextBlockOffset += header.blockSize();
+        }
+
+        Future<Piece> block = blocksAhead.poll();
+        if (block == null) {
+            return null;
+        }
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while inflating " + path, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Inflate one BGZF block. Runs on the decompression executor; positional reads on a
+     * shared channel are thread-safe.
+     */
+    private static Piece inflateBlock(FileChannel channel, long offset, MemberHeader header) throws IOException {
+        byte[] block = new byte[header.blockSize()];
+        readFully(channel, ByteBuffer.wrap(block), offset);
+
+        int trailer = block.length - TRAILER_SIZE;
+        long expectedCrc = readUInt32(block, trailer);
+        int size = (int) readUInt32(block, trailer + 4);
+        byte[] data = new byte[size];
+
+        Inflater inflater = BLOCK_INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(block, header.length(), trailer - header.length());
+        try {
+            int inflated = 0;
+            while (inflated < size && !inflater.finished()) {
+                int count = inflater.inflate(data, inflated, size - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != size) {
+                throw new IOException("BGZF block at byte " + offset + " inflated to " + inflated + " bytes, expected " + size);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt BGZF block at byte " + offset, e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, size);
+        if (crc.getValue() != expectedCrc) {
+            throw new IOException("CRC mismatch in BGZF block at byte " + offset);
+        }
+        return new Piece(offset, 0, data, size);
+    }
+
+    /**
+     * @param readSize bytes to read, at least the whole header
+     * @return the member header at {@code offset}, or null if there is no gzip member
+     */
+    private static MemberHeader readHeader(FileChannel channel, long offset, long fileLength, int readSize)
+            throws IOException {
+        int available = (int) Math.min(readSize, fileLength - offset);
+        if (available < FIXED_HEADER_SIZE) {
+            return null;
+        }
+        byte[] bytes = new byte[available];
+        readFully(channel, ByteBuffer.wrap(bytes), offset);
+        if ((bytes[0] & 0xff) != ID1 || (bytes[1] & 0xff) != ID2) {
+            return null;
+        }
+        if (bytes[2] != CM_DEFLATE) {
+            throw new IOException("Unsupported gzip compression method " + bytes[2] + " at byte " + offset);
+        }
+
+        int flags = bytes[3] & 0xff;
+        int length = FIXED_HEADER_SIZE;
+        int blockSize = -1;
+        try {
+            if ((flags & FEXTRA) != 0) {
+                int extraLength = readUInt16(bytes, length);
+                int subfield = length + 2;
+                length += 2 + extraLength;
+                while (subfield + 4 <= length) {
+                    int subfieldLength = readUInt16(bytes, subfield + 2);
+                    if (bytes[subfield] == 'B' && bytes[subfield + 1] == 'C' && subfieldLength == 2) {
+                        blockSize = readUInt16(bytes, subfield + 4) + 1;
+                    }
+                    subfield += 4 + subfieldLength;
+                }
+            }
+            if ((flags & FNAME) != 0) {
+                length = skipZeroTerminated(bytes, length);
+            }
+            if ((flags & FCOMMENT) != 0) {
+                length = skipZeroTerminated(bytes, length);
+            }
+            if ((flags & FHCRC) != 0) {
+                length += 2;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Gzip header at byte " + offset + " is longer than " + readSize + " bytes");
+        }
+        return new MemberHeader(length, blockSize);
+    }
+
+    private static int skipZeroTerminated(byte[] bytes, int from) {
+        int i = from;
+        while (bytes[i] != 0) {
+            i++;
+        }
+        return i + 1;
+    }
+
+    private static int readUInt16(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8;
+    }
+
+    private static long readUInt32(byte[] bytes, int offset) {
+        return readUInt16(bytes, offset) | (long) readUInt16(bytes, offset + 2) << 16;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of gzip file at byte " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Inflates members one after another on the reader thread, in pieces of at most
+     * {@value #PIECE_SIZE} bytes so a large member is never held in memory.
+     */
+    private final class MemberInflater {
+
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] input = new byte[INPUT_BUFFER_SIZE];
+
+        private long nextMemberOffset;
+        private long memberOffset = -1;
+        private long dataStart;
+        private long inputOffset;
+        private long memberDataOffset;
+
+        MemberInflater(long offset) {
+            this.nextMemberOffset = offset;
+        }
+
+        Piece next() throws IOException {
+            while (true) {
+                if (memberOffset < 0 && !startMember()) {
+                    return null;
+                }
+
+                byte[] data = new byte[PIECE_SIZE];
+                int count = 0;
+                try {
+                    while (count < data.length && !inflater.finished()) {
+                        if (inflater.needsInput()) {
+                            int read = channel.read(ByteBuffer.wrap(input), inputOffset);
+                            if (read <= 0) {
+                                throw new IOException("Unexpected end of gzip data in " + path
+                                        + " at byte " + inputOffset);
+                            }
+                            inputOffset += read;
+                            inflater.setInput(input, 0, read);
+                        }
+                        count += inflater.inflate(data, count, data.length - count);
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupt gzip member at byte " + memberOffset + " of " + path, e);
+                }
+
+                Piece result = null;
+                if (count > 0) {
+                    crc.update(data, 0, count);
+                    result = new Piece(memberOffset, memberDataOffset, data, count);
+                    memberDataOffset += count;
+                }
+                if (inflater.finished()) {
+                    finishMember();
+                }
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+
+        private boolean startMember() throws IOException {
+            if (nextMemberOffset >= fileLength) {
+                return false;
+            }
+            MemberHeader header = readHeader(channel, nextMemberOffset, fileLength, HEADER_READ_SIZE);
+            if (header == null) {
+                logger.warn("Ignoring {} bytes after the last gzip member of {}", fileLength - nextMemberOffset, path);
+                return false;
+            }
+
+            memberOffset = nextMemberOffset;
+            dataStart = memberOffset + header.length();
+            inputOffset = dataStart;
+            memberDataOffset = 0;
+            inflater.reset();
+            crc.reset();
+            return true;
+        }
+
+        private void finishMember() throws IOException {
+            long trailerOffset = dataStart + inflater.getBytesRead();
+            byte[] trailer = new byte[TRAILER_SIZE];
+            readFully(channel, ByteBuffer.wrap(trailer), trailerOffset);
+            if (readUInt32(trailer, 0) != crc.getValue() || readUInt32(trailer, 4) != (memberDataOffset & 0xffffffffL)) {
+                throw new IOException("CRC or length mismatch in gzip member at byte " + memberOffset + " of " + path);
+            }
+            nextMemberOffset = trailerOffset + TRAILER_SIZE;
+            memberOffset = -1;
+        }
+
+        void end() {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @param blockSize total size of a BGZF block, or -1 for a plain gzip member
+     */
+    private record MemberHeader(int length, int blockSize) {
+    }
+
+    /**
+     * Uncompressed data of a member, starting {@code memberDataOffset} bytes into it.
+     */
+    private record Piece(long memberOffset, long memberDataOffset, byte[] data, int length) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads transactions from the byte range [startOffset, endOffset) of a CSV file through
+ * memory-mapped windows. Lines are located in a reusable byte block copied from the
+ * mapping and handed to {@link TransactionLineParser} without intermediate Strings.
+ * <p>
+ * The offset of the next unread line is saved in the {@link ExecutionContext}, so a
+ * restart seeks straight to the last committed chunk instead of re-reading the file.
+ * A range starting at offset 0 skips the header line.
+ */
+public class MappedTransactionFileReader extends ItemStreamSupport implements ItemStreamReader<FinancialTransaction> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedTransactionFileReader.class);
+
+    public static final String BYTE_OFFSET_KEY = "byte.offset";
+
+    private static final long MAP_WINDOW_SIZE = 256L * 1024 * 1024;
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    private final Path path;
+    private final String source;
+    private final long startOffset;
+    private final long requestedEndOffset;
+    private final TransactionLineParser parser = new TransactionLineParser();
+    private TransactionMetrics metrics;
+
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowOffset;
+    private long endOffset;
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private long blockOffset;   // File offset of block[0]
+    private int blockPosition;  // Start of the next unread line in block
+    private int blockLimit;     // Number of valid bytes in block
+
+    /**
+     * @param endOffset exclusive end of the range, or a negative value for the end of the file
+     */
+    public MappedTransactionFileReader(Path path, long startOffset, long endOffset) {
+        this.path = path;
+        this.source = path.toString();
+        this.startOffset = Math.max(0, startOffset);
+        this.requestedEndOffset = endOffset;
+        setName("transactionCsvReader");
+    }
+
+    /**
+     * @param metrics receives per-row parse timings, or null to skip timing
+     */
+    public void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            long fileLength = channel.size();
+            endOffset = requestedEndOffset < 0 ? fileLength : Math.min(requestedEndOffset, fileLength);
+
+            String offsetKey = getExecutionContextKey(BYTE_OFFSET_KEY);
+            long position;
+            if (executionContext.containsKey(offsetKey)) {
+                position = executionContext.getLong(offsetKey);
+                logger.info("Restarting {} at byte offset {}", path.getFileName(), position);
+            } else {
+                position = startOffset;
+            }
+
+            blockOffset = position;
+            blockPosition = 0;
+            blockLimit = 0;
+            window = null;
+
+            if (position == 0 && endOffset > 0) {
+                nextLine(); // Skip header
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + path, e);
+        }
+    }
+
+    @Override
+    public FinancialTransaction read() throws Exception {
+        while (true) {
+            long lineEnd = nextLine();
+            if (lineEnd < 0) {
+                return null;
+            }
+
+            int start = (int) (lineEnd >>> 32);
+            int end = (int) lineEnd;
+            if (end > start && block[end - 1] == '\r') {
+                end--;
+            }
+            // Skip blank and comment lines
+            if (end == start || block[start] == '#') {
+                continue;
+            }
+
+            FinancialTransaction transaction;
+            if (metrics == null) {
+                transaction = parser.parse(block, start, end - start);
+            } else {
+                long startNanos = System.nanoTime();
+                transaction = parser.parse(block, start, end - start);
+                metrics.recordParse(startNanos);
+            }
+            transaction.setSourceFile(source);
+            transaction.setSourceOffset(blockOffset + start);
+            transaction.setSourceLength(end - start);
+            return transaction;
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        executionContext.putLong(getExecutionContextKey(BYTE_OFFSET_KEY), blockOffset + blockPosition);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        window = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close " + path, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Locate the next line in the block, refilling it from the mapping as needed.
+     *
+     * @return the line's start and end (excluding the line feed) in block packed as
+     * {@code start << 32 | end}, or -1 at the end of the range
+     */
+    private long nextLine() throws IOException {
+        int scanFrom = blockPosition;
+        while (true) {
+            for (int i = scanFrom; i < blockLimit; i++) {
+                if (block[i] == '\n') {
+                    int start = blockPosition;
+                    blockPosition = i + 1;
+                    return ((long) start << 32) | i;
+                }
+            }
+
+            int scanned = blockLimit - blockPosition;
+            if (!fill()) {
+                if (blockPosition < blockLimit) {
+                    // Last line without a trailing line feed
+                    int start = blockPosition;
+                    blockPosition = blockLimit;
+                    return ((long) start << 32) | blockLimit;
+                }
+                return -1;
+            }
+            scanFrom = blockPosition + scanned;
+        }
+    }
+
+    /**
+     * Move the unread tail of the block to its start and append bytes from the mapping.
+     *
+     * @return false if the range is exhausted
+     */
+    private boolean fill() throws IOException {
+        long readOffset = blockOffset + blockLimit;
+        if (readOffset >= endOffset) {
+            return false;
+        }
+
+        int tail = blockLimit - blockPosition;
+        if (blockPosition > 0) {
+            System.arraycopy(block, blockPosition, block, 0, tail);
+            blockOffset += blockPosition;
+            blockPosition = 0;
+            blockLimit = tail;
+        } else if (blockLimit == block.length) {
+            // A single line longer than the block
+            byte[] larger = new byte[block.length * 2];
+            System.arraycopy(block, 0, larger, 0, blockLimit);
+            block = larger;
+        }
+
+        if (window == null || readOffset < windowOffset || readOffset >= windowOffset + window.capacity()) {
+            windowOffset = readOffset;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowOffset,
+                    Math.min(MAP_WINDOW_SIZE, endOffset - windowOffset));
+        }
+
+        int count = (int) Math.min(block.length - blockLimit,
+                Math.min(endOffset - readOffset, windowOffset + window.capacity() - readOffset));
+        window.get((int) (readOffset - windowOffset), block, blockLimit, count);
+        blockLimit += count;
+        return true;
+    }
+}
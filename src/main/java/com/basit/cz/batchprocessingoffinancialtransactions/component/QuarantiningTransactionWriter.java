@@ -0,0 +1,162 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.QuarantineService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.QuarantineReason;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.AmountCents;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Checks every row of a chunk against the constraints the write would enforce, and
+ * diverts the rows that break one to {@link QuarantineService} before handing the rest
+ * to the delegate writer. A bad row then costs one quarantine insert instead of a
+ * rolled-back chunk that is written again one row per transaction.
+ * <p>
+ * Quarantined rows are removed from the chunk itself, so write counts, statistics and
+ * write listeners only see the rows that were written. Failures the checks cannot
+ * foresee, such as an ID inserted by a concurrent partition, still fail the write and
+ * fall back to the step's skip handling.
+ */
+public class QuarantiningTransactionWriter implements ItemWriter<FinancialTransaction> {
+
+    // Column sizes of financial_transactions
+    private static final int ID_COLUMN_LENGTH = 255;
+    private static final int DESCRIPTION_COLUMN_LENGTH = 1000;
+    private static final int ERROR_MESSAGE_COLUMN_LENGTH = 1000;
+    // DECIMAL(15,2) holds amounts below 10^13
+    private static final long MAX_AMOUNT_CENTS = 1_000_000_000_000_000L;
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("10000000000000");
+
+    private final ItemWriter<FinancialTransaction> delegate;
+    private final QuarantineService quarantine;
+    private final Validator validator;
+    private final Consumer<FinancialTransaction> quarantinedListener;
+
+    /**
+     * @param quarantinedListener told about every row taken out of the chunk
+     */
+    public QuarantiningTransactionWriter(ItemWriter<FinancialTransaction> delegate, QuarantineService quarantine,
+                                         Validator validator, Consumer<FinancialTransaction> quarantinedListener) {
+        this.delegate = delegate;
+        this.quarantine = quarantine;
+        this.validator = validator;
+        this.quarantinedListener = quarantinedListener;
+    }
+
+    @Override
+    public void write(Chunk<? extends FinancialTransaction> chunk) throws Exception {
+        List<QuarantineService.Rejection> rejections = null;
+        Set<String> transactionIds = new HashSet<>(chunk.size() * 2);
+
+        for (Iterator<? extends FinancialTransaction> items = chunk.iterator(); items.hasNext(); ) {
+            FinancialTransaction transaction = items.next();
+            QuarantineService.Rejection rejection = check(transaction, transactionIds);
+            if (rejection != null) {
+                if (rejections == null) {
+                    rejections = new ArrayList<>();
+                }
+                rejections.add(rejection);
+                items.remove();
+                quarantinedListener.accept(transaction);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            delegate.write(chunk);
+        }
+        if (rejections != null) {
+            quarantine.quarantine(rejections);
+        }
+
+        List<Long> replayed = null;
+        for (FinancialTransaction transaction : chunk) {
+            if (transaction.getQuarantineId() != null) {
+                if (replayed == null) {
+                    replayed = new ArrayList<>();
+                }
+                replayed.add(transaction.getQuarantineId());
+            }
+        }
+        if (replayed != null) {
+            quarantine.markReplayed(replayed);
+        }
+    }
+
+    /**
+     * @return why the row cannot be written, or null if it passes every check
+     */
+    private QuarantineService.Rejection check(FinancialTransaction transaction, Set<String> transactionIds) {
+        Set<ConstraintViolation<FinancialTransaction>> violations = validator.validate(transaction);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<FinancialTransaction> violation = violations.iterator().next();
+            String detail = violation.getPropertyPath() + ": " + violation.getMessage();
+            if (transaction.getErrorMessage() != null) {
+                detail += " (" + transaction.getErrorMessage() + ")";
+            }
+            return new QuarantineService.Rejection(transaction, QuarantineReason.INVALID_FIELD, detail);
+        }
+
+        String tooLong = tooLongField(transaction);
+        if (tooLong != null) {
+            return new QuarantineService.Rejection(transaction, QuarantineReason.FIELD_TOO_LONG, tooLong);
+        }
+
+        // @DecimalMin passes a missing amount, which the NOT NULL column would not
+        if (transaction.getAmount() == null) {
+            return new QuarantineService.Rejection(transaction, QuarantineReason.INVALID_FIELD,
+                    "amount: Amount is required");
+        }
+
+        long cents = transaction.getAmountCents();
+        boolean amountOutOfRange = cents != AmountCents.NONE
+                ? Math.abs(cents) >= MAX_AMOUNT_CENTS
+                : transaction.getAmount().abs().compareTo(MAX_AMOUNT) >= 0;
+        if (amountOutOfRange) {
+            return new QuarantineService.Rejection(transaction, QuarantineReason.AMOUNT_OUT_OF_RANGE,
+                    "amount: " + transaction.getAmount().toPlainString());
+        }
+
+        if (!transactionIds.add(transaction.getTransactionId())) {
+            return new QuarantineService.Rejection(transaction, QuarantineReason.DUPLICATE_ID,
+                    "transactionId occurs earlier in the chunk");
+        }
+        return null;
+    }
+
+    private static String tooLongField(FinancialTransaction transaction) {
+        if (exceeds(transaction.getTransactionId(), ID_COLUMN_LENGTH)) {
+            return "transactionId longer than " + ID_COLUMN_LENGTH;
+        }
+        if (exceeds(transaction.getAccountNumber(), ID_COLUMN_LENGTH)) {
+            return "accountNumber longer than " + ID_COLUMN_LENGTH;
+        }
+        if (exceeds(transaction.getTransactionType(), ID_COLUMN_LENGTH)) {
+            return "transactionType longer than " + ID_COLUMN_LENGTH;
+        }
+        if (exceeds(transaction.getMerchantId(), ID_COLUMN_LENGTH)) {
+            return "merchantId longer than " + ID_COLUMN_LENGTH;
+        }
+        if (exceeds(transaction.getDescription(), DESCRIPTION_COLUMN_LENGTH)) {
+            return "description longer than " + DESCRIPTION_COLUMN_LENGTH;
+        }
+        if (exceeds(transaction.getErrorMessage(), ERROR_MESSAGE_COLUMN_LENGTH)) {
+            return "errorMessage longer than " + ERROR_MESSAGE_COLUMN_LENGTH;
+        }
+        return null;
+    }
+
+    private static boolean exceeds(String value, int maxLength) {
+        return value != null && value.length() > maxLength;
+    }
+}
@@ -0,0 +1,55 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits the days that have transactions into up to {@code gridSize} consecutive ranges of
+ * about the same number of days, one partition of {@code rebuildRollupsJob} each. Every
+ * rollup row belongs to one day, so partitions never write the same row.
+ */
+@Component
+public class RollupRebuildPartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollupRebuildPartitioner.class);
+
+    // First day of the partition, and the day after its last, as ISO dates
+    public static final String FROM_DATE_KEY = "fromDate";
+    public static final String UNTIL_DATE_KEY = "untilDate";
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        rollupService.getTransactionDateRange().ifPresent(range -> {
+            LocalDate first = range[0];
+            LocalDate until = range[1].plusDays(1);
+            long days = ChronoUnit.DAYS.between(first, until);
+            long daysPerPartition = Math.max(1, (days + gridSize - 1) / Math.max(1, gridSize));
+
+            for (LocalDate from = first; from.isBefore(until); from = from.plusDays(daysPerPartition)) {
+                LocalDate partitionUntil = from.plusDays(daysPerPartition).isBefore(until)
+                        ? from.plusDays(daysPerPartition) : until;
+                ExecutionContext context = new ExecutionContext();
+                context.putString(FROM_DATE_KEY, from.toString());
+                context.putString(UNTIL_DATE_KEY, partitionUntil.toString());
+                partitions.put("days-" + from, context);
+            }
+        });
+
+        logger.info("Rebuilding rollups in {} partitions", partitions.size());
+        return partitions;
+    }
+}
@@ -0,0 +1,212 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads transactions from a resource that is not a file on the file system, such as a
+ * classpath entry inside a jar, through its input stream. Lines are located in a
+ * reusable byte block and handed to {@link TransactionLineParser} without intermediate
+ * Strings, as in {@link MappedTransactionFileReader}.
+ * <p>
+ * The offset of the next unread line is saved in the {@link ExecutionContext} under the
+ * same {@link MappedTransactionFileReader#BYTE_OFFSET_KEY}. A stream cannot seek, so a
+ * restart skips the bytes before that offset, but without splitting or mapping the lines
+ * in them as a line-count restart would. Offsets of gzip-compressed resources count
+ * uncompressed bytes. The first line is the header.
+ */
+public class StreamTransactionReader extends ItemStreamSupport implements ItemStreamReader<FinancialTransaction> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamTransactionReader.class);
+
+    private static final int BLOCK_SIZE = 256 * 1024;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final Resource resource;
+    private final String source;
+    private final boolean gzipped;
+    private final TransactionLineParser parser = new TransactionLineParser();
+    private TransactionMetrics metrics;
+
+    private InputStream input;
+    private boolean exhausted;
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private long blockOffset;   // Stream offset of block[0]
+    private int blockPosition;  // Start of the next unread line in block
+    private int blockLimit;     // Number of valid bytes in block
+
+    /**
+     * @param gzipped whether to inflate the resource as it is read
+     */
+    public StreamTransactionReader(Resource resource, boolean gzipped) {
+        this.resource = resource;
+        this.source = resource.getDescription();
+        this.gzipped = gzipped;
+        setName("transactionCsvReader");
+    }
+
+    /**
+     * @param metrics receives per-row parse timings, or null to skip timing
+     */
+    public void setMetrics(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        super.open(executionContext);
+
+        try {
+            input = resource.getInputStream();
+            if (gzipped) {
+                input = new GZIPInputStream(input, GZIP_BUFFER_SIZE);
+            }
+
+            String offsetKey = getExecutionContextKey(MappedTransactionFileReader.BYTE_OFFSET_KEY);
+            long position = executionContext.containsKey(offsetKey) ? executionContext.getLong(offsetKey) : 0;
+
+            blockOffset = position;
+            blockPosition = 0;
+            blockLimit = 0;
+            exhausted = false;
+
+            if (position > 0) {
+                logger.info("Restarting {} at byte offset {}", source, position);
+                input.skipNBytes(position);
+            } else {
+                nextLine(); // Skip header
+            }
+        } catch (IOException e) {
+            close();
+            throw new ItemStreamException("Failed to open " + source, e);
+        }
+    }
+
+    @Override
+    public FinancialTransaction read() throws Exception {
+        while (true) {
+            long lineEnd = nextLine();
+            if (lineEnd < 0) {
+                return null;
+            }
+
+            int start = (int) (lineEnd >>> 32);
+            int end = (int) lineEnd;
+            if (end > start && block[end - 1] == '\r') {
+                end--;
+            }
+            // Skip blank and comment lines
+            if (end == start || block[start] == '#') {
+                continue;
+            }
+
+            FinancialTransaction transaction;
+            if (metrics == null) {
+                transaction = parser.parse(block, start, end - start);
+            } else {
+                long startNanos = System.nanoTime();
+                transaction = parser.parse(block, start, end - start);
+                metrics.recordParse(startNanos);
+            }
+            transaction.setSourceFile(source);
+            transaction.setSourceOffset(blockOffset + start);
+            transaction.setSourceLength(end - start);
+            return transaction;
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        executionContext.putLong(getExecutionContextKey(MappedTransactionFileReader.BYTE_OFFSET_KEY),
+                blockOffset + blockPosition);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        super.close();
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Failed to close " + source, e);
+            } finally {
+                input = null;
+            }
+        }
+    }
+
+    /**
+     * Locate the next line in the block, refilling it from the stream as needed.
+     *
+     * @return the line's start and end (excluding the line feed) in block packed as
+     * {@code start << 32 | end}, or -1 at the end of the stream
+     */
+    private long nextLine() throws IOException {
+        int scanFrom = blockPosition;
+        while (true) {
+            for (int i = scanFrom; i < blockLimit; i++) {
+                if (block[i] == '\n') {
+                    int start = blockPosition;
+                    blockPosition = i + 1;
+                    return ((long) start << 32) | i;
+                }
+            }
+
+            int scanned = blockLimit - blockPosition;
+            if (!fill()) {
+                if (blockPosition < blockLimit) {
+                    // Last line without a trailing line feed
+                    int start = blockPosition;
+                    blockPosition = blockLimit;
+                    return ((long) start << 32) | blockLimit;
+                }
+                return -1;
+            }
+            scanFrom = blockPosition + scanned;
+        }
+    }
+
+    /**
+     * Move the unread tail of the block to its start and append bytes from the stream.
+     *
+     * @return false if the stream is exhausted
+     */
+    private boolean fill() throws IOException {
+        if (exhausted) {
+            return false;
+        }
+
+        int tail = blockLimit - blockPosition;
+        if (blockPosition > 0) {
+            System.arraycopy(block, blockPosition, block, 0, tail);
+            blockOffset += blockPosition;
+            blockPosition = 0;
+            blockLimit = tail;
+        } else if (blockLimit == block.length) {
+            // A single line longer than the block
+            byte[] larger = new byte[block.length * 2];
+            System.arraycopy(block, 0, larger, 0, blockLimit);
+            block = larger;
+        }
+
+        int count = input.read(block, blockLimit, block.length - blockLimit);
+        if (count < 0) {
+            exhausted = true;
+            return false;
+        }
+        blockLimit += count;
+        return true;
+    }
+}
@@ -0,0 +1,508 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.repeat.support.RepeatSynchronizationManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Tails a growing CSV file, or the files dropped into a directory, for the streaming
+ * step. {@link #read()} blocks until a complete line is available, so the step runs
+ * until its job is stopped.
+ * <p>
+ * The step cuts chunks by size; this reader cuts them by time. Once a chunk has an item,
+ * the reader waits at most {@code maxWait} for the next line and otherwise closes the
+ * chunk with the item it returns. It holds one line buffer and one item ahead of the
+ * chunk, so memory stays bounded however far the step falls behind: data not yet read
+ * waits in the file.
+ * <p>
+ * In directory mode files are read in name order, a chunk never spans two files, and a
+ * file is handed to the finished-file handler once its last chunk has committed. Files
+ * should be moved into the directory complete, since the end of a file ends its last
+ * line.
+ * <p>
+ * The current file and the offset of the next unread line are saved in the
+ * ExecutionContext. Arrival times of appended data are sampled whenever the file is
+ * seen to grow, and the latency from arrival to commit is recorded per item.
+ */
+public class TailingTransactionFileReader extends ItemStreamSupport
+        implements ItemStreamReader<FinancialTransaction>, ChunkListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TailingTransactionFileReader.class);
+
+    public static final String FILE_KEY = "file";
+    public static final String BYTE_OFFSET_KEY = "byte.offset";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_GROWTH_SAMPLES = 1024;
+    private static final long MAX_POLL_MILLIS = 1000;
+
+    private final Path path;
+    private final String filePattern;
+    private final int batchSize;
+    private final long maxWaitNanos;
+    private final long pollMillis;
+    private final TransactionMetrics metrics;
+    private final TransactionLineParser parser = new TransactionLineParser();
+
+    private long startOffset;
+    private BooleanSupplier stopRequested = () -> false;
+    private Consumer<Path> finishedFileHandler = file -> { };
+    private ObjLongConsumer<Path> committedOffsetHandler = (file, offset) -> { };
+
+    private WatchService watchService;
+    private final Set<Path> unmovableFiles = new HashSet<>();
+
+    private Path file;
+    private String fileName;
+    private FileChannel channel;
+    private Object fileKey;
+    private boolean fileExhausted;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferStart;
+    private int bufferEnd;
+    private long bufferOffset;
+
+    // {file size, System.nanoTime()} samples in ascending size, for lines not read yet
+    private final ArrayDeque<long[]> growth = new ArrayDeque<>();
+
+    private FinancialTransaction next;
+    private long nextStartOffset;
+    private long nextArrivalNanos;
+
+    private int chunkItems;
+    private long chunkDeadline;
+    private long[] chunkArrivals = new long[64];
+    private int chunkArrivalCount;
+
+    /**
+     * @param path        the file to tail, or the directory to watch if {@code filePattern}
+     *                    is set
+     * @param filePattern glob of the file names to read from the directory, or null
+     * @param batchSize   items per chunk, so a full chunk is not held back waiting
+     */
+    public TailingTransactionFileReader(Path path, String filePattern, int batchSize, long maxWaitMillis,
+                                        TransactionMetrics metrics) {
+        this.path = path;
+        this.filePattern = filePattern;
+        this.batchSize = batchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.pollMillis = Math.max(1, Math.min(maxWaitMillis, MAX_POLL_MILLIS));
+        this.metrics = metrics;
+        setName("streamingReader");
+    }
+
+    /**
+     * Offset to start tailing a single file at when there is no saved state. Must be at
+     * the start of a line.
+     */
+    public void setStartOffset(long startOffset) {
+        this.startOffset = startOffset;
+    }
+
+    /**
+     * Polled while the reader waits for data; once it returns true the step stops.
+     */
+    public void setStopRequested(BooleanSupplier stopRequested) {
+        this.stopRequested = stopRequested;
+    }
+
+    public void setFinishedFileHandler(Consumer<Path> finishedFileHandler) {
+        this.finishedFileHandler = finishedFileHandler;
+    }
+
+    /**
+     * Called after each committed chunk with the offset up to which the tailed file has
+     * been processed. Not called in directory mode.
+     */
+    public void setCommittedOffsetHandler(ObjLongConsumer<Path> committedOffsetHandler) {
+        this.committedOffsetHandler = committedOffsetHandler;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Path directory = isDirectoryMode() ? path : path.toAbsolutePath().getParent();
+            if (isDirectoryMode()) {
+                Files.createDirectories(directory);
+            }
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            if (executionContext.containsKey(getExecutionContextKey(FILE_KEY))) {
+                Path savedFile = Paths.get(URI.create(executionContext.getString(getExecutionContextKey(FILE_KEY))));
+                long savedOffset = executionContext.getLong(getExecutionContextKey(BYTE_OFFSET_KEY));
+                if (Files.exists(savedFile)) {
+                    openFile(savedFile, savedOffset);
+                    logger.info("Resuming streaming from {} at byte {}", savedFile, savedOffset);
+                }
+            } else if (!isDirectoryMode() && Files.exists(path)) {
+                openFile(path, startOffset);
+                logger.info("Streaming from {} at byte {}", path, startOffset);
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + path + " for streaming", e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (file != null) {
+            executionContext.putString(getExecutionContextKey(FILE_KEY), file.toUri().toString());
+            executionContext.putLong(getExecutionContextKey(BYTE_OFFSET_KEY), resumeOffset());
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        try {
+            closeFile();
+            if (watchService != null) {
+                watchService.close();
+                watchService = null;
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close " + path, e);
+        }
+    }
+
+    @Override
+    public FinancialTransaction read() throws Exception {
+        if (next == null && !awaitNext(true, 0)) {
+            return null;
+        }
+
+        FinancialTransaction item = next;
+        next = null;
+        if (chunkItems++ == 0) {
+            chunkDeadline = System.nanoTime() + maxWaitNanos;
+        }
+        addChunkArrival(nextArrivalNanos);
+
+        // Keep the chunk open while more lines arrive before its deadline
+        if (chunkItems < batchSize && !awaitNext(false, chunkDeadline)) {
+            RepeatSynchronizationManager.setCompleteOnly();
+        }
+        return item;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkItems = 0;
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        long now = System.nanoTime();
+        for (int i = 0; i < chunkArrivalCount; i++) {
+            metrics.recordStreamingLatency(chunkArrivals[i], now);
+        }
+        chunkArrivalCount = 0;
+
+        if (file == null) {
+            return;
+        }
+        if (isDirectoryMode()) {
+            if (fileExhausted) {
+                finishFile();
+            }
+        } else {
+            committedOffsetHandler.accept(file, resumeOffset());
+        }
+    }
+
+    /**
+     * Fill {@link #next} with the next line.
+     *
+     * @param atChunkStart wait until data arrives or a stop is requested, and move on to
+     *                     the next file in directory mode; otherwise wait until the
+     *                     deadline and stay within the current file
+     * @return false if there was no line in time, or a stop was requested
+     */
+    private boolean awaitNext(boolean atChunkStart, long deadline) throws IOException {
+        while (true) {
+            if (atChunkStart && isDirectoryMode() && (file == null || fileExhausted)) {
+                if (file != null) {
+                    finishFile();
+                }
+                openNextFile();
+            } else if (atChunkStart && !isDirectoryMode()) {
+                checkReplaced();
+            }
+
+            if (file != null && !fileExhausted && readLine()) {
+                return true;
+            }
+            if (!atChunkStart && (fileExhausted || System.nanoTime() - deadline >= 0)) {
+                return false;
+            }
+            if (atChunkStart && stopRequested.getAsBoolean()) {
+                logger.info("Stop requested, streaming from {} ends", path);
+                terminateStep();
+                return false;
+            }
+
+            long waitMillis = atChunkStart ? pollMillis
+                    : Math.max(1, Math.min(pollMillis, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            try {
+                WatchKey key = watchService.poll(waitMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                terminateStep();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Parse the next complete line of the current file into {@link #next}. At the end of
+     * a dropped file the remaining bytes form the last line; a tailed file's incomplete
+     * last line is left until its line feed arrives.
+     *
+     * @return false if there is no complete line yet
+     */
+    private boolean readLine() throws IOException {
+        while (true) {
+            int lineFeed = indexOfLineFeed();
+            boolean lastLine = false;
+            if (lineFeed < 0) {
+                if (fill()) {
+                    continue;
+                }
+                if (!isDirectoryMode()) {
+                    return false;
+                }
+                fileExhausted = true;
+                if (bufferEnd == bufferStart) {
+                    return false;
+                }
+                lineFeed = bufferEnd;
+                lastLine = true;
+            }
+
+            int start = bufferStart;
+            int end = lineFeed;
+            long lineStartOffset = bufferOffset + start;
+            bufferStart = lastLine ? bufferEnd : lineFeed + 1;
+            if (end > start && buffer[end - 1] == '\r') {
+                end--;
+            }
+            // Skip the header, blank and comment lines
+            if (lineStartOffset == 0 || end == start || buffer[start] == '#') {
+                continue;
+            }
+
+            long startNanos = System.nanoTime();
+            next = parser.parse(buffer, start, end - start);
+            metrics.recordParse(startNanos);
+            next.setSourceFile(fileName);
+            next.setSourceOffset(lineStartOffset);
+            next.setSourceLength(end - start);
+            nextStartOffset = lineStartOffset;
+            nextArrivalNanos = arrivalNanos(bufferOffset + bufferStart);
+            return true;
+        }
+    }
+
+    private int indexOfLineFeed() {
+        for (int i = bufferStart; i < bufferEnd; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read more of the file behind the unread bytes of the buffer, growing the buffer
+     * for lines longer than it.
+     *
+     * @return false at the end of the file
+     */
+    private boolean fill() throws IOException {
+        if (bufferStart > 0) {
+            System.arraycopy(buffer, bufferStart, buffer, 0, bufferEnd - bufferStart);
+            bufferOffset += bufferStart;
+            bufferEnd -= bufferStart;
+            bufferStart = 0;
+        }
+        if (bufferEnd == buffer.length) {
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, bufferEnd);
+            buffer = grown;
+        }
+
+        long position = bufferOffset + bufferEnd;
+        sampleGrowth(channel.size());
+        int read = channel.read(ByteBuffer.wrap(buffer, bufferEnd, buffer.length - bufferEnd), position);
+        if (read <= 0) {
+            return false;
+        }
+        bufferEnd += read;
+        return true;
+    }
+
+    private void sampleGrowth(long size) {
+        long[] last = growth.peekLast();
+        long readEnd = bufferOffset + bufferEnd;
+        if (size <= readEnd || (last != null && size <= last[0])) {
+            return;
+        }
+        if (growth.size() >= MAX_GROWTH_SAMPLES) {
+            last[0] = size; // Merged samples overstate the latency of the newer bytes
+        } else {
+            growth.addLast(new long[]{size, System.nanoTime()});
+        }
+    }
+
+    /**
+     * @return when the file was first seen to contain {@code end} bytes, or now if the
+     * bytes were read as soon as they were seen
+     */
+    private long arrivalNanos(long end) {
+        while (!growth.isEmpty() && growth.peekFirst()[0] < end) {
+            growth.pollFirst();
+        }
+        return growth.isEmpty() ? System.nanoTime() : growth.peekFirst()[1];
+    }
+
+    private void addChunkArrival(long arrivalNanos) {
+        if (chunkArrivalCount == chunkArrivals.length) {
+            long[] grown = new long[chunkArrivals.length * 2];
+            System.arraycopy(chunkArrivals, 0, grown, 0, chunkArrivalCount);
+            chunkArrivals = grown;
+        }
+        chunkArrivals[chunkArrivalCount++] = arrivalNanos;
+    }
+
+    /**
+     * @return the offset of the first line not yet returned
+     */
+    private long resumeOffset() {
+        return next != null ? nextStartOffset : bufferOffset + bufferStart;
+    }
+
+    /**
+     * Start over if the tailed file was truncated or replaced by log rotation. Lines
+     * appended to the old file after it was last read are lost.
+     */
+    private void checkReplaced() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return; // Rotated away, wait for the new file
+        }
+
+        if (file == null) {
+            openFile(path, 0);
+        } else if (attributes.size() < bufferOffset + bufferEnd
+                || (fileKey != null && !fileKey.equals(attributes.fileKey()))) {
+            logger.warn("{} was truncated or replaced, streaming it from the start", path);
+            openFile(path, 0);
+        }
+    }
+
+    private void openNextFile() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, filePattern)) {
+            for (Path candidate : stream) {
+                if (Files.isRegularFile(candidate) && !unmovableFiles.contains(candidate)) {
+                    files.add(candidate);
+                }
+            }
+        }
+        if (!files.isEmpty()) {
+            files.sort(null);
+            openFile(files.get(0), 0);
+            logger.info("Streaming {}", file);
+        }
+    }
+
+    private void openFile(Path newFile, long offset) throws IOException {
+        closeFile();
+        file = newFile;
+        fileName = newFile.toString();
+        channel = FileChannel.open(newFile, StandardOpenOption.READ);
+        fileKey = Files.readAttributes(newFile, BasicFileAttributes.class).fileKey();
+        fileExhausted = false;
+        bufferOffset = offset;
+        bufferStart = 0;
+        bufferEnd = 0;
+        growth.clear();
+        next = null;
+    }
+
+    private void closeFile() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void finishFile() {
+        Path finished = file;
+        try {
+            closeFile();
+        } catch (IOException e) {
+            logger.warn("Failed to close {}: {}", finished, e.getMessage());
+        }
+        file = null;
+        finishedFileHandler.accept(finished);
+        if (Files.exists(finished)) {
+            unmovableFiles.add(finished);
+        }
+    }
+
+    private boolean isDirectoryMode() {
+        return filePattern != null;
+    }
+
+    /**
+     * Make the step stop once the current, possibly empty, chunk has committed.
+     */
+    private static void terminateStep() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context != null) {
+            context.getStepExecution().setTerminateOnly();
+        }
+    }
+}
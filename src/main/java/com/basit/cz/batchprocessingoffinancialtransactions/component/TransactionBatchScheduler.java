@@ -1,11 +1,10 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.component;
 
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.BatchJobService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionStreamingService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.core.Job;
-import org.springframework.batch.core.JobParameters;
-import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -16,36 +15,43 @@ public class TransactionBatchScheduler {
     private static final Logger logger = LoggerFactory.getLogger(TransactionBatchScheduler.class);
 
     @Autowired
-    private JobLauncher jobLauncher;
+    private BatchJobService batchJobService;
 
     @Autowired
-    private Job processTransactionsJob;
+    private TransactionStreamingService streamingService;
+
+    @Autowired
+    private ApplicationProperties appProperties;
 
     // Run every day at 2 AM
     @Scheduled(cron = "0 0 2 * * ?")
     public void runDailyTransactionProcessing() {
-        runBatchJob("Daily Scheduled Processing");
+        runBatchJob("Daily Scheduled Processing", false);
     }
 
-    // Run every 4 hours for incremental processing
+    // Run every 4 hours, processing only what was appended since the last run
     @Scheduled(cron = "0 0 */4 * * ?")
     public void runIncrementalProcessing() {
-        runBatchJob("Incremental Processing");
+        runBatchJob("Incremental Processing", true);
     }
 
-    private void runBatchJob(String trigger) {
+    private void runBatchJob(String trigger, boolean incremental) {
+        // Off on partition workers, which leave launching jobs to the manager
+        if (!appProperties.getBatch().isSchedulerEnabled()) {
+            return;
+        }
+        // The streaming job already reads the input as it grows and moves its watermark
+        if (streamingService.isActive()) {
+            logger.info("Skipping batch job - Trigger: {}, the streaming job is reading the input", trigger);
+            return;
+        }
+
         try {
             logger.info("Starting batch job - Trigger: {}", trigger);
-
-            JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("startTime", System.currentTimeMillis())
-                    .addString("trigger", trigger)
-                    .toJobParameters();
-
-            jobLauncher.run(processTransactionsJob, jobParameters);
+            batchJobService.launch(trigger, incremental);
 
         } catch (Exception e) {
             logger.error("Error running batch job with trigger {}: ", trigger, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -2,95 +2,95 @@ package com.basit.cz.batchprocessingoffinancialtransactions.component;
 
 import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
 import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.LineMapper;
-import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 @Component
 public class TransactionCsvReader {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionCsvReader.class);
 
+    private static final String GZIP_SUFFIX = ".gz";
+
     @Autowired
     private ApplicationProperties appProperties;
 
     @Autowired
     private ResourceLoader resourceLoader;
 
-    public FlatFileItemReader<FinancialTransaction> csvFileItemReader() {
-        FlatFileItemReader<FinancialTransaction> reader = new FlatFileItemReader<>();
+    @Autowired
+    private TransactionMetrics metrics;
+
+    private ThreadPoolTaskExecutor decompressionExecutor;
+
+    /**
+     * Threads that inflate the blocks of BGZF input, shared by all readers.
+     */
+    @PostConstruct
+    public void initDecompressionExecutor() {
+        decompressionExecutor = new ThreadPoolTaskExecutor();
+        decompressionExecutor.setCorePoolSize(appProperties.getBatch().getDecompressionThreads());
+        decompressionExecutor.setMaxPoolSize(appProperties.getBatch().getDecompressionThreads());
+        decompressionExecutor.setThreadNamePrefix("inflate-");
+        decompressionExecutor.setDaemon(true);
+        decompressionExecutor.initialize();
+    }
 
-        try {
-            Resource resource = resourceLoader.getResource(appProperties.getBatch().getInputFile());
-            reader.setResource(resource);
-            reader.setName("transactionCsvReader");
-            reader.setLinesToSkip(1); // Skip header
-            reader.setLineMapper(lineMapper());
+    public ItemStreamReader<FinancialTransaction> csvFileItemReader() {
+        return csvFileItemReader(TransactionFilePartitioner.WHOLE_RESOURCE, TransactionFilePartitioner.WHOLE_RESOURCE);
+    }
 
-            logger.info("CSV Reader configured with file: {}", appProperties.getBatch().getInputFile());
+    /**
+     * Reader over the line-aligned byte range [startOffset, endOffset) of the input file,
+     * as produced by {@link TransactionFilePartitioner}. Negative offsets read the whole
+     * resource. Files are memory-mapped; other resources (e.g. classpath entries inside
+     * a jar) are streamed through a {@link StreamTransactionReader}. Gzip-compressed input
+     * is inflated while it is read and always read whole. All of them save the byte offset
+     * of the last committed chunk, so a restart resumes there instead of re-reading lines.
+     */
+    public ItemStreamReader<FinancialTransaction> csvFileItemReader(long startOffset, long endOffset) {
+        return csvFileItemReader(appProperties.getBatch().getInputFile(), startOffset, endOffset);
+    }
+
+    /**
+     * Reader over a byte range of the given resource location instead of the input file.
+     */
+    public ItemStreamReader<FinancialTransaction> csvFileItemReader(String location, long startOffset, long endOffset) {
+        try {
+            Resource resource = resourceLoader.getResource(location);
+
+            if (resource.isFile() && GzipTransactionFileReader.isGzip(resource.getFile().toPath())) {
+                GzipTransactionFileReader reader = new GzipTransactionFileReader(resource.getFile().toPath(),
+                        decompressionExecutor, appProperties.getBatch().getDecompressionThreads());
+                reader.setMetrics(metrics);
+                return reader;
+            }
+
+            if (resource.isFile()) {
+                logger.info("Memory-mapped CSV reader configured with file: {} bytes [{}, {})",
+                        location, Math.max(startOffset, 0),
+                        endOffset < 0 ? "EOF" : endOffset);
+                MappedTransactionFileReader reader =
+                        new MappedTransactionFileReader(resource.getFile().toPath(), startOffset, endOffset);
+                reader.setMetrics(metrics);
+                return reader;
+            }
+
+            StreamTransactionReader reader = new StreamTransactionReader(resource, location.endsWith(GZIP_SUFFIX));
+            reader.setMetrics(metrics);
+
+            logger.info("CSV Reader configured with file: {}", location);
+            return reader;
         } catch (Exception e) {
             logger.error("Error configuring CSV reader: ", e);
             throw new RuntimeException("Failed to configure CSV reader", e);
         }
-
-        return reader;
-    }
-
-    private LineMapper<FinancialTransaction> lineMapper() {
-        DefaultLineMapper<FinancialTransaction> lineMapper = new DefaultLineMapper<>();
-
-        DelimitedLineTokenizer lineTokenizer = new DelimitedLineTokenizer();
-        lineTokenizer.setDelimiter(",");
-        lineTokenizer.setStrict(false);
-        lineTokenizer.setNames("transactionId", "accountNumber", "amount",
-                "transactionType", "description", "timestamp", "merchantId");
-
-        BeanWrapperFieldSetMapper<FinancialTransaction> fieldSetMapper =
-                new BeanWrapperFieldSetMapper<FinancialTransaction>() {
-                    @Override
-                    public FinancialTransaction mapFieldSet(org.springframework.batch.item.file.transform.FieldSet fieldSet) {
-                        FinancialTransaction transaction = new FinancialTransaction();
-
-                        try {
-                            transaction.setTransactionId(fieldSet.readString("transactionId"));
-                            transaction.setAccountNumber(fieldSet.readString("accountNumber"));
-                            transaction.setAmount(fieldSet.readBigDecimal("amount"));
-                            transaction.setTransactionType(fieldSet.readString("transactionType"));
-                            transaction.setDescription(fieldSet.readString("description"));
-
-                            // Parse timestamp
-                            String timestampStr = fieldSet.readString("timestamp");
-                            if (timestampStr != null && !timestampStr.trim().isEmpty()) {
-                                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
-                                transaction.setTimestamp(LocalDateTime.parse(timestampStr, formatter));
-                            }
-
-                            transaction.setMerchantId(fieldSet.readString("merchantId"));
-
-                        } catch (Exception e) {
-                            logger.warn("Error parsing transaction: {}", e.getMessage());
-                            // Set error message and continue processing
-                            transaction.setErrorMessage("Parse error: " + e.getMessage());
-                        }
-
-                        return transaction;
-                    }
-                };
-        fieldSetMapper.setTargetType(FinancialTransaction.class);
-
-        lineMapper.setLineTokenizer(lineTokenizer);
-        lineMapper.setFieldSetMapper(fieldSetMapper);
-
-        return lineMapper;
     }
-}
\ No newline at end of file
+}
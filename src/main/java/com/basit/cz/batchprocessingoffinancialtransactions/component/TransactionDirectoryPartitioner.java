@@ -0,0 +1,87 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One partition per file in {@code app.batch.input-directory} that matches
+ * {@code app.batch.input-file-pattern}, in file name order. Processed files are moved out
+ * of the directory, so every file found is new or unfinished.
+ * <p>
+ * Partitions are named after their file. On a restart the job repository therefore
+ * matches each file that is still in the directory with its earlier partition, which
+ * resumes from its saved offset, and skips files that already completed.
+ */
+@Component
+public class TransactionDirectoryPartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionDirectoryPartitioner.class);
+
+    // File URI of the partition's input
+    public static final String INPUT_FILE_KEY = "inputFile";
+
+    // Step names are limited to 100 characters, including the worker step name
+    private static final int MAX_PARTITION_NAME_LENGTH = 64;
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Path directory = Paths.get(appProperties.getBatch().getInputDirectory());
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+                appProperties.getBatch().getInputFilePattern())) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to list input directory " + directory, e);
+        }
+        files.sort(null);
+
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        try {
+            for (Path file : files) {
+                ExecutionContext context = new ExecutionContext();
+                context.putString(INPUT_FILE_KEY, file.toAbsolutePath().toUri().toString());
+                context.putLong(TransactionFilePartitioner.START_OFFSET_KEY, 0);
+                context.putLong(TransactionFilePartitioner.END_OFFSET_KEY, Files.size(file));
+                partitions.put(partitionName(file), context);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read input file size", e);
+        }
+
+        logger.info("Found {} input files in {} matching {}",
+                partitions.size(), directory, appProperties.getBatch().getInputFilePattern());
+        return partitions;
+    }
+
+    static String partitionName(Path file) {
+        String name = file.getFileName().toString();
+        if (name.length() <= MAX_PARTITION_NAME_LENGTH) {
+            return name;
+        }
+        String hash = String.format("%08x", name.hashCode());
+        return name.substring(0, MAX_PARTITION_NAME_LENGTH - hash.length() - 1) + "~" + hash;
+    }
+}
@@ -0,0 +1,201 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionIdIndexService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.repository.FinancialTransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chunk-aware duplicate detection.
+ * <p>
+ * IDs seen earlier in the same run are caught by the job's {@link TransactionIdIndex},
+ * which also screens out IDs that are definitely not stored yet. IDs are claimed as rows
+ * are read, so the first row in file order keeps an ID even when a chunk is processed
+ * concurrently. The remaining Bloom
+ * hits are collected while the chunk is being read and resolved with one set-based
+ * lookup the first time the processor asks about any of them.
+ */
+@Component
+@StepScope
+public class TransactionDuplicateChecker implements ItemReadListener<FinancialTransaction>, ChunkListener,
+        SkipListener<FinancialTransaction, FinancialTransaction> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionDuplicateChecker.class);
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private FinancialTransactionRepository repository;
+
+    @Autowired
+    private TransactionIdIndexService indexService;
+
+    private volatile TransactionIdIndex index;
+
+    private final Set<String> pendingIds = new LinkedHashSet<>();
+    private final Set<String> resolvedIds = new HashSet<>();
+    private final Set<String> existingIds = new HashSet<>();
+    private final Set<FinancialTransaction> claimedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<FinancialTransaction> duplicateItems = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private boolean processingStarted;
+
+    @Override
+    public synchronized void beforeChunk(ChunkContext context) {
+        if (index == null) {
+            index = indexService.getIndex(context.getStepContext().getStepExecution().getJobExecutionId());
+        }
+        if (index != null) {
+            indexService.refresh(index);
+        }
+    }
+
+    /**
+     * The first read after processing has started belongs to a new chunk. Chunk state
+     * is reset here rather than in {@link #beforeChunk}, which is also called for every
+     * transaction of a fault-tolerant rescan over the same buffered items.
+     */
+    @Override
+    public synchronized void afterRead(FinancialTransaction item) {
+        if (processingStarted) {
+            pendingIds.clear();
+            resolvedIds.clear();
+            existingIds.clear();
+            claimedItems.clear();
+            duplicateItems.clear();
+            processingStarted = false;
+        }
+
+        String transactionId = item.getTransactionId();
+        if (transactionId != null && index != null) {
+            claim(index, item);
+        }
+        if (transactionId != null && (index == null || !index.isDefinitelyNew(transactionId))) {
+            pendingIds.add(transactionId);
+        }
+    }
+
+    /**
+     * Check whether the transaction's ID is already stored or was claimed by an earlier
+     * row of this run. Re-processing the same item (e.g. during a chunk scan) is not
+     * reported as a duplicate of itself.
+     */
+    public boolean isDuplicate(FinancialTransaction transaction) {
+        String transactionId = transaction.getTransactionId();
+        if (transactionId == null) {
+            return false;
+        }
+
+        TransactionIdIndex currentIndex = index;
+        if (currentIndex != null) {
+            synchronized (this) {
+                processingStarted = true;
+                if (!claim(currentIndex, transaction)) {
+                    return true;
+                }
+            }
+            if (currentIndex.isDefinitelyNew(transactionId)) {
+                return false;
+            }
+        }
+
+        return isStored(transactionId);
+    }
+
+    /**
+     * Claim the item's ID unless the item already holds it.
+     *
+     * @return false if an earlier row of this run claimed the same ID
+     */
+    private boolean claim(TransactionIdIndex currentIndex, FinancialTransaction item) {
+        if (claimedItems.contains(item)) {
+            return true;
+        }
+        if (duplicateItems.contains(item)) {
+            return false;
+        }
+        if (currentIndex.claim(item.getTransactionId())) {
+            claimedItems.add(item);
+            return true;
+        }
+        duplicateItems.add(item);
+        return false;
+    }
+
+    @Override
+    public void onSkipInProcess(FinancialTransaction item, Throwable t) {
+        releaseClaim(item);
+    }
+
+    @Override
+    public void onSkipInWrite(FinancialTransaction item, Throwable t) {
+        releaseClaim(item);
+    }
+
+    /**
+     * A row diverted to quarantine gives up its ID, as a skipped row does, so a fixed row
+     * later in the run can still take it.
+     */
+    public void onQuarantined(FinancialTransaction item) {
+        releaseClaim(item);
+    }
+
+    private synchronized void releaseClaim(FinancialTransaction item) {
+        if (index != null && claimedItems.remove(item)) {
+            index.release(item.getTransactionId());
+        }
+    }
+
+    private synchronized boolean isStored(String transactionId) {
+        processingStarted = true;
+        if (!resolvedIds.contains(transactionId)) {
+            pendingIds.add(transactionId);
+            resolvePending();
+        }
+
+        return existingIds.contains(transactionId);
+    }
+
+    private void resolvePending() {
+        int batchSize = Math.max(1, appProperties.getBatch().getDuplicateLookupBatchSize());
+        List<String> batch = new ArrayList<>(Math.min(batchSize, pendingIds.size()));
+
+        for (String transactionId : pendingIds) {
+            batch.add(transactionId);
+            if (batch.size() == batchSize) {
+                lookup(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            lookup(batch);
+        }
+
+        pendingIds.clear();
+    }
+
+    private void lookup(List<String> transactionIds) {
+        List<String> found = repository.findExistingTransactionIds(transactionIds);
+        existingIds.addAll(found);
+        resolvedIds.addAll(transactionIds);
+        logger.debug("Resolved {} transaction IDs, {} already stored", transactionIds.size(), found.size());
+    }
+}
@@ -0,0 +1,129 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits the input CSV into line-aligned byte ranges, one per worker partition.
+ * The header line is excluded from all ranges. Compressed input is a single partition.
+ */
+@Component
+public class TransactionFilePartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionFilePartitioner.class);
+
+    public static final String START_OFFSET_KEY = "startOffset";
+    public static final String END_OFFSET_KEY = "endOffset";
+    public static final long WHOLE_RESOURCE = -1L;
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        return partition(gridSize, WHOLE_RESOURCE, WHOLE_RESOURCE);
+    }
+
+    /**
+     * Split the line-aligned byte range [startOffset, endOffset) of the input file.
+     * Negative offsets stand for the start and the end of the file.
+     */
+    public Map<String, ExecutionContext> partition(int gridSize, long startOffset, long endOffset) {
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        Resource resource = resourceLoader.getResource(appProperties.getBatch().getInputFile());
+
+        if (!resource.isFile()) {
+            logger.warn("Input {} is not a file, falling back to a single partition", resource.getDescription());
+            partitions.put("partition0", rangeContext(WHOLE_RESOURCE, WHOLE_RESOURCE));
+            return partitions;
+        }
+
+        try {
+            if (GzipTransactionFileReader.isGzip(resource.getFile().toPath())) {
+                logger.info("Input {} is compressed, reading it as a single partition", resource.getFilename());
+                partitions.put("partition0", rangeContext(WHOLE_RESOURCE, WHOLE_RESOURCE));
+                return partitions;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read input file " + resource.getDescription(), e);
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(resource.getFile(), "r")) {
+            long length = endOffset < 0 ? file.length() : Math.min(endOffset, file.length());
+            long dataStart = Math.max(nextLineStart(file, 0, length), startOffset);
+            long dataLength = Math.max(0, length - dataStart);
+            int partitionCount = (int) Math.max(1, Math.min(gridSize, dataLength));
+
+            long start = dataStart;
+            for (int i = 0; i < partitionCount && start < length; i++) {
+                long end = (i == partitionCount - 1)
+                        ? length
+                        : nextLineStart(file, Math.max(start, dataStart + dataLength * (i + 1) / partitionCount), length);
+                if (end > start) {
+                    partitions.put("partition" + i, rangeContext(start, end));
+                }
+                start = end;
+            }
+
+            logger.info("Input {} ({} bytes from byte {}) split into {} partitions",
+                    resource.getFilename(), dataLength, dataStart, partitions.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to partition input file " + resource.getDescription(), e);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * @return the offset just after the first line feed at or after {@code from}, or the file length
+     */
+    static long nextLineStart(RandomAccessFile file, long from, long length) throws IOException {
+        if (from <= 0) {
+            from = 0;
+        } else {
+            // A range boundary right after a line feed is already line-aligned
+            file.seek(from - 1);
+            if (file.read() == '\n') {
+                return from;
+            }
+        }
+
+        byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+        long position = from;
+        file.seek(position);
+        int read;
+        while (position < length && (read = file.read(buffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return length;
+    }
+
+    private ExecutionContext rangeContext(long startOffset, long endOffset) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(START_OFFSET_KEY, startOffset);
+        context.putLong(END_OFFSET_KEY, endOffset);
+        return context;
+    }
+}
@@ -0,0 +1,93 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Run-wide transaction ID index: a Bloom filter over the stored IDs, plus an exact set
+ * of the IDs claimed by rows of the current run. Only Bloom hits need to be confirmed
+ * against the database.
+ * <p>
+ * The filter starts with the IDs stored when the job started. IDs stored after that are
+ * added by {@code TransactionIdIndexService.refresh}, which reads the rows above
+ * {@link #getMaxStoredId()}. Rows of this run are already covered by their claims and are
+ * left out of the filter, which is sized for the stored IDs and would otherwise fill up
+ * on a load much larger than the table.
+ */
+public class TransactionIdIndex {
+
+    private final BloomFilter storedIds;
+    private final Set<String> claimedIds = ConcurrentHashMap.newKeySet();
+    private volatile long storedCount;
+    private volatile long maxStoredId;
+    private volatile long refreshedAt = System.currentTimeMillis();
+
+    /**
+     * @param maxStoredId largest row id whose transaction ID is in the filter
+     */
+    public TransactionIdIndex(BloomFilter storedIds, long storedCount, long maxStoredId) {
+        this.storedIds = storedIds;
+        this.storedCount = storedCount;
+        this.maxStoredId = maxStoredId;
+    }
+
+    /**
+     * Add an ID stored after the index was built, unless this run claimed it. Callers
+     * serialize additions.
+     *
+     * @param id row id of the stored transaction
+     */
+    public void addStored(long id, String transactionId) {
+        if (id > maxStoredId) {
+            maxStoredId = id;
+        }
+        if (claimedIds.contains(transactionId)) {
+            return;
+        }
+        storedIds.put(transactionId);
+        storedCount++;
+    }
+
+    /**
+     * @return false if the ID may already be stored and has to be checked in the database
+     */
+    public boolean isDefinitelyNew(String transactionId) {
+        return storedCount == 0 || !storedIds.mightContain(transactionId);
+    }
+
+    /**
+     * Claim an ID for a row of this run.
+     *
+     * @return false if an earlier row of this run already claimed it
+     */
+    public boolean claim(String transactionId) {
+        return claimedIds.add(transactionId);
+    }
+
+    /**
+     * Release a claim whose row was skipped and never stored.
+     */
+    public void release(String transactionId) {
+        claimedIds.remove(transactionId);
+    }
+
+    public long getStoredCount() {
+        return storedCount;
+    }
+
+    public long getMaxStoredId() {
+        return maxStoredId;
+    }
+
+    public long getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public void setRefreshedAt(long refreshedAt) {
+        this.refreshedAt = refreshedAt;
+    }
+
+    public int getClaimedCount() {
+        return claimedIds.size();
+    }
+}
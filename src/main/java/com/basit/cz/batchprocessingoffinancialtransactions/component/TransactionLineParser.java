@@ -0,0 +1,317 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Maps one CSV line, given as a byte range, straight to a {@link FinancialTransaction}.
+ * <p>
+ * Columns are transactionId, accountNumber, amount, transactionType, description,
+ * timestamp, merchantId. Delimiters are scanned in the byte array, values are trimmed,
+ * amounts of up to two decimals are parsed straight into long cents and fixed
+ * {@code yyyy-MM-dd'T'HH:mm:ss} timestamps are parsed digit by digit. Quoted fields and
+ * anything outside the fast paths fall back to the JDK parsers so results match the former
+ * DelimitedLineTokenizer/FieldSet mapping, including the "Parse error: ..." message
+ * recorded in errorMessage.
+ * <p>
+ * Instances keep scratch arrays and are not thread-safe.
+ */
+public class TransactionLineParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionLineParser.class);
+
+    public static final int FIELD_COUNT = 7;
+
+    private static final byte DELIMITER = ',';
+    private static final byte QUOTE = '"';
+
+    // Cents per unit of the last parsed digit, indexed by the number of decimals
+    private static final long[] CENTS_PER_UNIT = {100, 10, 1};
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private static final String[] KNOWN_TRANSACTION_TYPES =
+            {"DEBIT", "CREDIT", "TRANSFER", "PAYMENT", "DEPOSIT", "WITHDRAWAL"};
+    private static final byte[][] KNOWN_TRANSACTION_TYPE_BYTES = new byte[KNOWN_TRANSACTION_TYPES.length][];
+
+    static {
+        for (int i = 0; i < KNOWN_TRANSACTION_TYPES.length; i++) {
+            KNOWN_TRANSACTION_TYPE_BYTES[i] = KNOWN_TRANSACTION_TYPES[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+    private final boolean[] fieldQuoted = new boolean[FIELD_COUNT];
+    private boolean lineIsAscii;
+
+    public FinancialTransaction parse(byte[] line, int offset, int length) {
+        FinancialTransaction transaction = new FinancialTransaction();
+        tokenize(line, offset, offset + length);
+
+        try {
+            transaction.setTransactionId(readString(line, 0));
+            transaction.setAccountNumber(readString(line, 1));
+            readAmount(line, 2, transaction);
+            transaction.setTransactionType(readTransactionType(line, 3));
+            transaction.setDescription(readString(line, 4));
+            transaction.setTimestamp(readTimestamp(line, 5));
+            transaction.setMerchantId(readString(line, 6));
+
+        } catch (Exception e) {
+            logger.warn("Error parsing transaction: {}", e.getMessage());
+            // Set error message and continue processing
+            transaction.setErrorMessage("Parse error: " + e.getMessage());
+        }
+
+        return transaction;
+    }
+
+    public FinancialTransaction parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Record the trimmed boundaries of up to {@link #FIELD_COUNT} fields. Missing fields
+     * are empty and surplus fields are ignored, like a non-strict tokenizer.
+     */
+    private void tokenize(byte[] line, int from, int to) {
+        boolean ascii = true;
+        int field = 0;
+        int position = from;
+
+        while (field < FIELD_COUNT) {
+            int start = position;
+            boolean quoted = false;
+
+            // Skip leading blanks to detect a quoted field
+            int probe = start;
+            while (probe < to && line[probe] == ' ') {
+                probe++;
+            }
+            if (probe < to && line[probe] == QUOTE) {
+                quoted = true;
+                position = probe + 1;
+                while (position < to) {
+                    if (line[position] == QUOTE) {
+                        if (position + 1 < to && line[position + 1] == QUOTE) {
+                            position += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    if (line[position] < 0) {
+                        ascii = false;
+                    }
+                    position++;
+                }
+                // Continue to the next delimiter after the closing quote
+                while (position < to && line[position] != DELIMITER) {
+                    position++;
+                }
+            } else {
+                while (position < to) {
+                    byte b = line[position];
+                    if (b == DELIMITER) {
+                        break;
+                    }
+                    if (b < 0) {
+                        ascii = false;
+                    }
+                    position++;
+                }
+            }
+
+            int end = position;
+            while (start < end && line[start] <= ' ' && line[start] >= 0) {
+                start++;
+            }
+            while (end > start && line[end - 1] <= ' ' && line[end - 1] >= 0) {
+                end--;
+            }
+
+            fieldStart[field] = start;
+            fieldEnd[field] = end;
+            fieldQuoted[field] = quoted;
+            field++;
+
+            if (position >= to) {
+                break;
+            }
+            position++; // Skip delimiter
+        }
+
+        for (; field < FIELD_COUNT; field++) {
+            fieldStart[field] = to;
+            fieldEnd[field] = to;
+            fieldQuoted[field] = false;
+        }
+
+        lineIsAscii = ascii;
+    }
+
+    private String readString(byte[] line, int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+
+        if (fieldQuoted[field]) {
+            return unquote(line, start, end);
+        }
+        if (start == end) {
+            return "";
+        }
+        return new String(line, start, end - start,
+                lineIsAscii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+    private String unquote(byte[] line, int start, int end) {
+        String raw = new String(line, start, end - start, StandardCharsets.UTF_8);
+        if (raw.length() >= 2 && raw.charAt(0) == '"' && raw.charAt(raw.length() - 1) == '"') {
+            raw = raw.substring(1, raw.length() - 1);
+        }
+        return raw.replace("\"\"", "\"").trim();
+    }
+
+    private String readTransactionType(byte[] line, int field) {
+        int start = fieldStart[field];
+        int length = fieldEnd[field] - start;
+
+        if (!fieldQuoted[field]) {
+            for (int i = 0; i < KNOWN_TRANSACTION_TYPE_BYTES.length; i++) {
+                byte[] candidate = KNOWN_TRANSACTION_TYPE_BYTES[i];
+                if (candidate.length == length && regionMatches(line, start, candidate)) {
+                    return KNOWN_TRANSACTION_TYPES[i];
+                }
+            }
+        }
+        return readString(line, field);
+    }
+
+    /**
+     * Set the amount as cents, or as an exact BigDecimal when it has more than two
+     * decimals, does not fit in a long or is outside the fast path.
+     */
+    private void readAmount(byte[] line, int field, FinancialTransaction transaction) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+
+        if (start == end || fieldQuoted[field]) {
+            String candidate = readString(line, field);
+            transaction.setAmount(candidate.isEmpty() ? null : parseDecimal(candidate));
+            return;
+        }
+
+        int position = start;
+        boolean negative = false;
+        if (line[position] == '-' || line[position] == '+') {
+            negative = line[position] == '-';
+            position++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; position < end; position++) {
+            byte b = line[position];
+            if (b >= '0' && b <= '9') {
+                unscaled = unscaled * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                digits = -1;
+                break;
+            }
+        }
+
+        if (digits <= 0 || digits > 18 || scale == 0) {
+            // Exponents, grouping, overflow or malformed input: use the exact JDK parser
+            transaction.setAmount(parseDecimal(readString(line, field)));
+            return;
+        }
+        if (scale > 2) {
+            transaction.setAmount(BigDecimal.valueOf(negative ? -unscaled : unscaled, scale));
+            return;
+        }
+
+        // Up to 18 digits always fit, scaling them up to cents may not
+        long centsPerUnit = CENTS_PER_UNIT[Math.max(scale, 0)];
+        if (unscaled > Long.MAX_VALUE / centsPerUnit) {
+            transaction.setAmount(BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0)));
+            return;
+        }
+        long cents = unscaled * centsPerUnit;
+        transaction.setAmountCents(negative ? -cents : cents);
+    }
+
+    private BigDecimal parseDecimal(String candidate) {
+        try {
+            return new BigDecimal(candidate.replace(",", ""));
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Unparseable number: " + candidate + ", name: [amount]");
+        }
+    }
+
+    private LocalDateTime readTimestamp(byte[] line, int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+
+        if (start == end) {
+            return null;
+        }
+
+        if (end - start == 19 && !fieldQuoted[field]
+                && line[start + 4] == '-' && line[start + 7] == '-' && line[start + 10] == 'T'
+                && line[start + 13] == ':' && line[start + 16] == ':') {
+            int year = digits(line, start, 4);
+            int month = digits(line, start + 5, 2);
+            int day = digits(line, start + 8, 2);
+            int hour = digits(line, start + 11, 2);
+            int minute = digits(line, start + 14, 2);
+            int second = digits(line, start + 17, 2);
+
+            if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 28
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+
+        // Day 29-31, out-of-range or malformed values keep the formatter's exact resolution and messages
+        String text = readString(line, field);
+        return text.isEmpty() ? null : LocalDateTime.parse(text, TIMESTAMP_FORMATTER);
+    }
+
+    /**
+     * @return the value of {@code count} ASCII digits, or -1 if any byte is not a digit
+     */
+    private static int digits(byte[] line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static boolean regionMatches(byte[] line, int start, byte[] candidate) {
+        for (int i = 0; i < candidate.length; i++) {
+            if (line[start + i] != candidate[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,269 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.QuarantineReason;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.WriterMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Micrometer meters for the transaction pipeline, exposed through /actuator/metrics.
+ * <p>
+ * Every meter with a fixed tag set is registered up front and held in a field, so the
+ * per-row recording methods only read {@link System#nanoTime()} and update a meter,
+ * without tag or meter lookups. Skip counters are tagged by exception type and cached
+ * on first use.
+ */
+@Component
+public class TransactionMetrics {
+
+    public static final String STAGE_TIMER = "batch.transactions.stage";
+    public static final String WRITE_TIMER = "batch.transactions.write";
+    public static final String CHUNK_TIMER = "batch.chunk.duration";
+    public static final String ROWS_COUNTER = "batch.transactions.rows";
+    public static final String STATUS_COUNTER = "batch.transactions.status";
+    public static final String SKIP_COUNTER = "batch.transactions.skipped";
+    public static final String QUARANTINE_COUNTER = "batch.transactions.quarantined";
+    public static final String THROUGHPUT_GAUGE = "batch.transactions.throughput";
+    public static final String FRAUD_SCORE_SUMMARY = "batch.transactions.fraud.score";
+    public static final String FRAUD_RULE_TIMER = "batch.fraud.rule.evaluation";
+    public static final String FRAUD_RULE_HITS = "batch.fraud.rule.hits";
+    public static final String STREAMING_LATENCY_TIMER = "batch.streaming.latency";
+
+    private final MeterRegistry registry;
+
+    private final Timer parseTimer;
+    private final Timer duplicateCheckTimer;
+    private final Timer validationTimer;
+    private final Timer fraudScoringTimer;
+    private final Map<WriterMode, Timer> writeTimers = new EnumMap<>(WriterMode.class);
+    private final Timer committedChunkTimer;
+    private final Timer rolledBackChunkTimer;
+    private final Timer streamingLatencyTimer;
+
+    private final Counter readCounter;
+    private final Counter writtenCounter;
+    private final Counter filteredCounter;
+    private final Map<TransactionStatus, Counter> statusCounters = new EnumMap<>(TransactionStatus.class);
+    private final Map<SkipKey, Counter> skipCounters = new ConcurrentHashMap<>();
+    private final Map<QuarantineReason, Counter> quarantineCounters = new EnumMap<>(QuarantineReason.class);
+
+    private final DistributionSummary fraudScoreSummary;
+
+    private final RowRate readRate = new RowRate();
+    private final RowRate writeRate = new RowRate();
+
+    public TransactionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        parseTimer = stageTimer("parse");
+        duplicateCheckTimer = stageTimer("duplicate_check");
+        validationTimer = stageTimer("validation");
+        fraudScoringTimer = stageTimer("fraud_scoring");
+
+        for (WriterMode mode : WriterMode.values()) {
+            writeTimers.put(mode, Timer.builder(WRITE_TIMER)
+                    .description("Time to write one chunk to the database")
+                    .tag("writer", mode.name().toLowerCase())
+                    .register(registry));
+        }
+
+        committedChunkTimer = chunkTimer("committed");
+        rolledBackChunkTimer = chunkTimer("rolled_back");
+        streamingLatencyTimer = Timer.builder(STREAMING_LATENCY_TIMER)
+                .description("Streaming latency from a row's arrival in the input file to the commit of its chunk")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry);
+
+        readCounter = rowCounter("read");
+        writtenCounter = rowCounter("written");
+        filteredCounter = rowCounter("filtered");
+        for (TransactionStatus status : TransactionStatus.values()) {
+            statusCounters.put(status, Counter.builder(STATUS_COUNTER)
+                    .description("Processed transactions by resulting status")
+                    .tag("status", status.name())
+                    .register(registry));
+        }
+        for (QuarantineReason reason : QuarantineReason.values()) {
+            quarantineCounters.put(reason, Counter.builder(QUARANTINE_COUNTER)
+                    .description("Rows diverted to quarantine before the write, by reason")
+                    .tag("reason", reason.name())
+                    .register(registry));
+        }
+
+        fraudScoreSummary = DistributionSummary.builder(FRAUD_SCORE_SUMMARY)
+                .description("Fraud scores assigned to valid-format transactions")
+                .serviceLevelObjectives(0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9, 1.0)
+                .register(registry);
+
+        Gauge.builder(THROUGHPUT_GAUGE, readRate, RowRate::perSecond)
+                .description("Rows read per second since the previous sample")
+                .tag("stage", "read")
+                .baseUnit("rows")
+                .register(registry);
+        Gauge.builder(THROUGHPUT_GAUGE, writeRate, RowRate::perSecond)
+                .description("Rows written per second since the previous sample")
+                .tag("stage", "write")
+                .baseUnit("rows")
+                .register(registry);
+    }
+
+    public void recordParse(long startNanos) {
+        parseTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDuplicateCheck(long startNanos) {
+        duplicateCheckTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordValidation(long startNanos) {
+        validationTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordFraudScoring(long startNanos, double fraudScore) {
+        fraudScoringTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        fraudScoreSummary.record(fraudScore);
+    }
+
+    public void recordStatus(TransactionStatus status) {
+        statusCounters.get(status).increment();
+    }
+
+    public void recordQuarantined(QuarantineReason reason) {
+        quarantineCounters.get(reason).increment();
+    }
+
+    public void recordWrite(WriterMode mode, long startNanos) {
+        writeTimers.get(mode).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a chunk transaction and the rows it moved once it has committed.
+     */
+    public void recordCommittedChunk(long startNanos, long read, long written, long filtered) {
+        committedChunkTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        readCounter.increment(read);
+        writtenCounter.increment(written);
+        filteredCounter.increment(filtered);
+        readRate.add(read);
+        writeRate.add(written);
+    }
+
+    public void recordRolledBackChunk(long startNanos) {
+        rolledBackChunkTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param arrivalNanos {@link System#nanoTime()} when the row was first seen in the input
+     */
+    public void recordStreamingLatency(long arrivalNanos, long committedNanos) {
+        streamingLatencyTimer.record(committedNanos - arrivalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param cause the exception type that caused the skips, or null if it was not seen
+     */
+    public void recordSkips(String phase, Class<? extends Throwable> cause, long count) {
+        if (count <= 0) {
+            return;
+        }
+        skipCounters.computeIfAbsent(new SkipKey(phase, cause), key -> Counter.builder(SKIP_COUNTER)
+                        .description("Skipped items by phase and exception type")
+                        .tag("phase", key.phase())
+                        .tag("reason", key.type() != null ? key.type().getSimpleName() : "unknown")
+                        .register(registry))
+                .increment(count);
+    }
+
+    /**
+     * @return the evaluation timer of a fraud rule, shared by every plan that contains it
+     */
+    public Timer fraudRuleTimer(String rule) {
+        return Timer.builder(FRAUD_RULE_TIMER)
+                .description("Time to evaluate one fraud rule for one transaction, sampled")
+                .tag("rule", rule)
+                .register(registry);
+    }
+
+    /**
+     * @return the hit counter of a fraud rule, shared by every plan that contains it
+     */
+    public Counter fraudRuleHits(String rule) {
+        return Counter.builder(FRAUD_RULE_HITS)
+                .description("Transactions matched by a fraud rule")
+                .tag("rule", rule)
+                .register(registry);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder(STAGE_TIMER)
+                .description("Per-row time spent in a pipeline stage")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    private Timer chunkTimer(String outcome) {
+        return Timer.builder(CHUNK_TIMER)
+                .description("Chunk latency from the start of the chunk transaction to its completion")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(registry);
+    }
+
+    private Counter rowCounter(String outcome) {
+        return Counter.builder(ROWS_COUNTER)
+                .description("Rows moved by committed chunks")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private record SkipKey(String phase, Class<?> type) {
+    }
+
+    /**
+     * Rows per second between two consecutive samples, re-sampled at most once a second
+     * so frequent scrapes do not produce noisy values.
+     */
+    private static final class RowRate {
+
+        private static final long MIN_SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final LongAdder rows = new LongAdder();
+        private long lastRows;
+        private long lastNanos = System.nanoTime();
+        private double perSecond;
+
+        void add(long count) {
+            rows.add(count);
+        }
+
+        synchronized double perSecond() {
+            long now = System.nanoTime();
+            long elapsed = now - lastNanos;
+            if (elapsed >= MIN_SAMPLE_NANOS) {
+                long total = rows.sum();
+                perSecond = (total - lastRows) * 1e9 / elapsed;
+                lastRows = total;
+                lastNanos = now;
+            }
+            return perSecond;
+        }
+    }
+}
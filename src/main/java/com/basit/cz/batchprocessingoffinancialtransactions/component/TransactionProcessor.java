@@ -4,8 +4,8 @@ import com.basit.cz.batchprocessingoffinancialtransactions.component.service.Fra
 import com.basit.cz.batchprocessingoffinancialtransactions.component.service.ValidationService;
 import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
 import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.ValidationTimeListener;
 import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
-import com.basit.cz.batchprocessingoffinancialtransactions.repository.FinancialTransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ItemProcessor;
@@ -27,44 +27,66 @@ public class TransactionProcessor implements ItemProcessor<FinancialTransaction,
     private FraudDetectionService fraudDetectionService;
 
     @Autowired
-    private FinancialTransactionRepository repository;
+    private TransactionDuplicateChecker duplicateChecker;
+
+    @Autowired
+    private TransactionMetrics metrics;
+
+    @Autowired
+    private ValidationTimeListener validationTime;
 
     @Override
     public FinancialTransaction process(FinancialTransaction transaction) throws Exception {
         logger.debug("Processing transaction: {}", transaction.getTransactionId());
 
         try {
-            // Check for duplicates
-            if (repository.existsByTransactionId(transaction.getTransactionId())) {
-                transaction.setStatus(TransactionStatus.INVALID);
-                transaction.setErrorMessage("Duplicate transaction ID");
-                return transaction;
+            // Check for duplicates (stored or earlier in this run) - filter them out
+            // so they never reach the unique constraint at write time
+            long startNanos = System.nanoTime();
+            boolean duplicate = duplicateChecker.isDuplicate(transaction);
+            metrics.recordDuplicateCheck(startNanos);
+            if (duplicate) {
+                logger.debug("Duplicate transaction ID filtered: {}", transaction.getTransactionId());
+                return null;
             }
 
             // Basic validation
-            if (!validationService.validateTransaction(transaction)) {
+            startNanos = System.nanoTime();
+            boolean valid = validationService.validateTransaction(transaction, validationTime.getValidationTime());
+            metrics.recordValidation(startNanos);
+            if (!valid) {
                 transaction.setStatus(TransactionStatus.INVALID);
+                metrics.recordStatus(TransactionStatus.INVALID);
                 return transaction;
             }
 
-            // Fraud detection
-            double fraudScore = fraudDetectionService.calculateFraudScore(transaction);
-            transaction.setFraudScore(fraudScore);
+            // Fraud detection. Scoring records the row in its account's velocity history,
+            // so a row processed again while a failed chunk is rescanned keeps its score.
+            Double fraudScore = transaction.getFraudScore();
+            if (fraudScore == null) {
+                startNanos = System.nanoTime();
+                fraudScore = fraudDetectionService.calculateFraudScore(transaction);
+                metrics.recordFraudScoring(startNanos, fraudScore);
+                transaction.setFraudScore(fraudScore);
+            }
 
-            if (fraudScore > 0.7) {
+            if (fraudDetectionService.isFraudulent(fraudScore)) {
                 transaction.setStatus(TransactionStatus.FRAUDULENT);
+                metrics.recordStatus(TransactionStatus.FRAUDULENT);
                 logger.warn("Fraudulent transaction detected: {} with score: {}",
                         transaction.getTransactionId(), fraudScore);
                 return transaction;
             }
 
             transaction.setStatus(TransactionStatus.VALID);
+            metrics.recordStatus(TransactionStatus.VALID);
             logger.debug("Transaction validated: {}", transaction.getTransactionId());
 
         } catch (Exception e) {
             logger.error("Error processing transaction {}: {}",
                     transaction.getTransactionId(), e.getMessage());
             transaction.setStatus(TransactionStatus.INVALID);
+            metrics.recordStatus(TransactionStatus.INVALID);
             transaction.setErrorMessage("Processing error: " + e.getMessage());
         }
 
@@ -0,0 +1,142 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.TransactionStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps {@link TransactionStatistics} for the rows a step actually commits.
+ * <p>
+ * Written items are collected per chunk transaction and only merged into the step's
+ * totals once that transaction commits, so rolled-back attempts and fault-tolerant
+ * scans are counted exactly once. As an {@link ItemStream}, the running totals are saved
+ * in the step ExecutionContext with every chunk and restored on restart. When the step
+ * ends its totals are published to the JobExecution, keyed by step name so partitions
+ * and restarts each replace their own entry.
+ */
+@Component
+@StepScope
+public class TransactionStatisticsAccumulator implements ItemWriteListener<FinancialTransaction>, ItemStream,
+        StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatisticsAccumulator.class);
+
+    public static final String STATISTICS_KEY = "transactionStatistics";
+
+    private TransactionStatistics committed = new TransactionStatistics();
+    private TransactionStatistics pending = new TransactionStatistics();
+    private boolean synchronizationRegistered;
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (executionContext.containsKey(STATISTICS_KEY)) {
+            committed = ((TransactionStatistics) executionContext.get(STATISTICS_KEY)).copy();
+            logger.info("Restored statistics for {} previously written transactions", committed.getTotalCount());
+        }
+    }
+
+    @Override
+    public synchronized void afterWrite(Chunk<? extends FinancialTransaction> items) {
+        for (FinancialTransaction transaction : items) {
+            pending.record(transaction);
+        }
+
+        if (!synchronizationRegistered && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    completeTransaction(status == STATUS_COMMITTED);
+                }
+            });
+            synchronizationRegistered = true;
+        } else if (!synchronizationRegistered) {
+            completeTransaction(true);
+        }
+    }
+
+    /**
+     * Called inside the chunk transaction just before the ExecutionContext is saved, so
+     * the saved totals include this chunk exactly when the chunk itself commits.
+     */
+    @Override
+    public synchronized void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.put(STATISTICS_KEY, committed.copy().merge(pending));
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        TransactionStatistics statistics;
+        synchronized (this) {
+            statistics = committed.copy();
+        }
+
+        stepExecution.getExecutionContext().put(STATISTICS_KEY, statistics);
+        publish(stepExecution);
+
+        return stepExecution.getExitStatus();
+    }
+
+    /**
+     * Publish the statistics saved in a step's ExecutionContext to its JobExecution. Used
+     * directly for partitions that ran in another JVM, whose job context is not shared.
+     */
+    public static void publish(StepExecution stepExecution) {
+        Object statistics = stepExecution.getExecutionContext().get(STATISTICS_KEY);
+        if (!(statistics instanceof TransactionStatistics)) {
+            return;
+        }
+
+        ExecutionContext jobContext = stepExecution.getJobExecution().getExecutionContext();
+        synchronized (jobContext) {
+            @SuppressWarnings("unchecked")
+            Map<String, TransactionStatistics> stepStatistics = jobContext.containsKey(STATISTICS_KEY)
+                    ? new HashMap<>((Map<String, TransactionStatistics>) jobContext.get(STATISTICS_KEY))
+                    : new HashMap<>();
+            stepStatistics.put(stepExecution.getStepName(), (TransactionStatistics) statistics);
+            jobContext.put(STATISTICS_KEY, stepStatistics);
+        }
+    }
+
+    /**
+     * @return the totals of all steps of the job that published statistics, empty if none did
+     */
+    public static TransactionStatistics forJob(JobExecution jobExecution) {
+        TransactionStatistics total = new TransactionStatistics();
+        ExecutionContext jobContext = jobExecution.getExecutionContext();
+
+        synchronized (jobContext) {
+            Object stepStatistics = jobContext.get(STATISTICS_KEY);
+            if (stepStatistics instanceof Map<?, ?> map) {
+                for (Object statistics : map.values()) {
+                    total.merge((TransactionStatistics) statistics);
+                }
+            }
+        }
+        return total;
+    }
+
+    private synchronized void completeTransaction(boolean committedTransaction) {
+        if (committedTransaction) {
+            committed.merge(pending);
+        }
+        pending = new TransactionStatistics();
+        synchronizationRegistered = false;
+    }
+}
@@ -0,0 +1,163 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.AmountCents;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The transaction validation rules as plain field checks that report violations as a
+ * bitmask, one bit per rule. Checking a row allocates nothing: amounts are compared in
+ * cents, and as BigDecimal only when they have no cents value. The message for a failed
+ * row is built separately by {@link #describe(int, FinancialTransaction)}.
+ * <p>
+ * Stateless and thread-safe.
+ */
+public class TransactionValidator {
+
+    public static final int TRANSACTION_ID_REQUIRED = 1;
+    public static final int ACCOUNT_NUMBER_REQUIRED = 1 << 1;
+    public static final int AMOUNT_NOT_POSITIVE = 1 << 2;
+    public static final int INVALID_TRANSACTION_TYPE = 1 << 3;
+    public static final int TIMESTAMP_REQUIRED = 1 << 4;
+    public static final int FUTURE_DATED = 1 << 5;
+    public static final int AMOUNT_OVER_LIMIT = 1 << 6;
+    public static final int INVALID_ACCOUNT_FORMAT = 1 << 7;
+
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("1000000");
+    private static final long MAX_AMOUNT_CENTS = AmountCents.of(MAX_AMOUNT);
+    private static final String ACCOUNT_PREFIX = "ACC";
+    private static final int ACCOUNT_MIN_DIGITS = 3;
+    private static final int ACCOUNT_MAX_DIGITS = 10;
+
+    /**
+     * @param now the time after which timestamps count as future-dated
+     * @return the violated rules, 0 if the transaction is valid
+     */
+    public int validate(FinancialTransaction transaction, LocalDateTime now) {
+        int violations = 0;
+
+        // Required fields
+        if (isNullOrBlank(transaction.getTransactionId())) {
+            violations |= TRANSACTION_ID_REQUIRED;
+        }
+
+        String accountNumber = transaction.getAccountNumber();
+        if (isNullOrBlank(accountNumber)) {
+            violations |= ACCOUNT_NUMBER_REQUIRED;
+        }
+
+        long amountCents = transaction.getAmountCents();
+        if (amountCents != AmountCents.NONE) {
+            if (amountCents <= 0) {
+                violations |= AMOUNT_NOT_POSITIVE;
+            }
+            if (amountCents > MAX_AMOUNT_CENTS) {
+                violations |= AMOUNT_OVER_LIMIT;
+            }
+        } else {
+            BigDecimal amount = transaction.getAmount();
+            if (amount == null || amount.signum() <= 0) {
+                violations |= AMOUNT_NOT_POSITIVE;
+            }
+            if (amount != null && amount.compareTo(MAX_AMOUNT) > 0) {
+                violations |= AMOUNT_OVER_LIMIT;
+            }
+        }
+
+        if (!isKnownTransactionType(transaction.getTransactionType())) {
+            violations |= INVALID_TRANSACTION_TYPE;
+        }
+
+        LocalDateTime timestamp = transaction.getTimestamp();
+        if (timestamp == null) {
+            violations |= TIMESTAMP_REQUIRED;
+        } else if (timestamp.isAfter(now)) {
+            violations |= FUTURE_DATED;
+        }
+
+        // Business rules
+        if (accountNumber != null && !isAccountNumber(accountNumber)) {
+            violations |= INVALID_ACCOUNT_FORMAT;
+        }
+
+        return violations;
+    }
+
+    /**
+     * @return the error message for the violated rules, in rule order
+     */
+    public String describe(int violations, FinancialTransaction transaction) {
+        StringBuilder errors = new StringBuilder();
+
+        if ((violations & TRANSACTION_ID_REQUIRED) != 0) {
+            errors.append("Transaction ID is required. ");
+        }
+        if ((violations & ACCOUNT_NUMBER_REQUIRED) != 0) {
+            errors.append("Account number is required. ");
+        }
+        if ((violations & AMOUNT_NOT_POSITIVE) != 0) {
+            errors.append("Amount must be positive. ");
+        }
+        if ((violations & INVALID_TRANSACTION_TYPE) != 0) {
+            errors.append("Invalid transaction type: ").append(transaction.getTransactionType()).append(". ");
+        }
+        if ((violations & TIMESTAMP_REQUIRED) != 0) {
+            errors.append("Timestamp is required. ");
+        }
+        if ((violations & FUTURE_DATED) != 0) {
+            errors.append("Future-dated transactions not allowed. ");
+        }
+        if ((violations & AMOUNT_OVER_LIMIT) != 0) {
+            errors.append("Transaction amount exceeds maximum limit. ");
+        }
+        if ((violations & INVALID_ACCOUNT_FORMAT) != 0) {
+            errors.append("Invalid account number format. ");
+        }
+
+        return errors.toString().trim();
+    }
+
+    private static boolean isKnownTransactionType(String transactionType) {
+        if (transactionType == null) {
+            return false;
+        }
+        return switch (transactionType) {
+            case "DEBIT", "CREDIT", "TRANSFER", "PAYMENT", "DEPOSIT", "WITHDRAWAL" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Same as matching {@code ^ACC\d{3,10}$}.
+     */
+    private static boolean isAccountNumber(String accountNumber) {
+        int digits = accountNumber.length() - ACCOUNT_PREFIX.length();
+        if (digits < ACCOUNT_MIN_DIGITS || digits > ACCOUNT_MAX_DIGITS || !accountNumber.startsWith(ACCOUNT_PREFIX)) {
+            return false;
+        }
+        for (int i = ACCOUNT_PREFIX.length(); i < accountNumber.length(); i++) {
+            char c = accountNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@code value.trim().isEmpty()} without the copy.
+     */
+    private static boolean isNullOrBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,9 +1,14 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.component;
 
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionRollupService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionStatusCounterService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.WriterMode;
 import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
 import com.basit.cz.batchprocessingoffinancialtransactions.repository.FinancialTransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,15 +23,39 @@ public class TransactionWriter implements ItemWriter<FinancialTransaction> {
     @Autowired
     private FinancialTransactionRepository repository;
 
+    @Autowired
+    private TransactionStatusCounterService statusCounters;
+
+    @Autowired
+    private TransactionRollupService rollups;
+
+    @Autowired
+    private TransactionMetrics metrics;
+
     @Override
     public void write(Chunk<? extends FinancialTransaction> chunk) throws Exception {
+        long startNanos = System.nanoTime();
         try {
             logger.debug("Writing {} transactions to database", chunk.size());
+            rollups.beginWrite();
+            Long jobExecutionId = currentJobExecutionId();
+            for (FinancialTransaction transaction : chunk) {
+                transaction.setJobExecutionId(jobExecutionId);
+            }
             repository.saveAll(chunk.getItems());
+            statusCounters.record(chunk.getItems());
+            rollups.record(chunk.getItems());
             logger.debug("Successfully saved {} transactions", chunk.size());
         } catch (Exception e) {
             logger.error("Error writing transactions to database: ", e);
             throw e;
+        } finally {
+            metrics.recordWrite(WriterMode.JPA, startNanos);
         }
     }
+
+    private static Long currentJobExecutionId() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context != null ? context.getStepExecution().getJobExecutionId() : null;
+    }
 }
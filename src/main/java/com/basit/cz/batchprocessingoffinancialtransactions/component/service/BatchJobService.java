@@ -0,0 +1,360 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.MappedTransactionFileReader;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionDirectoryPartitioner;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionFilePartitioner;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.FileWatermarkListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.JobCancellationListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.JobProgress;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Launches the transaction job without waiting for it and reports on running executions.
+ * Runs go through a {@link TaskExecutorJobLauncher} on the job launch executor, so the
+ * calling thread only waits for the execution to be created.
+ */
+@Service
+public class BatchJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobService.class);
+
+    // Partition step executions are named "<worker step>:<partition>"
+    private static final String PARTITION_SEPARATOR = ":";
+    private static final String BYTE_OFFSET_CONTEXT_KEY = "transactionCsvReader." + MappedTransactionFileReader.BYTE_OFFSET_KEY;
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private JobOperator jobOperator;
+
+    @Autowired
+    private Job processTransactionsJob;
+
+    @Autowired
+    private Job streamTransactionsJob;
+
+    @Autowired
+    private Job rebuildRollupsJob;
+
+    @Autowired
+    private Job replayQuarantineJob;
+
+    @Autowired
+    private TransactionStreamingService streamingService;
+
+    @Autowired
+    @Qualifier("jobLaunchTaskExecutor")
+    private TaskExecutor jobLaunchTaskExecutor;
+
+    @Autowired
+    private JobCancellationListener cancellationListener;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    private TaskExecutorJobLauncher jobLauncher;
+
+    @PostConstruct
+    public void initJobLauncher() throws Exception {
+        jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(jobLaunchTaskExecutor);
+        jobLauncher.afterPropertiesSet();
+    }
+
+    /**
+     * Start a run of the transaction job in the background.
+     *
+     * @param incremental read only what was appended to the input file since the last
+     *                    completed run
+     * @return the new execution; FAILED if the launch queue was full
+     */
+    public JobExecution launch(String trigger, boolean incremental) throws JobExecutionException {
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addLong("startTime", System.currentTimeMillis())
+                .addString("trigger", trigger)
+                .addString(FileWatermarkListener.INCREMENTAL_PARAMETER, Boolean.toString(incremental))
+                .toJobParameters();
+
+        JobExecution execution = jobLauncher.run(processTransactionsJob, jobParameters);
+        logger.info("Batch job execution {} launched - Trigger: {}", execution.getId(), trigger);
+        return execution;
+    }
+
+    /**
+     * Start a rebuild of the daily rollups from the transactions in the background. It
+     * queues behind batch runs launched here, like any other launch.
+     *
+     * @return the new execution; FAILED if the launch queue was full
+     */
+    public JobExecution launchRollupRebuild(String trigger) throws JobExecutionException {
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addLong("startTime", System.currentTimeMillis())
+                .addString("trigger", trigger)
+                .toJobParameters();
+
+        JobExecution execution = jobLauncher.run(rebuildRollupsJob, jobParameters);
+        logger.info("Rollup rebuild execution {} launched - Trigger: {}", execution.getId(), trigger);
+        return execution;
+    }
+
+    /**
+     * Start a replay of the quarantined rows in the background, queued like any other
+     * launch.
+     *
+     * @return the new execution; FAILED if the launch queue was full
+     */
+    public JobExecution launchQuarantineReplay(String trigger) throws JobExecutionException {
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addLong("startTime", System.currentTimeMillis())
+                .addString("trigger", trigger)
+                .toJobParameters();
+
+        JobExecution execution = jobLauncher.run(replayQuarantineJob, jobParameters);
+        logger.info("Quarantine replay execution {} launched - Trigger: {}", execution.getId(), trigger);
+        return execution;
+    }
+
+    public Optional<JobProgress> getProgress(long executionId) {
+        JobExecution execution = jobExplorer.getJobExecution(executionId);
+        if (execution == null) {
+            return Optional.empty();
+        }
+
+        ExecutionContext jobContext = execution.getExecutionContext();
+        long inputStart = jobContext.containsKey(FileWatermarkListener.INPUT_START_OFFSET_KEY)
+                ? jobContext.getLong(FileWatermarkListener.INPUT_START_OFFSET_KEY)
+                : 0;
+
+        long readCount = 0;
+        long writeCount = 0;
+        long filterCount = 0;
+        long skipCount = 0;
+        long rows = 0;
+        long bytesRead = 0;
+        long rangeBytes = 0;
+        boolean rangesKnown = true;
+        for (StepExecution step : chunkSteps(execution.getStepExecutions())) {
+            readCount += step.getReadCount();
+            writeCount += step.getWriteCount();
+            filterCount += step.getFilterCount();
+            skipCount += step.getSkipCount();
+            rows += step.getReadCount() + step.getReadSkipCount();
+            bytesRead += bytesRead(step.getExecutionContext(), inputStart);
+
+            long rangeLength = rangeLength(step.getExecutionContext());
+            rangeBytes += rangeLength;
+            rangesKnown &= rangeLength >= 0;
+        }
+
+        LocalDateTime startTime = execution.getStartTime();
+        LocalDateTime endTime = execution.getEndTime();
+        long elapsedMillis = startTime == null ? 0
+                : Duration.between(startTime, endTime != null ? endTime : LocalDateTime.now()).toMillis();
+        double rowsPerSecond = elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : 0;
+
+        Double percentComplete = null;
+        Long etaSeconds = null;
+        if (!execution.isRunning()) {
+            percentComplete = execution.getStatus() == BatchStatus.COMPLETED ? 100.0 : null;
+            etaSeconds = 0L;
+        } else {
+            long inputBytes = rangesKnown && rangeBytes > 0 ? rangeBytes
+                    : inputLength(jobContext, execution.getStepExecutions()) - inputStart;
+            if (inputBytes > 0 && bytesRead > 0 && elapsedMillis > 0) {
+                long bytesLeft = Math.max(0, inputBytes - bytesRead);
+                percentComplete = Math.min(100.0, bytesRead * 100.0 / inputBytes);
+                etaSeconds = (long) Math.ceil((double) bytesLeft * elapsedMillis / bytesRead / 1000.0);
+            }
+        }
+
+        return Optional.of(new JobProgress(executionId, execution.getStatus().name(),
+                execution.getExitStatus().getExitCode(), startTime, endTime,
+                readCount, writeCount, filterCount, skipCount, rowsPerSecond, percentComplete, etaSeconds));
+    }
+
+    /**
+     * Restart a stopped or failed execution, of the batch, streaming, rollup or replay job, in the
+     * background. Work it already committed is not repeated.
+     *
+     * @return the new execution of the same job instance
+     */
+    public JobExecution restart(long executionId) throws JobExecutionException {
+        JobExecution execution = jobExplorer.getJobExecution(executionId);
+        if (execution == null) {
+            throw new NoSuchJobExecutionException("No job execution with id " + executionId);
+        }
+
+        // The streaming job never ends, so it must not hold a job launch thread
+        String jobName = execution.getJobInstance().getJobName();
+        JobExecution restarted;
+        if (streamTransactionsJob.getName().equals(jobName)) {
+            restarted = streamingService.launch(execution.getJobParameters());
+        } else if (rebuildRollupsJob.getName().equals(jobName)) {
+            restarted = jobLauncher.run(rebuildRollupsJob, execution.getJobParameters());
+        } else if (replayQuarantineJob.getName().equals(jobName)) {
+            restarted = jobLauncher.run(replayQuarantineJob, execution.getJobParameters());
+        } else {
+            restarted = jobLauncher.run(processTransactionsJob, execution.getJobParameters());
+        }
+        logger.info("Job execution {} restarted as execution {}", executionId, restarted.getId());
+        return restarted;
+    }
+
+    /**
+     * Ask a running execution to stop at the end of its current chunk. A stopped
+     * execution can be restarted.
+     */
+    public void stop(long executionId) throws NoSuchJobExecutionException, JobExecutionNotRunningException {
+        jobOperator.stop(executionId);
+        logger.info("Stop requested for job execution {}", executionId);
+    }
+
+    /**
+     * Stop a running execution and abandon it once it has stopped, so it is never
+     * restarted. Stopped and failed executions are abandoned right away.
+     */
+    public void cancel(long executionId) throws NoSuchJobExecutionException, JobExecutionNotRunningException,
+            JobExecutionAlreadyRunningException, JobInstanceAlreadyCompleteException {
+        JobExecution execution = jobExplorer.getJobExecution(executionId);
+        if (execution == null) {
+            throw new NoSuchJobExecutionException("No job execution with id " + executionId);
+        }
+        // Abandoning reports a completed execution as running, so tell them apart here
+        if (execution.getStatus() == BatchStatus.COMPLETED) {
+            throw new JobInstanceAlreadyCompleteException("Job execution " + executionId + " has already completed");
+        }
+
+        if (execution.isRunning()) {
+            cancellationListener.requestCancel(executionId);
+            jobOperator.stop(executionId);
+        } else {
+            jobOperator.abandon(executionId);
+        }
+        logger.info("Cancel requested for job execution {}", executionId);
+    }
+
+    /**
+     * The steps that read the input: the partition steps of a partitioned run, whose
+     * manager step only aggregates them once they finish, or else all steps.
+     */
+    private static Collection<StepExecution> chunkSteps(Collection<StepExecution> steps) {
+        List<StepExecution> partitions = steps.stream()
+                .filter(step -> step.getStepName().contains(PARTITION_SEPARATOR))
+                .toList();
+        return partitions.isEmpty() ? steps : partitions;
+    }
+
+    /**
+     * @param inputStart where the run's range of the input starts
+     * @return bytes of the step's range that the reader has committed, 0 if unknown
+     */
+    private static long bytesRead(ExecutionContext context, long inputStart) {
+        if (!context.containsKey(BYTE_OFFSET_CONTEXT_KEY)) {
+            return 0;
+        }
+        long startOffset = context.containsKey(TransactionFilePartitioner.START_OFFSET_KEY)
+                ? Math.max(inputStart, context.getLong(TransactionFilePartitioner.START_OFFSET_KEY))
+                : inputStart;
+        return Math.max(0, context.getLong(BYTE_OFFSET_CONTEXT_KEY) - startOffset);
+    }
+
+    /**
+     * @return length of a partition's byte range, or -1 if the step has no fixed range
+     */
+    private static long rangeLength(ExecutionContext context) {
+        if (!context.containsKey(TransactionFilePartitioner.START_OFFSET_KEY)
+                || !context.containsKey(TransactionFilePartitioner.END_OFFSET_KEY)) {
+            return -1;
+        }
+        long endOffset = context.getLong(TransactionFilePartitioner.END_OFFSET_KEY);
+        return endOffset < 0 ? -1 : endOffset - Math.max(0, context.getLong(TransactionFilePartitioner.START_OFFSET_KEY));
+    }
+
+    /**
+     * @return where the run's range of the input ends, or -1 if the input is not a file.
+     * A directory run's input is the files of its partitions.
+     */
+    private long inputLength(ExecutionContext jobContext, Collection<StepExecution> steps) {
+        if (appProperties.getBatch().getInputDirectory() != null) {
+            return partitionFilesLength(steps);
+        }
+        if (jobContext.containsKey(FileWatermarkListener.INPUT_END_OFFSET_KEY)) {
+            return jobContext.getLong(FileWatermarkListener.INPUT_END_OFFSET_KEY);
+        }
+        try {
+            Resource resource = resourceLoader.getResource(appProperties.getBatch().getInputFile());
+            return resource.isFile() ? resource.contentLength() : -1;
+        } catch (Exception e) {
+            logger.debug("Could not determine input size: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * @return total length of the files read by a directory run's partitions, as the
+     * partitioner found them, or -1 before the run is partitioned
+     */
+    private static long partitionFilesLength(Collection<StepExecution> steps) {
+        long length = 0;
+        boolean partitioned = false;
+        for (StepExecution step : steps) {
+            ExecutionContext context = step.getExecutionContext();
+            if (!context.containsKey(TransactionDirectoryPartitioner.INPUT_FILE_KEY)) {
+                continue;
+            }
+            partitioned = true;
+            if (context.containsKey(TransactionFilePartitioner.END_OFFSET_KEY)) {
+                length += Math.max(0, context.getLong(TransactionFilePartitioner.END_OFFSET_KEY));
+            } else {
+                try {
+                    length += Files.size(Paths.get(URI.create(context.getString(TransactionDirectoryPartitioner.INPUT_FILE_KEY))));
+                } catch (Exception e) {
+                    // Archived once its partition completed; its rows are counted as read
+                    logger.debug("Could not determine partition file size: {}", e.getMessage());
+                }
+            }
+        }
+        return partitioned ? length : -1;
+    }
+}
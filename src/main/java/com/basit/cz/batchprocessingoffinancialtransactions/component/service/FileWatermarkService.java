@@ -0,0 +1,181 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionLineParser;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FileWatermark;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.repository.FileWatermarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Persists per-file watermarks for incremental runs and decides where the next run
+ * starts reading.
+ * <p>
+ * A watermark's hash covers the length of the consumed prefix and its first and last
+ * {@value #HASH_SAMPLE_SIZE} bytes. That tells an appended file from a rotated or
+ * rewritten one without reading the whole prefix on every run.
+ */
+@Service
+public class FileWatermarkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileWatermarkService.class);
+
+    private static final int HASH_SAMPLE_SIZE = 64 * 1024;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    @Autowired
+    private FileWatermarkRepository repository;
+
+    /**
+     * @return the offset to resume reading the file at: its watermark if the content
+     * before it is unchanged, or 0 when there is no watermark or the file has been
+     * truncated, rotated or rewritten
+     */
+    public long resumeOffset(Path file) throws IOException {
+        Optional<FileWatermark> stored = repository.findById(key(file));
+        if (stored.isEmpty()) {
+            logger.info("No watermark for {}, reading the whole file", file);
+            return 0;
+        }
+
+        FileWatermark watermark = stored.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < watermark.getByteOffset()) {
+                logger.info("{} is shorter than its watermark at byte {}, reading the whole file",
+                        file, watermark.getByteOffset());
+                return 0;
+            }
+            if (!prefixHash(channel, watermark.getByteOffset()).equals(watermark.getPrefixHash())) {
+                logger.info("{} changed before its watermark at byte {}, reading the whole file",
+                        file, watermark.getByteOffset());
+                return 0;
+            }
+        }
+
+        logger.info("Resuming {} at watermark byte {} (last transaction at {})",
+                file, watermark.getByteOffset(), watermark.getLastTransactionTimestamp());
+        return watermark.getByteOffset();
+    }
+
+    /**
+     * @return the offset just after the last line feed in the file, so a line that is
+     * still being appended is left for the next run
+     */
+    public long completeLinesEnd(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long end = channel.size();
+            while (end > 0) {
+                int length = (int) Math.min(SCAN_BUFFER_SIZE, end);
+                buffer.clear().limit(length);
+                readFully(channel, buffer, end - length);
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return end - length + i + 1;
+                    }
+                }
+                end -= length;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Record that the file has been consumed up to {@code byteOffset}, which must be at
+     * the start of a line. A watermark further on in the same content is kept, so a run
+     * that finishes behind another reader of the file cannot move it backwards.
+     */
+    public synchronized void advance(Path file, long byteOffset) throws IOException {
+        FileWatermark watermark = repository.findById(key(file)).orElseGet(() -> new FileWatermark(key(file)));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long current = watermark.getByteOffset();
+            if (current > byteOffset && channel.size() >= current
+                    && prefixHash(channel, current).equals(watermark.getPrefixHash())) {
+                logger.debug("Watermark of {} stays at byte {}, ahead of {}", file, current, byteOffset);
+                return;
+            }
+
+            watermark.setByteOffset(byteOffset);
+            watermark.setPrefixHash(prefixHash(channel, byteOffset));
+            watermark.setLastTransactionTimestamp(lastTransactionTimestamp(channel, byteOffset));
+        }
+
+        repository.save(watermark);
+        logger.debug("Watermark of {} advanced to byte {}", file, byteOffset);
+    }
+
+    private static String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    private static String prefixHash(FileChannel channel, long length) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(0, length));
+        int headLength = (int) Math.min(HASH_SAMPLE_SIZE, length);
+        digest.update(read(channel, 0, headLength));
+        if (length > headLength) {
+            int tailLength = (int) Math.min(HASH_SAMPLE_SIZE, length - headLength);
+            digest.update(read(channel, length - tailLength, tailLength));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the timestamp of the last line before {@code end}, or null if that line is
+     * the header or has no timestamp
+     */
+    private static LocalDateTime lastTransactionTimestamp(FileChannel channel, long end) throws IOException {
+        int length = (int) Math.min(HASH_SAMPLE_SIZE, end);
+        byte[] tail = read(channel, end - length, length).array();
+
+        int lineEnd = length;
+        while (lineEnd > 0 && (tail[lineEnd - 1] == '\n' || tail[lineEnd - 1] == '\r')) {
+            lineEnd--;
+        }
+        int lineStart = lineEnd;
+        while (lineStart > 0 && tail[lineStart - 1] != '\n') {
+            lineStart--;
+        }
+        if (lineEnd == lineStart || (lineStart == 0 && end == length)) {
+            return null;
+        }
+
+        FinancialTransaction transaction = new TransactionLineParser().parse(tail, lineStart, lineEnd - lineStart);
+        return transaction.getTimestamp();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, position);
+        return buffer.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at byte " + position);
+            }
+            position += read;
+        }
+    }
+}
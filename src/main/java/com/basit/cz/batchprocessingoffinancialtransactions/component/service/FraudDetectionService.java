@@ -1,11 +1,22 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
 
+import com.basit.cz.batchprocessingoffinancialtransactions.component.AccountVelocityStore;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.FraudRulePlan;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
 import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.AmountCents;
 import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FraudRuleSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 
 @Service
@@ -16,55 +27,88 @@ public class FraudDetectionService {
     @Autowired
     private ApplicationProperties appProperties;
 
-    public double calculateFraudScore(FinancialTransaction transaction) {
-        double score = 0.0;
+    @Autowired
+    private AccountVelocityStore velocityStore;
 
-        try {
-            // High amount transactions
-            BigDecimal fraudThreshold = BigDecimal.valueOf(appProperties.getBatch().getFraudThreshold());
-            if (transaction.getAmount().compareTo(fraudThreshold) > 0) {
-                score += 0.3;
-                logger.debug("High amount flag for transaction {}: {}",
-                        transaction.getTransactionId(), transaction.getAmount());
-            }
+    @Autowired
+    private TransactionMetrics metrics;
 
-            // Weekend transactions
-            if (transaction.getTimestamp().getDayOfWeek().getValue() >= 6) {
-                score += 0.1;
-            }
+    @Autowired
+    private ResourceLoader resourceLoader;
 
-            // Late night or early morning transactions (11 PM - 6 AM)
-            int hour = transaction.getTimestamp().getHour();
-            if (hour >= 23 || hour <= 6) {
-                score += 0.2;
-            }
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-            // Suspicious merchant patterns
-            if (transaction.getMerchantId() != null) {
-                String merchantId = transaction.getMerchantId().toUpperCase();
-                if (merchantId.contains("CASH") ||
-                        merchantId.contains("ATM") ||
-                        merchantId.contains("UNKNOWN")) {
-                    score += 0.15;
-                }
-            }
+    private volatile FraudRulePlan plan;
+    private long rulesLastModified;
 
-            // Round-number amounts (potential indicator)
-            if (transaction.getAmount().remainder(BigDecimal.valueOf(100)).equals(BigDecimal.ZERO)) {
-                score += 0.05;
-            }
+    @PostConstruct
+    public void loadRules() {
+        reloadIfChanged();
+    }
 
-            // Multiple transactions from same account (simplified check)
-            if ("TRANSFER".equals(transaction.getTransactionType()) &&
-                    transaction.getAmount().compareTo(new BigDecimal("5000")) > 0) {
-                score += 0.1;
+    /**
+     * Score a transaction between 0 and 1 with the current rules. Also records it in the
+     * account's velocity history, so each transaction must be scored only once.
+     */
+    public double calculateFraudScore(FinancialTransaction transaction) {
+        try {
+            long amountCents = transaction.getAmountCents();
+            if (amountCents != AmountCents.NONE) {
+                velocityStore.record(transaction.getAccountNumber(), transaction.getTimestamp(),
+                        amountCents, transaction.getMerchantId());
+            } else {
+                velocityStore.record(transaction.getAccountNumber(), transaction.getTimestamp(),
+                        transaction.getAmount(), transaction.getMerchantId());
             }
-
+            return plan.score(transaction);
         } catch (Exception e) {
             logger.warn("Error calculating fraud score for transaction {}: {}",
                     transaction.getTransactionId(), e.getMessage());
+            return 0.0;
         }
+    }
+
+    public boolean isFraudulent(double fraudScore) {
+        return plan.isFraudulent(fraudScore);
+    }
+
+    /**
+     * Load the rules file again if it changed since it was last read. A file that cannot
+     * be read or compiled keeps the current rules in place; at startup it is an error.
+     */
+    public synchronized void reloadIfChanged() {
+        String location = appProperties.getBatch().getFraudRulesFile();
+        Resource resource = resourceLoader.getResource(location);
+        long lastModified = lastModified(resource);
+        if (plan != null && (lastModified < 0 || lastModified == rulesLastModified)) {
+            return;
+        }
+
+        try (InputStream input = resource.getInputStream()) {
+            FraudRuleSet ruleSet = objectMapper.readValue(input, FraudRuleSet.class);
+            FraudRulePlan compiled = FraudRulePlan.compile(ruleSet,
+                    BigDecimal.valueOf(appProperties.getBatch().getFraudThreshold()), velocityStore, metrics);
 
-        return Math.min(score, 1.0);
+            plan = compiled;
+            logger.info("Loaded fraud rules from {} with threshold {}, evaluation order: {}",
+                    location, compiled.getThreshold(), compiled.getRuleNames());
+        } catch (IOException | IllegalArgumentException e) {
+            if (plan == null) {
+                throw new IllegalStateException("Cannot load fraud rules from " + location, e);
+            }
+            logger.error("Keeping the current fraud rules, cannot load {}: {}", location, e.getMessage());
+        }
+        rulesLastModified = lastModified;
+    }
+
+    /**
+     * @return the modification time of a file resource, or -1 if it cannot change
+     */
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.isFile() ? resource.lastModified() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
     }
 }
@@ -1,6 +1,9 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
 
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionStatisticsAccumulator;
 import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.TransactionStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.JobExecution;
@@ -48,11 +51,20 @@ public class NotificationService {
             String duration = calculateJobDuration(jobExecution);
             body.append("- Duration: ").append(duration).append("\n\n");
 
+            // Run totals accumulated by the steps
+            TransactionStatistics statistics = TransactionStatisticsAccumulator.forJob(jobExecution);
+            body.append("Transactions:\n");
+            body.append("- Valid: ").append(statistics.getCount(TransactionStatus.VALID))
+                    .append(" ($").append(statistics.getAmount(TransactionStatus.VALID)).append(")\n");
+            body.append("- Invalid: ").append(statistics.getCount(TransactionStatus.INVALID)).append("\n");
+            body.append("- Fraudulent: ").append(statistics.getCount(TransactionStatus.FRAUDULENT)).append("\n\n");
+
             // Add step statistics
             jobExecution.getStepExecutions().forEach(stepExecution -> {
                 body.append("Step: ").append(stepExecution.getStepName()).append("\n");
                 body.append("- Read: ").append(stepExecution.getReadCount()).append("\n");
                 body.append("- Written: ").append(stepExecution.getWriteCount()).append("\n");
+                body.append("- Filtered (duplicates): ").append(stepExecution.getFilterCount()).append("\n");
                 body.append("- Skipped: ").append(stepExecution.getSkipCount()).append("\n\n");
             });
 
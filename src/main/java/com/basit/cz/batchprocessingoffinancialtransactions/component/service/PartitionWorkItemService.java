@@ -0,0 +1,222 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.WorkItemStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The {@code partition_work_items} table through which the manager of a partitioned step
+ * hands partitions to worker JVMs, with no broker between them.
+ * <p>
+ * Every state change is a single conditional UPDATE, so concurrent workers never both win
+ * a claim. Lease times come from the database clock, so hosts need not agree on the time.
+ */
+@Service
+public class PartitionWorkItemService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionWorkItemService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO partition_work_items " +
+            "(step_execution_id, job_execution_id, step_name, status, attempts, updated_at) VALUES (?, ?, ?, ?, 0, ?)";
+    private static final String CLAIMABLE_SQL = "SELECT step_execution_id, job_execution_id, step_name, attempts " +
+            "FROM partition_work_items WHERE status = 'PENDING' OR (status = 'CLAIMED' AND lease_expires_at < ?) " +
+            "ORDER BY step_execution_id";
+    private static final String CLAIM_SQL = "UPDATE partition_work_items " +
+            "SET status = 'CLAIMED', worker_id = ?, lease_expires_at = ?, attempts = attempts + 1, updated_at = ? " +
+            "WHERE step_execution_id = ? AND attempts = ? " +
+            "AND (status = 'PENDING' OR (status = 'CLAIMED' AND lease_expires_at < ?))";
+    private static final String RENEW_SQL = "UPDATE partition_work_items SET lease_expires_at = ?, updated_at = ? " +
+            "WHERE step_execution_id = ? AND worker_id = ? AND status = 'CLAIMED'";
+    private static final String FINISH_SQL = "UPDATE partition_work_items " +
+            "SET status = 'FINISHED', lease_expires_at = NULL, updated_at = ? " +
+            "WHERE step_execution_id = ? AND worker_id = ? AND status = 'CLAIMED'";
+    private static final String RELEASE_SQL = "UPDATE partition_work_items " +
+            "SET status = 'PENDING', worker_id = NULL, lease_expires_at = NULL, updated_at = ? " +
+            "WHERE step_execution_id = ? AND worker_id = ? AND status = 'CLAIMED'";
+    private static final String UNFINISHED_SQL = "SELECT step_execution_id FROM partition_work_items " +
+            "WHERE job_execution_id = ? AND status <> 'FINISHED'";
+    private static final String PENDING_SQL = "SELECT step_execution_id FROM partition_work_items " +
+            "WHERE job_execution_id = ? AND status = 'PENDING'";
+    private static final String CANCEL_SQL = "UPDATE partition_work_items SET status = 'FINISHED', updated_at = ? " +
+            "WHERE step_execution_id = ? AND status = 'PENDING'";
+    private static final String LIVE_CLAIMS_SQL = "SELECT COUNT(*) FROM partition_work_items " +
+            "WHERE job_execution_id = ? AND status = 'CLAIMED' AND lease_expires_at >= ?";
+    private static final String UNCLAIMED_SQL = "SELECT step_execution_id, attempts FROM partition_work_items " +
+            "WHERE job_execution_id = ? AND (status = 'PENDING' OR (status = 'CLAIMED' AND lease_expires_at < ?))";
+    private static final String ABANDON_SQL = "UPDATE partition_work_items " +
+            "SET status = 'FINISHED', worker_id = NULL, lease_expires_at = NULL, updated_at = ? " +
+            "WHERE step_execution_id = ? AND attempts = ? " +
+            "AND (status = 'PENDING' OR (status = 'CLAIMED' AND lease_expires_at < ?))";
+    private static final String OTHER_LIVE_WORK_SQL = "SELECT COUNT(*) FROM partition_work_items " +
+            "WHERE step_name <> ? AND (status = 'PENDING' OR (status = 'CLAIMED' AND lease_expires_at >= ?))";
+    private static final String DELETE_SQL = "DELETE FROM partition_work_items WHERE job_execution_id = ? AND status = 'FINISHED'";
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Publish partitions of a step for workers to claim.
+     *
+     * @param stepName name of the worker step bean that runs them
+     */
+    public void publish(Collection<StepExecution> partitions, String stepName) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(partitions.size());
+        for (StepExecution partition : partitions) {
+            rows.add(new Object[]{partition.getId(), partition.getJobExecutionId(), stepName,
+                    WorkItemStatus.PENDING.name(), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        logger.info("Published {} partitions of {} as work items", partitions.size(), stepName);
+    }
+
+    /**
+     * Claim up to {@code max} pending partitions, or partitions whose worker let its
+     * lease run out.
+     */
+    public List<Claim> claim(String workerId, int max) {
+        long now = databaseNow();
+        List<Claim> candidates = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CLAIMABLE_SQL);
+            ps.setLong(1, now);
+            ps.setMaxRows(max);
+            return ps;
+        }, (rs, rowNum) -> new Claim(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getInt(4)));
+
+        long leaseExpiresAt = now + appProperties.getBatch().getPartitionLeaseMillis();
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Claim> claims = new ArrayList<>(candidates.size());
+        for (Claim candidate : candidates) {
+            // Fails if another worker claimed it since it was read
+            if (jdbcTemplate.update(CLAIM_SQL, workerId, leaseExpiresAt, updatedAt,
+                    candidate.stepExecutionId(), candidate.attempts(), now) == 1) {
+                claims.add(new Claim(candidate.stepExecutionId(), candidate.jobExecutionId(),
+                        candidate.stepName(), candidate.attempts() + 1));
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Extend the lease of a claimed partition.
+     *
+     * @return false if the worker no longer holds it, because its lease ran out and the
+     *         partition was claimed by another worker
+     */
+    public boolean renew(long stepExecutionId, String workerId) {
+        long leaseExpiresAt = databaseNow() + appProperties.getBatch().getPartitionLeaseMillis();
+        return jdbcTemplate.update(RENEW_SQL, leaseExpiresAt, Timestamp.valueOf(LocalDateTime.now()),
+                stepExecutionId, workerId) == 1;
+    }
+
+    /**
+     * Mark a claimed partition as finished, unless another worker has claimed it since.
+     */
+    public void finish(long stepExecutionId, String workerId) {
+        jdbcTemplate.update(FINISH_SQL, Timestamp.valueOf(LocalDateTime.now()), stepExecutionId, workerId);
+    }
+
+    /**
+     * Hand a claimed partition back for any worker to claim again, unless another worker
+     * has claimed it since.
+     */
+    public void release(long stepExecutionId, String workerId) {
+        jdbcTemplate.update(RELEASE_SQL, Timestamp.valueOf(LocalDateTime.now()), stepExecutionId, workerId);
+    }
+
+    /**
+     * @return ids of the partition step executions of the job that have not finished
+     */
+    public Set<Long> getUnfinished(long jobExecutionId) {
+        return new HashSet<>(jdbcTemplate.queryForList(UNFINISHED_SQL, Long.class, jobExecutionId));
+    }
+
+    /**
+     * Withdraw the partitions of the job that no worker has claimed yet.
+     *
+     * @return ids of the withdrawn partition step executions
+     */
+    public List<Long> cancelPending(long jobExecutionId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> cancelled = new ArrayList<>();
+        for (Long stepExecutionId : jdbcTemplate.queryForList(PENDING_SQL, Long.class, jobExecutionId)) {
+            if (jdbcTemplate.update(CANCEL_SQL, now, stepExecutionId) == 1) {
+                cancelled.add(stepExecutionId);
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * @return whether a worker holds an unexpired lease on a partition of the job
+     */
+    public boolean hasLiveClaim(long jobExecutionId) {
+        Long count = jdbcTemplate.queryForObject(LIVE_CLAIMS_SQL, Long.class, jobExecutionId, databaseNow());
+        return count != null && count > 0;
+    }
+
+    /**
+     * @return whether partitions of a worker step other than {@code stepName} wait for a
+     *         worker or are held by a live one
+     */
+    public boolean hasLiveWorkExcept(String stepName) {
+        Long count = jdbcTemplate.queryForObject(OTHER_LIVE_WORK_SQL, Long.class, stepName, databaseNow());
+        return count != null && count > 0;
+    }
+
+    /**
+     * Withdraw the partitions of the job that no live worker holds: pending ones and those
+     * whose worker let its lease run out.
+     *
+     * @return ids of the withdrawn partition step executions
+     */
+    public List<Long> abandonUnclaimed(long jobExecutionId) {
+        long now = databaseNow();
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> abandoned = new ArrayList<>();
+        jdbcTemplate.query(UNCLAIMED_SQL, rs -> {
+            long stepExecutionId = rs.getLong(1);
+            // Fails if a worker claimed it since it was read
+            if (jdbcTemplate.update(ABANDON_SQL, updatedAt, stepExecutionId, rs.getInt(2), now) == 1) {
+                abandoned.add(stepExecutionId);
+            }
+        }, jobExecutionId, now);
+        return abandoned;
+    }
+
+    /**
+     * Remove the finished work items of a job once its partitioned step is done with them.
+     */
+    public void delete(long jobExecutionId) {
+        int rows = jdbcTemplate.update(DELETE_SQL, jobExecutionId);
+        logger.debug("Deleted {} finished work items of job execution {}", rows, jobExecutionId);
+    }
+
+    private long databaseNow() {
+        Timestamp now = jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class);
+        return now != null ? now.getTime() : System.currentTimeMillis();
+    }
+
+    /**
+     * A partition leased by a worker; {@code attempts} counts this claim.
+     */
+    public record Claim(long stepExecutionId, long jobExecutionId, String stepName, int attempts) {
+    }
+}
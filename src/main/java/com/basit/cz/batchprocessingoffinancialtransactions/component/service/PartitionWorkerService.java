@@ -0,0 +1,229 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInterruptedException;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker side of partitioning across JVMs. When enabled, it polls the work items
+ * published by a {@code DatabasePartitionHandler}, claims as many as it has free
+ * partition threads and runs each claimed partition's step execution, renewing their
+ * leases on every poll.
+ * <p>
+ * A worker that dies stops renewing, so once the lease runs out another worker claims the
+ * partition and resumes it from its last committed chunk. A worker that was only stalled
+ * is fenced off by the version of the step execution: its next chunk fails to update the
+ * step execution and rolls back. On shutdown, running partitions are stopped after their
+ * current chunk and handed back to be resumed elsewhere.
+ */
+@Service
+public class PartitionWorkerService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionWorkerService.class);
+
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private PartitionWorkItemService workItems;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName() + "-"
+            + UUID.randomUUID().toString().substring(0, 8);
+    private final Map<Long, StepExecution> runningPartitions = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskScheduler scheduler;
+    private ThreadPoolTaskExecutor executor;
+    private ScheduledFuture<?> poll;
+    private volatile boolean running;
+    private volatile boolean stopping;
+
+    @Override
+    public void start() {
+        running = true;
+        if (!isEnabled()) {
+            return;
+        }
+
+        ApplicationProperties.Batch batch = appProperties.getBatch();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batch.getPartitionThreads());
+        executor.setMaxPoolSize(batch.getPartitionThreads());
+        executor.setThreadNamePrefix("remote-partition-");
+        executor.initialize();
+
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("partition-poll-");
+        scheduler.setDaemon(true);
+        scheduler.initialize();
+        poll = scheduler.scheduleWithFixedDelay(this::poll, Duration.ofMillis(batch.getPartitionPollMillis()));
+        logger.info("Partition worker {} started with {} threads", workerId, batch.getPartitionThreads());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (poll == null) {
+            return;
+        }
+
+        stopping = true;
+        poll.cancel(false);
+        for (StepExecution stepExecution : runningPartitions.values()) {
+            stepExecution.setTerminateOnly();
+        }
+
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        try {
+            // Keep renewing so no other worker claims a partition before it is handed back
+            while (!runningPartitions.isEmpty() && System.currentTimeMillis() < deadline) {
+                renewLeases();
+                Thread.sleep(appProperties.getBatch().getPartitionPollMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!runningPartitions.isEmpty()) {
+            logger.warn("Partition worker {} stopped with {} partitions still running; their leases will expire",
+                    workerId, runningPartitions.size());
+        }
+        executor.shutdown();
+        scheduler.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isEnabled() {
+        return appProperties.getBatch().isPartitionWorkerEnabled();
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    private void poll() {
+        try {
+            renewLeases();
+
+            int free = appProperties.getBatch().getPartitionThreads() - runningPartitions.size();
+            if (free <= 0 || stopping) {
+                return;
+            }
+            for (PartitionWorkItemService.Claim claim : workItems.claim(workerId, free)) {
+                StepExecution stepExecution = jobExplorer.getStepExecution(claim.jobExecutionId(), claim.stepExecutionId());
+                if (stepExecution == null) {
+                    logger.warn("Claimed partition {} has no step execution", claim.stepExecutionId());
+                    workItems.finish(claim.stepExecutionId(), workerId);
+                    continue;
+                }
+                runningPartitions.put(claim.stepExecutionId(), stepExecution);
+                executor.execute(() -> run(claim, stepExecution));
+            }
+        } catch (Exception e) {
+            logger.error("Partition worker {} failed to poll for work: ", workerId, e);
+        }
+    }
+
+    private void renewLeases() {
+        for (Map.Entry<Long, StepExecution> entry : runningPartitions.entrySet()) {
+            if (!workItems.renew(entry.getKey(), workerId)) {
+                logger.warn("Partition {} lost its lease; stopping it", entry.getKey());
+                entry.getValue().setTerminateOnly();
+            }
+        }
+    }
+
+    private void run(PartitionWorkItemService.Claim claim, StepExecution stepExecution) {
+        long id = claim.stepExecutionId();
+        boolean handBack = false;
+        try {
+            if (stepExecution.getStatus() == BatchStatus.COMPLETED) {
+                return;
+            }
+            int maxAttempts = appProperties.getBatch().getPartitionMaxAttempts();
+            if (claim.attempts() > maxAttempts) {
+                logger.error("Partition {} was claimed {} times; giving up on it", id, claim.attempts());
+                stepExecution.setStatus(BatchStatus.FAILED);
+                stepExecution.setExitStatus(ExitStatus.FAILED.addExitDescription(
+                        "Partition was not finished within " + maxAttempts + " attempts"));
+                stepExecution.setEndTime(LocalDateTime.now());
+                jobRepository.update(stepExecution);
+                return;
+            }
+
+            logger.info("Running partition {} of {} (attempt {})", id, claim.stepName(), claim.attempts());
+            Step step = applicationContext.getBean(claim.stepName(), Step.class);
+            // A partition handed back on shutdown resumes in the same step execution
+            stepExecution.setExitStatus(ExitStatus.EXECUTING);
+            try {
+                step.execute(stepExecution);
+            } catch (JobInterruptedException e) {
+                stepExecution.setStatus(BatchStatus.STOPPED);
+                jobRepository.update(stepExecution);
+            }
+            handBack = stopping && stepExecution.getStatus() == BatchStatus.STOPPED && !isJobStopping(stepExecution);
+        } catch (OptimisticLockingFailureException e) {
+            // Another worker moved the step execution on since it was loaded
+            logger.warn("Partition {} was updated by another worker: {}", id, e.getMessage());
+            handBack = true;
+        } catch (Throwable e) {
+            logger.error("Partition {} failed: ", id, e);
+            stepExecution.addFailureException(e);
+            stepExecution.setStatus(BatchStatus.FAILED);
+            try {
+                jobRepository.update(stepExecution);
+            } catch (Exception updateFailure) {
+                logger.error("Failed to record the failure of partition {}: {}", id, updateFailure.getMessage());
+            }
+        } finally {
+            if (handBack) {
+                workItems.release(id, workerId);
+            } else {
+                workItems.finish(id, workerId);
+            }
+            runningPartitions.remove(id);
+        }
+    }
+
+    private boolean isJobStopping(StepExecution stepExecution) {
+        JobExecution jobExecution = jobExplorer.getJobExecution(stepExecution.getJobExecutionId());
+        return jobExecution == null || jobExecution.isStopping() || jobExecution.getStatus() == BatchStatus.STOPPED;
+    }
+}
@@ -0,0 +1,295 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.QuarantineReason;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.QuarantineStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.QuarantinedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code quarantined_transactions} table, a dead-letter sink for rows that would fail
+ * the write. Rows are appended in the chunk transaction, so they commit or roll back with
+ * the rows written beside them.
+ * <p>
+ * The raw line is read back from the source file at the offset and length the reader
+ * recorded for the row, opening each file once per call. Rows without them, such as rows
+ * of gzip input, are stored as a CSV line rebuilt from their fields.
+ */
+@Service
+public class QuarantineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuarantineService.class);
+
+    public static final int MAX_RAW_LINE_LENGTH = 8192;
+    private static final int MAX_REASON_DETAIL_LENGTH = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO quarantined_transactions " +
+            "(transaction_id, source_file, source_offset, reason_code, reason_detail, raw_line, status, " +
+            "job_execution_id, attempts, quarantined_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+    // A replayed row that fails again keeps its id and line
+    private static final String REQUARANTINE_SQL = "UPDATE quarantined_transactions " +
+            "SET reason_code = ?, reason_detail = ?, job_execution_id = ?, attempts = attempts + 1, quarantined_at = ? " +
+            "WHERE id = ?";
+    private static final String REPLAYED_SQL = "UPDATE quarantined_transactions " +
+            "SET status = 'REPLAYED', replayed_at = ? WHERE id = ? AND status = 'QUARANTINED'";
+    private static final String FIX_SQL = "UPDATE quarantined_transactions SET raw_line = ? " +
+            "WHERE id = ? AND status = 'QUARANTINED'";
+    private static final String FIND_SQL = "SELECT id, transaction_id, source_file, source_offset, reason_code, " +
+            "reason_detail, raw_line, status, job_execution_id, attempts, quarantined_at, replayed_at " +
+            "FROM quarantined_transactions WHERE status = ? AND id > ? ORDER BY id";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM quarantined_transactions WHERE status = ?";
+
+    /**
+     * Query of the rows a replay reads, in id order.
+     */
+    public static final String REPLAY_SQL = "SELECT id, raw_line, source_file, source_offset " +
+            "FROM quarantined_transactions WHERE status = 'QUARANTINED' ORDER BY id";
+
+    private static final RowMapper<QuarantinedTransaction> ROW_MAPPER = (rs, rowNum) -> {
+        QuarantinedTransaction row = new QuarantinedTransaction();
+        row.setId(rs.getLong("id"));
+        row.setTransactionId(rs.getString("transaction_id"));
+        row.setSourceFile(rs.getString("source_file"));
+        row.setSourceOffset(rs.getLong("source_offset"));
+        row.setReasonCode(QuarantineReason.valueOf(rs.getString("reason_code")));
+        row.setReasonDetail(rs.getString("reason_detail"));
+        row.setRawLine(rs.getString("raw_line"));
+        row.setStatus(QuarantineStatus.valueOf(rs.getString("status")));
+        long jobExecutionId = rs.getLong("job_execution_id");
+        row.setJobExecutionId(rs.wasNull() ? null : jobExecutionId);
+        row.setAttempts(rs.getInt("attempts"));
+        Timestamp quarantinedAt = rs.getTimestamp("quarantined_at");
+        row.setQuarantinedAt(quarantinedAt != null ? quarantinedAt.toLocalDateTime() : null);
+        Timestamp replayedAt = rs.getTimestamp("replayed_at");
+        row.setReplayedAt(replayedAt != null ? replayedAt.toLocalDateTime() : null);
+        return row;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionMetrics metrics;
+
+    /**
+     * Divert rows to quarantine in the current transaction. Rows that came from a replay
+     * update their existing entry instead of adding another.
+     */
+    public void quarantine(List<Rejection> rejections) {
+        if (rejections.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long jobExecutionId = currentJobExecutionId();
+        List<Object[]> inserts = new ArrayList<>(rejections.size());
+        List<Object[]> updates = new ArrayList<>();
+        Map<String, FileChannel> sources = new HashMap<>();
+        try {
+            for (Rejection rejection : rejections) {
+                FinancialTransaction transaction = rejection.transaction();
+                String detail = truncate(rejection.detail(), MAX_REASON_DETAIL_LENGTH);
+                if (transaction.getQuarantineId() != null) {
+                    updates.add(new Object[]{rejection.reason().name(), detail, jobExecutionId, now,
+                            transaction.getQuarantineId()});
+                } else {
+                    inserts.add(new Object[]{truncate(transaction.getTransactionId(), 255),
+                            truncate(transaction.getSourceFile(), 512), transaction.getSourceOffset(),
+                            rejection.reason().name(), detail, rawLine(transaction, sources),
+                            QuarantineStatus.QUARANTINED.name(), jobExecutionId, now});
+                }
+                metrics.recordQuarantined(rejection.reason());
+            }
+        } finally {
+            closeAll(sources);
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(REQUARANTINE_SQL, updates);
+        }
+        logger.debug("Quarantined {} rows", rejections.size());
+    }
+
+    /**
+     * Mark replayed rows as written, in the current transaction.
+     */
+    public void markReplayed(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            rows.add(new Object[]{now, id});
+        }
+        jdbcTemplate.batchUpdate(REPLAYED_SQL, rows);
+    }
+
+    /**
+     * Replace the line of a quarantined row, to be picked up by the next replay.
+     *
+     * @return false if there is no such row waiting for replay
+     */
+    public boolean fix(long id, String rawLine) {
+        return jdbcTemplate.update(FIX_SQL, rawLine, id) == 1;
+    }
+
+    /**
+     * @return up to {@code limit} rows with the status, after the row with id {@code afterId}
+     */
+    public List<QuarantinedTransaction> find(QuarantineStatus status, long afterId, int limit) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_SQL);
+            ps.setString(1, status.name());
+            ps.setLong(2, afterId);
+            ps.setMaxRows(limit);
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    public long count(QuarantineStatus status) {
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, status.name());
+        return count != null ? count : 0;
+    }
+
+    /**
+     * The line the row was read from, or a CSV line rebuilt from its fields when the
+     * source cannot be read back at the row's offset.
+     *
+     * @param sources files already opened by this call, by name
+     */
+    private static String rawLine(FinancialTransaction transaction, Map<String, FileChannel> sources) {
+        String line = null;
+        if (transaction.getSourceFile() != null && transaction.getSourceOffset() >= 0
+                && transaction.getSourceLength() >= 0) {
+            // A source that cannot be opened is kept as null, so it is only tried once
+            FileChannel channel;
+            if (sources.containsKey(transaction.getSourceFile())) {
+                channel = sources.get(transaction.getSourceFile());
+            } else {
+                channel = open(transaction.getSourceFile());
+                sources.put(transaction.getSourceFile(), channel);
+            }
+            if (channel != null) {
+                line = readLine(channel, transaction.getSourceFile(), transaction.getSourceOffset(),
+                        Math.min(transaction.getSourceLength(), MAX_RAW_LINE_LENGTH));
+            }
+        }
+        if (line == null) {
+            line = toCsvLine(transaction);
+        }
+        return truncate(line, MAX_RAW_LINE_LENGTH);
+    }
+
+    /**
+     * @return the file open for reading, or null if the source is not a readable file
+     */
+    private static FileChannel open(String sourceFile) {
+        Path path;
+        try {
+            path = Paths.get(sourceFile);
+        } catch (InvalidPathException e) {
+            return null; // Not a file, e.g. a classpath resource
+        }
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            logger.warn("Failed to open {}: {}", sourceFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String readLine(FileChannel channel, String sourceFile, long offset, int length) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                // Read the whole line
+            }
+            return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.warn("Failed to read the line at offset {} of {}: {}", offset, sourceFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeAll(Map<String, FileChannel> sources) {
+        for (Map.Entry<String, FileChannel> source : sources.entrySet()) {
+            if (source.getValue() == null) {
+                continue;
+            }
+            try {
+                source.getValue().close();
+            } catch (IOException e) {
+                logger.warn("Failed to close {}: {}", source.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private static String toCsvLine(FinancialTransaction transaction) {
+        return String.join(",",
+                csvField(transaction.getTransactionId()),
+                csvField(transaction.getAccountNumber()),
+                csvField(transaction.getAmount() != null ? transaction.getAmount().toPlainString() : null),
+                csvField(transaction.getTransactionType()),
+                csvField(transaction.getDescription()),
+                csvField(transaction.getTimestamp() != null ? transaction.getTimestamp().toString() : null),
+                csvField(transaction.getMerchantId()));
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static Long currentJobExecutionId() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context != null ? context.getStepExecution().getJobExecutionId() : null;
+    }
+
+    /**
+     * A row kept from the write, and why.
+     */
+    public record Rejection(FinancialTransaction transaction, QuarantineReason reason, String detail) {
+    }
+}
@@ -1,14 +1,21 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
 
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionStatisticsAccumulator;
 import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
 import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
 import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.TransactionStatistics;
 import com.basit.cz.batchprocessingoffinancialtransactions.repository.FinancialTransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -17,12 +24,17 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class ReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
+    private static final int REPORT_BUFFER_SIZE = 64 * 1024;
 
     @Autowired
     private FinancialTransactionRepository repository;
@@ -30,6 +42,23 @@ public class ReportService {
     @Autowired
     private ApplicationProperties appProperties;
 
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Summary figures come from the {@link TransactionStatistics} the steps accumulated for
+     * this run, so they cost no queries and cover only this job execution and the
+     * executions it restarted. Detail sections list the rows those executions wrote, found
+     * by the job execution ID each writer stores with its rows, so they match the counts
+     * however many other jobs write at the same time. They are streamed from read-only
+     * cursors and each entity is detached once written, so heap use does not depend on
+     * how many transactions were flagged. The read-only
+     * transaction keeps the cursors open while the report is written.
+     */
+    @Transactional(readOnly = true)
     public String generateSummaryReport(JobExecution jobExecution) throws IOException {
         logger.info("Generating summary report for job execution: {}", jobExecution.getId());
 
@@ -44,13 +73,14 @@ public class ReportService {
                 appProperties.getBatch().getOutputDirectory(),
                 timestamp);
 
-        // Gather statistics
-        long validCount = repository.countByStatus(TransactionStatus.VALID);
-        long invalidCount = repository.countByStatus(TransactionStatus.INVALID);
-        long fraudulentCount = repository.countByStatus(TransactionStatus.FRAUDULENT);
-        BigDecimal totalValidAmount = repository.sumAmountByStatus(TransactionStatus.VALID);
+        // Statistics accumulated while the steps ran
+        TransactionStatistics statistics = TransactionStatisticsAccumulator.forJob(jobExecution);
+        long validCount = statistics.getCount(TransactionStatus.VALID);
+        long invalidCount = statistics.getCount(TransactionStatus.INVALID);
+        long fraudulentCount = statistics.getCount(TransactionStatus.FRAUDULENT);
+        BigDecimal totalValidAmount = statistics.getAmount(TransactionStatus.VALID);
 
-        try (FileWriter writer = new FileWriter(reportFileName)) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(reportFileName), REPORT_BUFFER_SIZE)) {
             // Report header
             writer.write("FINANCIAL TRANSACTION PROCESSING REPORT\n");
             writer.write("======================================\n");
@@ -71,7 +101,11 @@ public class ReportService {
             writer.write("Invalid Transactions: " + invalidCount + "\n");
             writer.write("Fraudulent Transactions: " + fraudulentCount + "\n");
             writer.write("Total Processed: " + (validCount + invalidCount + fraudulentCount) + "\n");
-            writer.write("Total Valid Amount: $" + (totalValidAmount != null ? totalValidAmount : BigDecimal.ZERO) + "\n\n");
+            writer.write("Total Valid Amount: $" + totalValidAmount + "\n\n");
+
+            // Per-type totals and fraud score distribution
+            writeTypeSummary(writer, statistics);
+            writeFraudScoreDistribution(writer, statistics);
 
             // Step execution details
             writer.write("STEP EXECUTION DETAILS\n");
@@ -81,6 +115,7 @@ public class ReportService {
                     writer.write("Step: " + stepExecution.getStepName() + "\n");
                     writer.write("  Read Count: " + stepExecution.getReadCount() + "\n");
                     writer.write("  Write Count: " + stepExecution.getWriteCount() + "\n");
+                    writer.write("  Filter Count: " + stepExecution.getFilterCount() + "\n");
                     writer.write("  Skip Count: " + stepExecution.getSkipCount() + "\n");
                     writer.write("  Status: " + stepExecution.getStatus() + "\n\n");
                 } catch (IOException e) {
@@ -88,17 +123,36 @@ public class ReportService {
                 }
             });
 
+            List<Long> jobExecutionIds = runExecutionIds(jobExecution);
+
             // Error details
-            writeErrorDetails(writer);
+            writeErrorDetails(writer, jobExecutionIds);
 
             // Fraud details
-            writeFraudDetails(writer);
+            writeFraudDetails(writer, jobExecutionIds);
         }
 
         logger.info("Summary report generated: {}", reportFileName);
         return reportFileName;
     }
 
+    /**
+     * @return the ID of the job execution and of the earlier executions of its job instance,
+     *         whose totals a restart carries over
+     */
+    private List<Long> runExecutionIds(JobExecution jobExecution) {
+        List<Long> ids = new ArrayList<>();
+        ids.add(jobExecution.getId());
+        if (jobExecution.getJobInstance() != null) {
+            for (JobExecution execution : jobExplorer.getJobExecutions(jobExecution.getJobInstance())) {
+                if (!ids.contains(execution.getId())) {
+                    ids.add(execution.getId());
+                }
+            }
+        }
+        return ids;
+    }
+
     /**
      * Calculate job duration handling both Date and LocalDateTime types
      */
@@ -171,36 +225,85 @@ public class ReportService {
         }
     }
 
-    private void writeErrorDetails(FileWriter writer) throws IOException {
-        List<FinancialTransaction> invalidTransactions = repository.findByStatus(TransactionStatus.INVALID);
+    private void writeTypeSummary(BufferedWriter writer, TransactionStatistics statistics) throws IOException {
+        writer.write("TRANSACTIONS BY TYPE\n");
+        writer.write("====================\n");
+        for (Map.Entry<String, TransactionStatistics.Totals> entry : statistics.getByType().entrySet()) {
+            writer.write(String.format("%-12s %10d  $%s%n",
+                    entry.getKey(), entry.getValue().getCount(), entry.getValue().getAmount()));
+        }
+        writer.write("\n");
+    }
+
+    private void writeFraudScoreDistribution(BufferedWriter writer, TransactionStatistics statistics) throws IOException {
+        writer.write("FRAUD SCORE DISTRIBUTION\n");
+        writer.write("========================\n");
+        long[] histogram = statistics.getFraudScoreHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            writer.write(String.format("%.1f - %.1f %10d%n",
+                    i / (double) histogram.length, (i + 1) / (double) histogram.length, histogram[i]));
+        }
+        writer.write("\n");
+    }
+
+    private void writeErrorDetails(BufferedWriter writer, List<Long> jobExecutionIds) throws IOException {
+        int rowLimit = appProperties.getBatch().getReportSectionRowLimit();
+        int written = 0;
+        try (Stream<FinancialTransaction> invalidTransactions =
+                     repository.streamByStatusWrittenBy(TransactionStatus.INVALID, jobExecutionIds)) {
+            Iterator<FinancialTransaction> iterator = invalidTransactions.iterator();
+            if (!iterator.hasNext()) {
+                return;
+            }
 
-        if (!invalidTransactions.isEmpty()) {
             writer.write("INVALID TRANSACTIONS DETAILS\n");
             writer.write("===========================\n");
-            for (FinancialTransaction transaction : invalidTransactions) {
+            while (written < rowLimit && iterator.hasNext()) {
+                FinancialTransaction transaction = iterator.next();
                 writer.write("Transaction ID: " + transaction.getTransactionId() + "\n");
                 writer.write("  Account: " + transaction.getAccountNumber() + "\n");
                 writer.write("  Amount: $" + transaction.getAmount() + "\n");
                 writer.write("  Error: " + transaction.getErrorMessage() + "\n");
                 writer.write("  Timestamp: " + transaction.getTimestamp() + "\n\n");
+                entityManager.detach(transaction);
+                written++;
+            }
+            if (iterator.hasNext()) {
+                writeTruncationMarker(writer, written);
             }
         }
     }
 
-    private void writeFraudDetails(FileWriter writer) throws IOException {
-        List<FinancialTransaction> fraudulentTransactions = repository.findByStatus(TransactionStatus.FRAUDULENT);
+    private void writeFraudDetails(BufferedWriter writer, List<Long> jobExecutionIds) throws IOException {
+        int rowLimit = appProperties.getBatch().getReportSectionRowLimit();
+        int written = 0;
+        try (Stream<FinancialTransaction> fraudulentTransactions =
+                     repository.streamByStatusWrittenBy(TransactionStatus.FRAUDULENT, jobExecutionIds)) {
+            Iterator<FinancialTransaction> iterator = fraudulentTransactions.iterator();
+            if (!iterator.hasNext()) {
+                return;
+            }
 
-        if (!fraudulentTransactions.isEmpty()) {
             writer.write("FRAUDULENT TRANSACTIONS DETAILS\n");
             writer.write("==============================\n");
-            for (FinancialTransaction transaction : fraudulentTransactions) {
+            while (written < rowLimit && iterator.hasNext()) {
+                FinancialTransaction transaction = iterator.next();
                 writer.write("Transaction ID: " + transaction.getTransactionId() + "\n");
                 writer.write("  Account: " + transaction.getAccountNumber() + "\n");
                 writer.write("  Amount: $" + transaction.getAmount() + "\n");
                 writer.write("  Fraud Score: " + transaction.getFraudScore() + "\n");
                 writer.write("  Merchant: " + transaction.getMerchantId() + "\n");
                 writer.write("  Timestamp: " + transaction.getTimestamp() + "\n\n");
+                entityManager.detach(transaction);
+                written++;
+            }
+            if (iterator.hasNext()) {
+                writeTruncationMarker(writer, written);
             }
         }
     }
-}
\ No newline at end of file
+
+    private void writeTruncationMarker(BufferedWriter writer, int written) throws IOException {
+        writer.write("... further transactions not listed (section limited to " + written + " rows)\n\n");
+    }
+}
@@ -0,0 +1,116 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.BloomFilter;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionIdIndex;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds and holds the {@link TransactionIdIndex} of each running job execution, and
+ * keeps it current with the IDs other writers store while the job runs: the streaming
+ * job, partitions on other JVMs or a parallel run. Without that, their IDs would pass the
+ * Bloom filter as definitely new and only be caught by the unique constraint, as a write
+ * skip that rescans the chunk one row at a time.
+ * <p>
+ * A refresh reads the rows with an id above the largest one in the index. A row whose id
+ * was assigned before that but committed after the refresh is still missed, and falls
+ * back to the unique constraint. IDs claimed by the job itself are skipped, so only other
+ * writers' IDs take up room in the filter.
+ */
+@Service
+public class TransactionIdIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionIdIndexService.class);
+
+    private static final String STORED_IDS_SQL = "SELECT id, transaction_id FROM financial_transactions";
+    private static final String STORED_IDS_AFTER_SQL = "SELECT id, transaction_id FROM financial_transactions WHERE id > ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    private final Map<Long, TransactionIdIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Build the index for a job execution by streaming every stored transaction ID
+     * into a Bloom filter sized for the current table plus headroom for this run.
+     */
+    public TransactionIdIndex buildIndex(Long jobExecutionId) {
+        long start = System.currentTimeMillis();
+
+        Long storedCount = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM financial_transactions", Long.class);
+        long count = storedCount != null ? storedCount : 0;
+
+        ApplicationProperties.Batch batch = appProperties.getBatch();
+        BloomFilter filter = new BloomFilter(
+                Math.max(count + count / 4, batch.getDuplicateIndexMinCapacity()),
+                batch.getDuplicateIndexFalsePositiveRate());
+
+        long[] maxId = {0};
+        if (count > 0) {
+            streamingTemplate().query(STORED_IDS_SQL, rs -> {
+                maxId[0] = Math.max(maxId[0], rs.getLong(1));
+                filter.put(rs.getString(2));
+            });
+        }
+
+        TransactionIdIndex index = new TransactionIdIndex(filter, count, maxId[0]);
+        indexes.put(jobExecutionId, index);
+
+        logger.info("Transaction ID index built for job execution {}: {} stored IDs, {} bits, {} hash functions in {} ms",
+                jobExecutionId, count, filter.getBitCount(), filter.getHashFunctions(),
+                System.currentTimeMillis() - start);
+        return index;
+    }
+
+    /**
+     * Add the IDs other writers stored since the last refresh to the index, at most once every
+     * {@code app.batch.duplicate-index-refresh-millis}. Called before each chunk.
+     */
+    public void refresh(TransactionIdIndex index) {
+        long interval = appProperties.getBatch().getDuplicateIndexRefreshMillis();
+        if (interval < 0 || System.currentTimeMillis() - index.getRefreshedAt() < interval) {
+            return;
+        }
+
+        synchronized (index) {
+            if (System.currentTimeMillis() - index.getRefreshedAt() < interval) {
+                return;
+            }
+            long before = index.getStoredCount();
+            streamingTemplate().query(STORED_IDS_AFTER_SQL,
+                    rs -> { index.addStored(rs.getLong(1), rs.getString(2)); }, index.getMaxStoredId());
+            index.setRefreshedAt(System.currentTimeMillis());
+            logger.debug("Transaction ID index refreshed with {} IDs stored since the last refresh",
+                    index.getStoredCount() - before);
+        }
+    }
+
+    public TransactionIdIndex getIndex(Long jobExecutionId) {
+        return jobExecutionId != null ? indexes.get(jobExecutionId) : null;
+    }
+
+    private JdbcTemplate streamingTemplate() {
+        JdbcTemplate streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streamingTemplate.setFetchSize(appProperties.getBatch().getDuplicateIndexFetchSize());
+        return streamingTemplate;
+    }
+
+    public void releaseIndex(Long jobExecutionId) {
+        TransactionIdIndex index = indexes.remove(jobExecutionId);
+        if (index != null) {
+            logger.debug("Transaction ID index released for job execution {} ({} IDs claimed)",
+                    jobExecutionId, index.getClaimedCount());
+        }
+    }
+}
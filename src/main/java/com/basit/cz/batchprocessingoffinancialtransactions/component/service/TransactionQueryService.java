@@ -0,0 +1,175 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.TransactionFilter;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.TransactionPage;
+import com.basit.cz.batchprocessingoffinancialtransactions.repository.FinancialTransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads transactions in (timestamp, id) order with keyset pagination: a page starts
+ * right after the last row of the previous one, identified by an opaque cursor, so the
+ * database seeks to it through an index whatever the page depth. Results can also be
+ * written as NDJSON straight from a database cursor, one detached entity at a time.
+ */
+@Service
+public class TransactionQueryService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Bounds for open timestamp ranges, within what every supported database can store
+    private static final LocalDateTime MIN_TIMESTAMP = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final int FLUSH_ROWS = 1000;
+    private static final char CURSOR_SEPARATOR = '_';
+
+    @Autowired
+    private FinancialTransactionRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @param after cursor returned with the previous page, null for the first page
+     * @throws IllegalArgumentException if the filter, cursor or limit is invalid
+     */
+    @Transactional(readOnly = true)
+    public TransactionPage page(TransactionFilter filter, String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Position position = start(filter, after);
+        LocalDateTime to = to(filter);
+
+        // One row more than asked tells whether another page follows
+        Limit rows = Limit.of(limit + 1);
+        List<FinancialTransaction> transactions;
+        if (filter.accountNumber() != null) {
+            transactions = repository.findByAccountNumberAfter(filter.accountNumber(), to,
+                    position.timestamp(), position.id(), rows);
+        } else if (filter.minFraudScore() != null) {
+            transactions = repository.findByFraudScoreAfter(filter.minFraudScore(), to,
+                    position.timestamp(), position.id(), rows);
+        } else {
+            transactions = repository.findByTimestampAfter(to, position.timestamp(), position.id(), rows);
+        }
+
+        if (transactions.size() <= limit) {
+            return new TransactionPage(transactions, null);
+        }
+        List<FinancialTransaction> items = transactions.subList(0, limit);
+        return new TransactionPage(items, encodeCursor(items.get(limit - 1)));
+    }
+
+    /**
+     * Write every matching transaction after the cursor as one JSON object per line.
+     *
+     * @return the number of transactions written
+     * @throws IllegalArgumentException if the filter or cursor is invalid
+     */
+    @Transactional(readOnly = true)
+    public long writeNdjson(TransactionFilter filter, String after, OutputStream output) throws IOException {
+        Position position = start(filter, after);
+        LocalDateTime to = to(filter);
+        ObjectWriter writer = objectMapper.writer();
+
+        long count = 0;
+        try (Stream<FinancialTransaction> transactions = stream(filter, to, position)) {
+            Iterator<FinancialTransaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                FinancialTransaction transaction = iterator.next();
+                output.write(writer.writeValueAsBytes(transaction));
+                output.write('\n');
+                entityManager.detach(transaction);
+
+                if (++count % FLUSH_ROWS == 0) {
+                    output.flush();
+                }
+            }
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Validate a filter before a response is committed to it.
+     *
+     * @throws IllegalArgumentException if the filter or cursor is invalid
+     */
+    public void check(TransactionFilter filter, String after) {
+        start(filter, after);
+    }
+
+    private Stream<FinancialTransaction> stream(TransactionFilter filter, LocalDateTime to, Position position) {
+        if (filter.accountNumber() != null) {
+            return repository.streamByAccountNumberAfter(filter.accountNumber(), to, position.timestamp(), position.id());
+        }
+        if (filter.minFraudScore() != null) {
+            return repository.streamByFraudScoreAfter(filter.minFraudScore(), to, position.timestamp(), position.id());
+        }
+        return repository.streamByTimestampAfter(to, position.timestamp(), position.id());
+    }
+
+    /**
+     * @return where the query starts: after the cursor, but never before the range start
+     */
+    private static Position start(TransactionFilter filter, String after) {
+        if (filter.accountNumber() != null && filter.minFraudScore() != null) {
+            throw new IllegalArgumentException("Filter by accountNumber or by minFraudScore, not both");
+        }
+        if (filter.from() != null && filter.to() != null && filter.from().isAfter(filter.to())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        // Ids start at 1, so (from, 0) includes the rows at from itself
+        Position rangeStart = new Position(filter.from() != null ? filter.from() : MIN_TIMESTAMP, 0);
+        if (after == null || after.isEmpty()) {
+            return rangeStart;
+        }
+        Position cursor = decodeCursor(after);
+        return cursor.timestamp().isBefore(rangeStart.timestamp()) ? rangeStart : cursor;
+    }
+
+    private static LocalDateTime to(TransactionFilter filter) {
+        return filter.to() != null ? filter.to() : MAX_TIMESTAMP;
+    }
+
+    private static String encodeCursor(FinancialTransaction transaction) {
+        String position = transaction.getTimestamp().toString() + CURSOR_SEPARATOR + transaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = position.lastIndexOf(CURSOR_SEPARATOR);
+            return new Position(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private record Position(LocalDateTime timestamp, long id) {
+    }
+}
@@ -0,0 +1,385 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.AmountCents;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.DailyVolume;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.MerchantVolume;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Daily rollups of {@code financial_transactions} by (day, transaction type, status) and
+ * by (day, merchant), so reporting queries read a few rows per day instead of scanning
+ * the transactions.
+ * <p>
+ * The writers hand each chunk to {@link #record(List)} inside the chunk transaction. The
+ * chunk is first summed per rollup key, then every key is upserted once, adding the
+ * chunk's totals to one random stripe of its row as the status counters do. The rollups
+ * can be recomputed from the transactions with {@code rebuildRollupsJob}. Writers and
+ * rebuilds of one JVM exclude each other, while rebuilds of different ranges run side by
+ * side.
+ */
+@Service
+public class TransactionRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRollupService.class);
+
+    // Merchant id under which transactions without a merchant are counted
+    public static final String NO_MERCHANT = "";
+
+    // Two chunks that add the first rows of a key at once both try to insert them
+    private static final int MAX_UPSERT_ATTEMPTS = 3;
+
+    private static final String TYPE_TABLE = "daily_type_rollups";
+    private static final String MERCHANT_TABLE = "daily_merchant_rollups";
+    private static final List<String> TYPE_KEY = List.of("transaction_date", "transaction_type", "status", "stripe");
+    private static final List<String> MERCHANT_KEY = List.of("transaction_date", "merchant_id", "stripe");
+
+    private static final String DAILY_VOLUME_SQL =
+            "SELECT transaction_date, transaction_type, status, SUM(row_count), SUM(amount_cents) " +
+                    "FROM daily_type_rollups WHERE transaction_date BETWEEN ? AND ? " +
+                    "GROUP BY transaction_date, transaction_type, status " +
+                    "ORDER BY transaction_date, transaction_type, status";
+    private static final String MERCHANT_VOLUME_SQL =
+            "SELECT merchant_id, SUM(row_count), SUM(amount_cents) " +
+                    "FROM daily_merchant_rollups WHERE transaction_date BETWEEN ? AND ? " +
+                    "GROUP BY merchant_id ORDER BY SUM(amount_cents) DESC, merchant_id";
+    private static final String DATE_RANGE_SQL = "SELECT MIN(timestamp), MAX(timestamp) FROM financial_transactions";
+    private static final String DELETE_TYPE_RANGE_SQL =
+            "DELETE FROM daily_type_rollups WHERE transaction_date >= ? AND transaction_date < ?";
+    private static final String DELETE_MERCHANT_RANGE_SQL =
+            "DELETE FROM daily_merchant_rollups WHERE transaction_date >= ? AND transaction_date < ?";
+    // %s is the integer type of a CAST, which MySQL names SIGNED
+    private static final String REBUILD_TYPE_SQL =
+            "INSERT INTO daily_type_rollups (transaction_date, transaction_type, status, stripe, row_count, amount_cents) " +
+                    "SELECT CAST(timestamp AS DATE), transaction_type, status, 0, COUNT(*), CAST(SUM(amount) * 100 AS %s) " +
+                    "FROM financial_transactions WHERE timestamp >= ? AND timestamp < ? AND status IS NOT NULL " +
+                    "GROUP BY CAST(timestamp AS DATE), transaction_type, status";
+    private static final String REBUILD_MERCHANT_SQL =
+            "INSERT INTO daily_merchant_rollups (transaction_date, merchant_id, stripe, row_count, amount_cents) " +
+                    "SELECT CAST(timestamp AS DATE), COALESCE(merchant_id, ''), 0, COUNT(*), CAST(SUM(amount) * 100 AS %s) " +
+                    "FROM financial_transactions WHERE timestamp >= ? AND timestamp < ? AND status IS NOT NULL " +
+                    "GROUP BY CAST(timestamp AS DATE), COALESCE(merchant_id, '')";
+
+    private static final Comparator<TypeKey> TYPE_ORDER = Comparator.comparing(TypeKey::date)
+            .thenComparing(TypeKey::transactionType)
+            .thenComparing(TypeKey::status);
+    private static final Comparator<MerchantKey> MERCHANT_ORDER = Comparator.comparing(MerchantKey::date)
+            .thenComparing(MerchantKey::merchantId);
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Writers hold the gate from the start of a chunk write until its transaction ends,
+    // rebuilds of a range of days likewise; either side waits while the other is inside
+    private final ReentrantLock gate = new ReentrantLock();
+    private final Condition gateChanged = gate.newCondition();
+    private int activeWriters;
+    private int activeRebuilds;
+    private int waitingRebuilds;
+
+    private String upsertTypeSql;
+    private String upsertMerchantSql;
+    private String rebuildTypeSql;
+    private String rebuildMerchantSql;
+    private int stripes;
+
+    @PostConstruct
+    public void init() {
+        stripes = Math.max(1, appProperties.getBatch().getRollupStripes());
+
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        boolean mysql = database != null && (database.contains("MySQL") || database.contains("MariaDB"));
+        upsertTypeSql = mysql ? insertOnDuplicateKeySql(TYPE_TABLE, TYPE_KEY) : mergeSql(TYPE_TABLE, TYPE_KEY);
+        upsertMerchantSql = mysql ? insertOnDuplicateKeySql(MERCHANT_TABLE, MERCHANT_KEY) : mergeSql(MERCHANT_TABLE, MERCHANT_KEY);
+        String integerType = mysql ? "SIGNED" : "BIGINT";
+        rebuildTypeSql = REBUILD_TYPE_SQL.formatted(integerType);
+        rebuildMerchantSql = REBUILD_MERCHANT_SQL.formatted(integerType);
+    }
+
+    /**
+     * Keep rebuilds from starting until the current transaction ends. Writers call this
+     * before they insert a chunk, so a rebuild never reads the transactions of a chunk
+     * whose rollups are not committed yet.
+     */
+    public void beginWrite() {
+        enterUntilCompletion(false);
+    }
+
+    /**
+     * Add written transactions to the rollups. Must be called inside the transaction that
+     * writes them, so the rollups commit or roll back with the rows.
+     */
+    public void record(List<? extends FinancialTransaction> transactions) {
+        // Keys in a fixed order, so concurrent chunks lock rollup rows in the same order
+        Map<TypeKey, long[]> byType = new TreeMap<>(TYPE_ORDER);
+        Map<MerchantKey, long[]> byMerchant = new TreeMap<>(MERCHANT_ORDER);
+        for (FinancialTransaction transaction : transactions) {
+            if (transaction.getStatus() == null || transaction.getTimestamp() == null
+                    || transaction.getTransactionType() == null) {
+                continue;
+            }
+            LocalDate date = transaction.getTimestamp().toLocalDate();
+            String merchantId = transaction.getMerchantId() != null ? transaction.getMerchantId() : NO_MERCHANT;
+            long cents = TransactionStatusCounterService.storedCents(transaction);
+
+            add(byType.computeIfAbsent(new TypeKey(date, transaction.getTransactionType(), transaction.getStatus()),
+                    key -> new long[2]), cents);
+            add(byMerchant.computeIfAbsent(new MerchantKey(date, merchantId), key -> new long[2]), cents);
+        }
+        if (byType.isEmpty()) {
+            return;
+        }
+
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        List<Object[]> typeRows = new ArrayList<>(byType.size());
+        byType.forEach((key, totals) -> typeRows.add(new Object[]{
+                key.date(), key.transactionType(), key.status().name(), stripe, totals[0], totals[1]}));
+        List<Object[]> merchantRows = new ArrayList<>(byMerchant.size());
+        byMerchant.forEach((key, totals) -> merchantRows.add(new Object[]{
+                key.date(), key.merchantId(), stripe, totals[0], totals[1]}));
+
+        upsert(upsertTypeSql, typeRows);
+        upsert(upsertMerchantSql, merchantRows);
+    }
+
+    /**
+     * @return count and amount per day, type and status, for the days from {@code from}
+     *         to {@code to} inclusive
+     */
+    public List<DailyVolume> getDailyVolume(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(DAILY_VOLUME_SQL, (rs, rowNum) -> new DailyVolume(
+                rs.getObject(1, LocalDate.class), rs.getString(2), TransactionStatus.valueOf(rs.getString(3)),
+                rs.getLong(4), AmountCents.toDecimal(rs.getLong(5))), from, to);
+    }
+
+    /**
+     * @return count and amount of the merchants with the largest amount over the days
+     *         from {@code from} to {@code to} inclusive, largest first
+     */
+    public List<MerchantVolume> getTopMerchants(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(MERCHANT_VOLUME_SQL);
+            ps.setObject(1, from);
+            ps.setObject(2, to);
+            ps.setMaxRows(limit);
+            return ps;
+        }, (rs, rowNum) -> new MerchantVolume(rs.getString(1), rs.getLong(2), AmountCents.toDecimal(rs.getLong(3))));
+    }
+
+    /**
+     * @return first and last day of the transactions, empty if there are none
+     */
+    public Optional<LocalDate[]> getTransactionDateRange() {
+        return jdbcTemplate.query(DATE_RANGE_SQL, rs -> {
+            if (!rs.next() || rs.getTimestamp(1) == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new LocalDate[]{
+                    rs.getTimestamp(1).toLocalDateTime().toLocalDate(),
+                    rs.getTimestamp(2).toLocalDateTime().toLocalDate()});
+        });
+    }
+
+    public void clear() {
+        int typeRows = jdbcTemplate.update("DELETE FROM " + TYPE_TABLE);
+        int merchantRows = jdbcTemplate.update("DELETE FROM " + MERCHANT_TABLE);
+        logger.info("Cleared {} type and {} merchant rollup rows", typeRows, merchantRows);
+    }
+
+    /**
+     * Recompute the rollups of the days from {@code from} up to, but excluding,
+     * {@code until} from the transactions, replacing what they hold. Writers of this JVM
+     * wait until the current transaction ends, so none of their chunks is counted both
+     * in the recomputed rows and on top of them. Other rebuilds do not wait.
+     *
+     * @return the number of rollup rows written
+     */
+    public long rebuild(LocalDate from, LocalDate until) {
+        enterUntilCompletion(true);
+
+        jdbcTemplate.update(DELETE_TYPE_RANGE_SQL, from, until);
+        jdbcTemplate.update(DELETE_MERCHANT_RANGE_SQL, from, until);
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(until.atStartOfDay());
+        int typeRows = jdbcTemplate.update(rebuildTypeSql, start, end);
+        int merchantRows = jdbcTemplate.update(rebuildMerchantSql, start, end);
+        logger.debug("Rebuilt {} type and {} merchant rollup rows from {} until {}", typeRows, merchantRows, from, until);
+        return typeRows + merchantRows;
+    }
+
+    /**
+     * Enter the gate as a writer or as a rebuild until the current transaction ends,
+     * waiting while the other side is inside. A waiting rebuild keeps new writers out, so
+     * a steady stream of chunks cannot hold it off. Outside a transaction, or if the
+     * transaction is already inside, there is nothing to wait for.
+     */
+    private void enterUntilCompletion(boolean rebuild) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(gate)) {
+            return;
+        }
+
+        gate.lock();
+        try {
+            if (rebuild) {
+                waitingRebuilds++;
+                try {
+                    while (activeWriters > 0) {
+                        gateChanged.awaitUninterruptibly();
+                    }
+                } finally {
+                    waitingRebuilds--;
+                }
+                activeRebuilds++;
+            } else {
+                while (activeRebuilds > 0 || waitingRebuilds > 0) {
+                    gateChanged.awaitUninterruptibly();
+                }
+                activeWriters++;
+            }
+        } finally {
+            gate.unlock();
+        }
+
+        TransactionSynchronizationManager.bindResource(gate, rebuild);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(gate);
+                leave(rebuild);
+            }
+        });
+    }
+
+    private void leave(boolean rebuild) {
+        gate.lock();
+        try {
+            if (rebuild) {
+                activeRebuilds--;
+            } else {
+                activeWriters--;
+            }
+            gateChanged.signalAll();
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    private void upsert(String sql, List<Object[]> rows) {
+        List<Object[]> pending = rows;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            pending = upsertBatch(sql, pending, attempt == MAX_UPSERT_ATTEMPTS);
+        }
+    }
+
+    /**
+     * @return the rows that failed because another transaction inserted their key first;
+     *         retried, they update the row it inserted
+     */
+    private List<Object[]> upsertBatch(String sql, List<Object[]> rows, boolean lastAttempt) {
+        return jdbcTemplate.execute(sql, (PreparedStatementCallback<List<Object[]>>) ps -> {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    ps.setObject(i + 1, row[i]);
+                }
+                ps.addBatch();
+            }
+
+            try {
+                ps.executeBatch();
+                return List.of();
+            } catch (BatchUpdateException e) {
+                if (lastAttempt || !(jdbcTemplate.getExceptionTranslator().translate("upsert", sql, e)
+                        instanceof DuplicateKeyException)) {
+                    throw e;
+                }
+
+                // Drivers that stop at the first failure report fewer counts than rows
+                int[] counts = e.getUpdateCounts();
+                List<Object[]> failed = new ArrayList<>();
+                for (int i = 0; i < rows.size(); i++) {
+                    if (i >= counts.length || counts[i] == Statement.EXECUTE_FAILED) {
+                        failed.add(rows.get(i));
+                    }
+                }
+                logger.debug("Retrying {} of {} rollup upserts that raced with another chunk", failed.size(), rows.size());
+                return failed;
+            }
+        });
+    }
+
+    private static void add(long[] totals, long cents) {
+        totals[0]++;
+        totals[1] = Math.addExact(totals[1], cents);
+    }
+
+    /**
+     * Standard SQL MERGE that adds {@code row_count} and {@code amount_cents} to the row
+     * of the key, inserting it if there is none.
+     */
+    private static String mergeSql(String table, List<String> key) {
+        List<String> columns = columns(key);
+        return "MERGE INTO " + table + " r USING (VALUES (" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")) "
+                + "AS d (" + String.join(", ", columns) + ") ON "
+                + String.join(" AND ", key.stream().map(column -> "r." + column + " = d." + column).toList())
+                + " WHEN MATCHED THEN UPDATE SET row_count = r.row_count + d.row_count, "
+                + "amount_cents = r.amount_cents + d.amount_cents"
+                + " WHEN NOT MATCHED THEN INSERT (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(column -> "d." + column).toList()) + ")";
+    }
+
+    /**
+     * MySQL's equivalent of {@link #mergeSql}, which MySQL does not support.
+     */
+    private static String insertOnDuplicateKeySql(String table, List<String> key) {
+        List<String> columns = columns(key);
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ") ON DUPLICATE KEY UPDATE "
+                + "row_count = row_count + VALUES(row_count), amount_cents = amount_cents + VALUES(amount_cents)";
+    }
+
+    private static List<String> columns(List<String> key) {
+        List<String> columns = new ArrayList<>(key);
+        columns.add("row_count");
+        columns.add("amount_cents");
+        return columns;
+    }
+
+    private record TypeKey(LocalDate date, String transactionType, TransactionStatus status) {
+    }
+
+    private record MerchantKey(LocalDate date, String merchantId) {
+    }
+}
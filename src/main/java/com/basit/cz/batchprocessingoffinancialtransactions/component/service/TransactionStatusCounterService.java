@@ -0,0 +1,292 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.AmountCents;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Row counts and amounts per status of {@code financial_transactions}, maintained as
+ * transactions are written instead of counted on every read.
+ * <p>
+ * The writers add each chunk's totals to one random stripe of the
+ * {@code transaction_status_counters} table inside the chunk transaction, and to an
+ * in-memory cache of {@link LongAdder}s once it commits. Reads are served from the cache,
+ * which is reloaded from the table when it is older than
+ * {@code app.batch.status-cache-max-staleness-millis}, so rows written by other
+ * application instances show up within that bound. At startup the table is rebuilt from
+ * {@code financial_transactions} if it does not hold one row per status and stripe.
+ */
+@Service
+public class TransactionStatusCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStatusCounterService.class);
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+    private static final long RELOAD_LOCK_TIMEOUT_MILLIS = 100;
+
+    private static final String ADD_SQL = "UPDATE transaction_status_counters " +
+            "SET row_count = row_count + ?, amount_cents = amount_cents + ? WHERE status = ? AND stripe = ?";
+    private static final String TOTALS_SQL =
+            "SELECT status, SUM(row_count), SUM(amount_cents) FROM transaction_status_counters GROUP BY status";
+    private static final String COUNT_ROWS_SQL = "SELECT COUNT(*) FROM transaction_status_counters";
+    private static final String CLEAR_SQL = "DELETE FROM transaction_status_counters";
+    private static final String INSERT_SQL =
+            "INSERT INTO transaction_status_counters (status, stripe, row_count, amount_cents) VALUES (?, ?, ?, ?)";
+    private static final String AGGREGATE_SQL =
+            "SELECT status, COUNT(*), SUM(amount) FROM financial_transactions WHERE status IS NOT NULL GROUP BY status";
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final LongAdder[] counts = new LongAdder[STATUSES.length];
+    private final LongAdder[] amountCents = new LongAdder[STATUSES.length];
+
+    // Commits hold the read lock from just before they commit until the cache has their
+    // totals, so a reload, which holds the write lock, sees each commit in both or neither
+    private final ReentrantReadWriteLock reloadLock = new ReentrantReadWriteLock();
+    private volatile long loadedAtNanos;
+    private int stripes;
+
+    @PostConstruct
+    public void init() {
+        stripes = Math.max(1, appProperties.getBatch().getStatusCounterStripes());
+        for (int i = 0; i < STATUSES.length; i++) {
+            counts[i] = new LongAdder();
+            amountCents[i] = new LongAdder();
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> rebuildIfIncomplete());
+        reloadLock.writeLock().lock();
+        try {
+            load();
+        } finally {
+            reloadLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add written transactions to the counters. Must be called inside the transaction
+     * that writes them, so the counters commit or roll back with the rows; the cache
+     * follows once the transaction commits.
+     */
+    public void record(List<? extends FinancialTransaction> transactions) {
+        long[] chunkCounts = new long[STATUSES.length];
+        long[] chunkCents = new long[STATUSES.length];
+        for (FinancialTransaction transaction : transactions) {
+            if (transaction.getStatus() != null) {
+                int index = transaction.getStatus().ordinal();
+                chunkCounts[index]++;
+                chunkCents[index] = Math.addExact(chunkCents[index], storedCents(transaction));
+            }
+        }
+
+        // Statuses in a fixed order, so concurrent chunks lock stripe rows in the same order
+        int stripe = ThreadLocalRandom.current().nextInt(stripes);
+        List<Object[]> updates = new ArrayList<>(STATUSES.length);
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (chunkCounts[i] > 0) {
+                updates.add(new Object[]{chunkCounts[i], chunkCents[i], STATUSES[i].name(), stripe});
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ADD_SQL, updates);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new CacheUpdate(chunkCounts, chunkCents));
+        } else {
+            reloadLock.readLock().lock();
+            try {
+                addToCache(chunkCounts, chunkCents);
+            } finally {
+                reloadLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * @return count and amount for every status, at most the configured staleness old
+     */
+    public Map<TransactionStatus, StatusTotals> getTotals() {
+        reloadIfStale();
+        Map<TransactionStatus, StatusTotals> totals = new EnumMap<>(TransactionStatus.class);
+        for (int i = 0; i < STATUSES.length; i++) {
+            totals.put(STATUSES[i], new StatusTotals(counts[i].sum(), AmountCents.toDecimal(amountCents[i].sum())));
+        }
+        return Collections.unmodifiableMap(totals);
+    }
+
+    public long getCount(TransactionStatus status) {
+        reloadIfStale();
+        return counts[status.ordinal()].sum();
+    }
+
+    private void reloadIfStale() {
+        long maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(appProperties.getBatch().getStatusCacheMaxStalenessMillis());
+        if (System.nanoTime() - loadedAtNanos < maxStalenessNanos) {
+            return;
+        }
+
+        try {
+            if (!reloadLock.writeLock().tryLock(RELOAD_LOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return; // Commits keep arriving; serve the cache as it is
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            if (System.nanoTime() - loadedAtNanos >= maxStalenessNanos) {
+                load();
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Serving cached status counters, cannot reload them: {}", e.getMessage());
+        } finally {
+            reloadLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the cache with the table's totals. Callers hold the write lock.
+     */
+    private void load() {
+        long[] tableCounts = new long[STATUSES.length];
+        long[] tableCents = new long[STATUSES.length];
+        jdbcTemplate.query(TOTALS_SQL, rs -> {
+            int index = TransactionStatus.valueOf(rs.getString(1)).ordinal();
+            tableCounts[index] = rs.getLong(2);
+            tableCents[index] = rs.getLong(3);
+        });
+
+        for (int i = 0; i < STATUSES.length; i++) {
+            counts[i].reset();
+            counts[i].add(tableCounts[i]);
+            amountCents[i].reset();
+            amountCents[i].add(tableCents[i]);
+        }
+        loadedAtNanos = System.nanoTime();
+    }
+
+    private void addToCache(long[] chunkCounts, long[] chunkCents) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (chunkCounts[i] > 0) {
+                counts[i].add(chunkCounts[i]);
+                amountCents[i].add(chunkCents[i]);
+            }
+        }
+    }
+
+    private void rebuildIfIncomplete() {
+        Long rows = jdbcTemplate.queryForObject(COUNT_ROWS_SQL, Long.class);
+        if (rows != null && rows == (long) STATUSES.length * stripes) {
+            return;
+        }
+
+        long[] tableCounts = new long[STATUSES.length];
+        long[] tableCents = new long[STATUSES.length];
+        jdbcTemplate.query(AGGREGATE_SQL, rs -> {
+            TransactionStatus status = TransactionStatus.valueOf(rs.getString(1));
+            BigDecimal amount = rs.getBigDecimal(3);
+            long cents = amount != null ? AmountCents.of(amount) : 0;
+            if (cents == AmountCents.NONE) {
+                throw new IllegalStateException("Total amount of " + status + " transactions does not fit the counters");
+            }
+            tableCounts[status.ordinal()] = rs.getLong(2);
+            tableCents[status.ordinal()] = cents;
+        });
+
+        jdbcTemplate.update(CLEAR_SQL);
+        List<Object[]> inserts = new ArrayList<>(STATUSES.length * stripes);
+        for (int i = 0; i < STATUSES.length; i++) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                inserts.add(new Object[]{STATUSES[i].name(), stripe,
+                        stripe == 0 ? tableCounts[i] : 0, stripe == 0 ? tableCents[i] : 0});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        logger.info("Rebuilt status counters with {} stripes per status", stripes);
+    }
+
+    /**
+     * @return the amount as the DECIMAL(15,2) column stores it, in cents
+     */
+    static long storedCents(FinancialTransaction transaction) {
+        long cents = transaction.getAmountCents();
+        if (cents != AmountCents.NONE) {
+            return cents;
+        }
+        BigDecimal amount = transaction.getAmount();
+        cents = amount != null ? AmountCents.of(amount.setScale(2, RoundingMode.HALF_UP)) : 0;
+        return cents != AmountCents.NONE ? cents : 0;
+    }
+
+    public record StatusTotals(long count, BigDecimal amount) {
+    }
+
+    /**
+     * Adds a chunk's totals to the cache once its transaction commits.
+     */
+    private class CacheUpdate implements TransactionSynchronization {
+
+        private final long[] chunkCounts;
+        private final long[] chunkCents;
+        private boolean locked;
+
+        CacheUpdate(long[] chunkCounts, long[] chunkCents) {
+            this.chunkCounts = chunkCounts;
+            this.chunkCents = chunkCents;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            reloadLock.readLock().lock();
+            locked = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status == STATUS_COMMITTED) {
+                    addToCache(chunkCounts, chunkCents);
+                }
+            } finally {
+                if (locked) {
+                    locked = false;
+                    reloadLock.readLock().unlock();
+                }
+            }
+        }
+    }
+}
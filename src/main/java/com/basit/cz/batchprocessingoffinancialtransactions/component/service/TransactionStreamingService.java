@@ -0,0 +1,174 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.JobOperator;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the streaming job for the lifetime of the application when streaming is enabled.
+ * The job gets its own thread, so it runs beside batch jobs instead of taking a job
+ * launch thread. A stopped or failed streaming execution is restarted on startup and
+ * resumes where it left off; on shutdown the running one is stopped.
+ */
+@Service
+public class TransactionStreamingService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStreamingService.class);
+
+    private static final long STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long STOP_POLL_MILLIS = 200;
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private JobOperator jobOperator;
+
+    @Autowired
+    private Job streamTransactionsJob;
+
+    private TaskExecutorJobLauncher jobLauncher;
+    private volatile boolean running;
+    private volatile Long executionId;
+
+    @PostConstruct
+    public void initJobLauncher() throws Exception {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("stream-");
+        executor.setDaemon(true);
+
+        jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(executor);
+        jobLauncher.afterPropertiesSet();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            launch(jobParameters());
+        } catch (Exception e) {
+            logger.error("Failed to start the streaming job: ", e);
+        }
+    }
+
+    /**
+     * Run the streaming job on a thread of its own, restarting the instance of the given
+     * parameters if it has one.
+     */
+    public JobExecution launch(JobParameters jobParameters) throws JobExecutionException {
+        JobExecution execution = jobLauncher.run(streamTransactionsJob, jobParameters);
+        executionId = execution.getId();
+        logger.info("Streaming job execution {} started", executionId);
+        return execution;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Long id = executionId;
+        if (id == null) {
+            return;
+        }
+
+        try {
+            jobOperator.stop(id);
+        } catch (JobExecutionNotRunningException e) {
+            return;
+        } catch (Exception e) {
+            logger.warn("Failed to stop streaming job execution {}: {}", id, e.getMessage());
+            return;
+        }
+
+        long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                JobExecution execution = jobExplorer.getJobExecution(id);
+                if (execution == null || !execution.isRunning()) {
+                    logger.info("Streaming job execution {} stopped", id);
+                    return;
+                }
+                Thread.sleep(STOP_POLL_MILLIS);
+            }
+            logger.warn("Streaming job execution {} did not stop within {} ms", id, STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isEnabled() {
+        return appProperties.getBatch().isStreamingEnabled();
+    }
+
+    /**
+     * @return whether the streaming job started by this application is running, in which
+     * case it owns the input file and its watermark
+     */
+    public boolean isActive() {
+        Long id = executionId;
+        if (id == null) {
+            return false;
+        }
+        JobExecution execution = jobExplorer.getJobExecution(id);
+        return execution != null && execution.isRunning();
+    }
+
+    /**
+     * @return the latest execution started by this application, if any
+     */
+    public Optional<Long> getExecutionId() {
+        return Optional.ofNullable(executionId);
+    }
+
+    /**
+     * @return the parameters of the last streaming execution if it stopped or failed, so
+     * it is restarted, or else parameters for a new instance
+     */
+    private JobParameters jobParameters() {
+        JobInstance lastInstance = jobExplorer.getLastJobInstance(streamTransactionsJob.getName());
+        JobExecution lastExecution = lastInstance != null ? jobExplorer.getLastJobExecution(lastInstance) : null;
+        if (lastExecution != null && (lastExecution.getStatus() == BatchStatus.STOPPED
+                || lastExecution.getStatus() == BatchStatus.FAILED)) {
+            logger.info("Restarting streaming job execution {}", lastExecution.getId());
+            return lastExecution.getJobParameters();
+        }
+        return new JobParametersBuilder()
+                .addLong("startTime", System.currentTimeMillis())
+                .toJobParameters();
+    }
+}
@@ -15,7 +15,42 @@ public class ApplicationProperties {
         private int skipLimit = 100;
         private double fraudThreshold = 10000.00;
         private String inputFile = "classpath:data/transactions.csv";
+        private String inputDirectory;
+        private String inputFilePattern = "*.csv";
+        private String doneDirectory;
         private String outputDirectory = "./reports";
+        private int duplicateLookupBatchSize = 1000;
+        private long duplicateIndexMinCapacity = 1_000_000;
+        private double duplicateIndexFalsePositiveRate = 0.01;
+        private int duplicateIndexFetchSize = 10_000;
+        private long duplicateIndexRefreshMillis = 1000;
+        private boolean partitioned = false;
+        private int gridSize = Runtime.getRuntime().availableProcessors();
+        private int partitionThreads = Runtime.getRuntime().availableProcessors();
+        private PartitionMode partitionMode = PartitionMode.LOCAL;
+        private boolean partitionWorkerEnabled = false;
+        private long partitionLeaseMillis = 30_000;
+        private long partitionPollMillis = 1000;
+        private int partitionMaxAttempts = 3;
+        private long partitionClaimTimeoutMillis = 300_000;
+        private boolean schedulerEnabled = true;
+        private WriterMode writerMode = WriterMode.JPA;
+        private ProcessingMode processingMode = ProcessingMode.SERIAL;
+        private int asyncConcurrencyLimit = 64;
+        private int decompressionThreads = Runtime.getRuntime().availableProcessors();
+        private int reportSectionRowLimit = 10_000;
+        private int velocityMaxAccounts = 1_000_000;
+        private int velocityHistorySize = 8;
+        private String fraudRulesFile = "classpath:fraud-rules.json";
+        private int jobLaunchThreads = 1;
+        private int jobLaunchQueueCapacity = 16;
+        private boolean streamingEnabled = false;
+        private int streamingBatchSize = 1000;
+        private long streamingMaxWaitMillis = 500;
+        private int statusCounterStripes = 8;
+        private long statusCacheMaxStalenessMillis = 2000;
+        private int rollupStripes = 8;
+        private boolean quarantineEnabled = true;
 
         // Getters and setters
         public int getChunkSize() { return chunkSize; }
@@ -30,8 +65,113 @@ public class ApplicationProperties {
         public String getInputFile() { return inputFile; }
         public void setInputFile(String inputFile) { this.inputFile = inputFile; }
 
+        public String getInputDirectory() { return inputDirectory; }
+        public void setInputDirectory(String inputDirectory) { this.inputDirectory = inputDirectory; }
+
+        public String getInputFilePattern() { return inputFilePattern; }
+        public void setInputFilePattern(String inputFilePattern) { this.inputFilePattern = inputFilePattern; }
+
+        public String getDoneDirectory() { return doneDirectory; }
+        public void setDoneDirectory(String doneDirectory) { this.doneDirectory = doneDirectory; }
+
         public String getOutputDirectory() { return outputDirectory; }
         public void setOutputDirectory(String outputDirectory) { this.outputDirectory = outputDirectory; }
+
+        public int getDuplicateLookupBatchSize() { return duplicateLookupBatchSize; }
+        public void setDuplicateLookupBatchSize(int duplicateLookupBatchSize) { this.duplicateLookupBatchSize = duplicateLookupBatchSize; }
+
+        public long getDuplicateIndexMinCapacity() { return duplicateIndexMinCapacity; }
+        public void setDuplicateIndexMinCapacity(long duplicateIndexMinCapacity) { this.duplicateIndexMinCapacity = duplicateIndexMinCapacity; }
+
+        public double getDuplicateIndexFalsePositiveRate() { return duplicateIndexFalsePositiveRate; }
+        public void setDuplicateIndexFalsePositiveRate(double duplicateIndexFalsePositiveRate) { this.duplicateIndexFalsePositiveRate = duplicateIndexFalsePositiveRate; }
+
+        public int getDuplicateIndexFetchSize() { return duplicateIndexFetchSize; }
+        public void setDuplicateIndexFetchSize(int duplicateIndexFetchSize) { this.duplicateIndexFetchSize = duplicateIndexFetchSize; }
+
+        public long getDuplicateIndexRefreshMillis() { return duplicateIndexRefreshMillis; }
+        public void setDuplicateIndexRefreshMillis(long duplicateIndexRefreshMillis) { this.duplicateIndexRefreshMillis = duplicateIndexRefreshMillis; }
+
+        public boolean isPartitioned() { return partitioned; }
+        public void setPartitioned(boolean partitioned) { this.partitioned = partitioned; }
+
+        public int getGridSize() { return gridSize; }
+        public void setGridSize(int gridSize) { this.gridSize = gridSize; }
+
+        public int getPartitionThreads() { return partitionThreads; }
+        public void setPartitionThreads(int partitionThreads) { this.partitionThreads = partitionThreads; }
+
+        public PartitionMode getPartitionMode() { return partitionMode; }
+        public void setPartitionMode(PartitionMode partitionMode) { this.partitionMode = partitionMode; }
+
+        public boolean isPartitionWorkerEnabled() { return partitionWorkerEnabled; }
+        public void setPartitionWorkerEnabled(boolean partitionWorkerEnabled) { this.partitionWorkerEnabled = partitionWorkerEnabled; }
+
+        public long getPartitionLeaseMillis() { return partitionLeaseMillis; }
+        public void setPartitionLeaseMillis(long partitionLeaseMillis) { this.partitionLeaseMillis = partitionLeaseMillis; }
+
+        public long getPartitionPollMillis() { return partitionPollMillis; }
+        public void setPartitionPollMillis(long partitionPollMillis) { this.partitionPollMillis = partitionPollMillis; }
+
+        public int getPartitionMaxAttempts() { return partitionMaxAttempts; }
+        public void setPartitionMaxAttempts(int partitionMaxAttempts) { this.partitionMaxAttempts = partitionMaxAttempts; }
+
+        public long getPartitionClaimTimeoutMillis() { return partitionClaimTimeoutMillis; }
+        public void setPartitionClaimTimeoutMillis(long partitionClaimTimeoutMillis) { this.partitionClaimTimeoutMillis = partitionClaimTimeoutMillis; }
+
+        public boolean isSchedulerEnabled() { return schedulerEnabled; }
+        public void setSchedulerEnabled(boolean schedulerEnabled) { this.schedulerEnabled = schedulerEnabled; }
+
+        public WriterMode getWriterMode() { return writerMode; }
+        public void setWriterMode(WriterMode writerMode) { this.writerMode = writerMode; }
+
+        public ProcessingMode getProcessingMode() { return processingMode; }
+        public void setProcessingMode(ProcessingMode processingMode) { this.processingMode = processingMode; }
+
+        public int getAsyncConcurrencyLimit() { return asyncConcurrencyLimit; }
+        public void setAsyncConcurrencyLimit(int asyncConcurrencyLimit) { this.asyncConcurrencyLimit = asyncConcurrencyLimit; }
+
+        public int getDecompressionThreads() { return decompressionThreads; }
+        public void setDecompressionThreads(int decompressionThreads) { this.decompressionThreads = decompressionThreads; }
+
+        public int getReportSectionRowLimit() { return reportSectionRowLimit; }
+        public void setReportSectionRowLimit(int reportSectionRowLimit) { this.reportSectionRowLimit = reportSectionRowLimit; }
+
+        public int getVelocityMaxAccounts() { return velocityMaxAccounts; }
+        public void setVelocityMaxAccounts(int velocityMaxAccounts) { this.velocityMaxAccounts = velocityMaxAccounts; }
+
+        public int getVelocityHistorySize() { return velocityHistorySize; }
+        public void setVelocityHistorySize(int velocityHistorySize) { this.velocityHistorySize = velocityHistorySize; }
+
+        public String getFraudRulesFile() { return fraudRulesFile; }
+        public void setFraudRulesFile(String fraudRulesFile) { this.fraudRulesFile = fraudRulesFile; }
+
+        public int getJobLaunchThreads() { return jobLaunchThreads; }
+        public void setJobLaunchThreads(int jobLaunchThreads) { this.jobLaunchThreads = jobLaunchThreads; }
+
+        public int getJobLaunchQueueCapacity() { return jobLaunchQueueCapacity; }
+        public void setJobLaunchQueueCapacity(int jobLaunchQueueCapacity) { this.jobLaunchQueueCapacity = jobLaunchQueueCapacity; }
+
+        public boolean isStreamingEnabled() { return streamingEnabled; }
+        public void setStreamingEnabled(boolean streamingEnabled) { this.streamingEnabled = streamingEnabled; }
+
+        public int getStreamingBatchSize() { return streamingBatchSize; }
+        public void setStreamingBatchSize(int streamingBatchSize) { this.streamingBatchSize = streamingBatchSize; }
+
+        public long getStreamingMaxWaitMillis() { return streamingMaxWaitMillis; }
+        public void setStreamingMaxWaitMillis(long streamingMaxWaitMillis) { this.streamingMaxWaitMillis = streamingMaxWaitMillis; }
+
+        public int getStatusCounterStripes() { return statusCounterStripes; }
+        public void setStatusCounterStripes(int statusCounterStripes) { this.statusCounterStripes = statusCounterStripes; }
+
+        public long getStatusCacheMaxStalenessMillis() { return statusCacheMaxStalenessMillis; }
+        public void setStatusCacheMaxStalenessMillis(long statusCacheMaxStalenessMillis) { this.statusCacheMaxStalenessMillis = statusCacheMaxStalenessMillis; }
+
+        public int getRollupStripes() { return rollupStripes; }
+        public void setRollupStripes(int rollupStripes) { this.rollupStripes = rollupStripes; }
+
+        public boolean isQuarantineEnabled() { return quarantineEnabled; }
+        public void setQuarantineEnabled(boolean quarantineEnabled) { this.quarantineEnabled = quarantineEnabled; }
     }
 
     public static class Notification {
@@ -1,26 +1,95 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.config;
 
+import com.basit.cz.batchprocessingoffinancialtransactions.component.DatabasePartitionHandler;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.GzipTransactionFileReader;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.JdbcTransactionWriter;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.QuarantiningTransactionWriter;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.RollupRebuildPartitioner;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TailingTransactionFileReader;
 import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionCsvReader;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionDirectoryPartitioner;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionDuplicateChecker;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionFilePartitioner;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionLineParser;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
 import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionProcessor;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionStatisticsAccumulator;
 import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionWriter;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.FileWatermarkService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.PartitionWorkItemService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.QuarantineService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionRollupService;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.FileWatermarkListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.FraudRulesReloadListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.InputFileArchiveListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.JobCancellationListener;
 import com.basit.cz.batchprocessingoffinancialtransactions.listener.JobCompletionNotificationListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.TransactionIdIndexListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.TransactionMetricsListener;
 import com.basit.cz.batchprocessingoffinancialtransactions.listener.TransactionStepExecutionListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.ValidationTimeListener;
 import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemWriteListener;
 import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.SkipListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.explore.JobExplorer;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.listener.CompositeChunkListener;
+import org.springframework.batch.core.listener.CompositeItemReadListener;
+import org.springframework.batch.core.listener.CompositeItemProcessListener;
+import org.springframework.batch.core.listener.CompositeItemWriteListener;
+import org.springframework.batch.core.listener.CompositeStepExecutionListener;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.step.builder.PartitionStepBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.FaultTolerantStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.core.step.skip.AlwaysSkipItemSkipPolicy;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.integration.async.AsyncItemProcessor;
+import org.springframework.batch.integration.async.AsyncItemWriter;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import javax.sql.DataSource;
+
 @Configuration
 public class BatchConfiguration {
 
+    private static final Logger logger = LoggerFactory.getLogger(BatchConfiguration.class);
+
     @Autowired
     private ApplicationProperties appProperties;
 
@@ -33,17 +102,86 @@ public class BatchConfiguration {
     @Autowired
     private TransactionWriter writer;
 
+    @Autowired
+    private JdbcTransactionWriter jdbcWriter;
+
+    @Autowired
+    private TransactionDuplicateChecker duplicateChecker;
+
+    @Autowired
+    private TransactionStatisticsAccumulator statisticsAccumulator;
+
+    @Autowired
+    private TransactionFilePartitioner filePartitioner;
+
+    @Autowired
+    private TransactionDirectoryPartitioner directoryPartitioner;
+
+    @Autowired
+    private InputFileArchiveListener inputFileArchiveListener;
+
     @Autowired
     private JobCompletionNotificationListener jobCompletionListener;
 
     @Autowired
     private TransactionStepExecutionListener stepExecutionListener;
 
+    @Autowired
+    private TransactionIdIndexListener transactionIdIndexListener;
+
+    @Autowired
+    private TransactionMetricsListener metricsListener;
+
+    @Autowired
+    private ValidationTimeListener validationTimeListener;
+
+    @Autowired
+    private FraudRulesReloadListener fraudRulesReloadListener;
+
+    @Autowired
+    private JobCancellationListener jobCancellationListener;
+
+    @Autowired
+    private FileWatermarkListener fileWatermarkListener;
+
+    @Autowired
+    private FileWatermarkService watermarkService;
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Autowired
+    private RollupRebuildPartitioner rollupRebuildPartitioner;
+
+    @Autowired
+    private PartitionWorkItemService workItemService;
+
+    @Autowired
+    private QuarantineService quarantineService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionMetrics metrics;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
     @Bean
     public Job processTransactionsJob(JobRepository jobRepository, Step processTransactionsStep) {
         return new JobBuilder("processTransactionsJob", jobRepository)
                 .incrementer(new RunIdIncrementer())
+                .listener(transactionIdIndexListener)
+                .listener(fileWatermarkListener)
                 .listener(jobCompletionListener)
+                .listener(jobCancellationListener)
                 .start(processTransactionsStep)
                 .build();
     }
@@ -51,16 +189,478 @@ public class BatchConfiguration {
     @Bean
     public Step processTransactionsStep(JobRepository jobRepository,
                                         PlatformTransactionManager transactionManager) {
-        return new StepBuilder("processTransactionsStep", jobRepository)
-                .<FinancialTransaction, FinancialTransaction>chunk(appProperties.getBatch().getChunkSize(), transactionManager)
-                .reader(csvReader.csvFileItemReader())
-                .processor(processor)
-                .writer(writer)
-                .faultTolerant()
-                .skipLimit(appProperties.getBatch().getSkipLimit())
+        if (appProperties.getBatch().getInputDirectory() != null) {
+            return partitionStep("processTransactionsStep", jobRepository, directoryPartitioner,
+                    processTransactionsWorkerStep(jobRepository, transactionManager))
+                    .listener(stepExecutionListener)
+                    .build();
+        }
+
+        if (appProperties.getBatch().isPartitioned()) {
+            return partitionStep("processTransactionsStep", jobRepository, inputRangePartitioner(null, null),
+                    processTransactionsWorkerStep(jobRepository, transactionManager))
+                    .listener(stepExecutionListener)
+                    .build();
+        }
+
+        return chunkStep("processTransactionsStep", jobRepository, transactionManager,
+                csvItemReader(null, null), appProperties.getBatch().getChunkSize());
+    }
+
+    /**
+     * Reader over the byte range of the input file chosen for this run by
+     * {@link FileWatermarkListener}, or over the whole file.
+     */
+    @Bean
+    @StepScope
+    public ItemStreamReader<FinancialTransaction> csvItemReader(
+            @Value("#{jobExecutionContext['" + FileWatermarkListener.INPUT_START_OFFSET_KEY + "']}") Long startOffset,
+            @Value("#{jobExecutionContext['" + FileWatermarkListener.INPUT_END_OFFSET_KEY + "']}") Long endOffset) {
+        return csvReader.csvFileItemReader(orWholeResource(startOffset), orWholeResource(endOffset));
+    }
+
+    @Bean
+    @StepScope
+    public Partitioner inputRangePartitioner(
+            @Value("#{jobExecutionContext['" + FileWatermarkListener.INPUT_START_OFFSET_KEY + "']}") Long startOffset,
+            @Value("#{jobExecutionContext['" + FileWatermarkListener.INPUT_END_OFFSET_KEY + "']}") Long endOffset) {
+        return gridSize -> filePartitioner.partition(gridSize, orWholeResource(startOffset), orWholeResource(endOffset));
+    }
+
+    /**
+     * Worker step executed once per byte range of the input file, or once per file of the
+     * input directory. Each partition gets
+     * its own step-scoped reader, duplicate checker and statistics accumulator; the
+     * processor and writer are stateless and shared.
+     */
+    @Bean
+    public Step processTransactionsWorkerStep(JobRepository jobRepository,
+                                              PlatformTransactionManager transactionManager) {
+        return chunkStep("processTransactionsWorkerStep", jobRepository, transactionManager,
+                partitionedCsvItemReader(null, null, null), appProperties.getBatch().getChunkSize());
+    }
+
+    @Bean
+    @StepScope
+    public ItemStreamReader<FinancialTransaction> partitionedCsvItemReader(
+            @Value("#{stepExecutionContext['" + TransactionFilePartitioner.START_OFFSET_KEY + "']}") Long startOffset,
+            @Value("#{stepExecutionContext['" + TransactionFilePartitioner.END_OFFSET_KEY + "']}") Long endOffset,
+            @Value("#{stepExecutionContext['" + TransactionDirectoryPartitioner.INPUT_FILE_KEY + "']}") String inputFile) {
+        if (inputFile != null) {
+            return csvReader.csvFileItemReader(inputFile, startOffset, endOffset);
+        }
+        return csvReader.csvFileItemReader(startOffset, endOffset);
+    }
+
+    /**
+     * Long-running job that tails the input file, or the input directory, and pushes
+     * micro-batches through the same processor and writer as the batch job. It runs
+     * beside batch runs until it is stopped; see {@code TransactionStreamingService}.
+     * There is no duplicate index: the duplicate checker looks IDs up per chunk, which
+     * keeps memory flat however long the job runs.
+     */
+    @Bean
+    public Job streamTransactionsJob(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new JobBuilder("streamTransactionsJob", jobRepository)
+                .listener(jobCancellationListener)
+                .start(chunkStep("streamTransactionsStep", jobRepository, transactionManager,
+                        streamingItemReader(null), appProperties.getBatch().getStreamingBatchSize()))
+                .build();
+    }
+
+    /**
+     * Tailing reader of the streaming step. A single file is tailed from its watermark,
+     * which advances with every committed chunk; files read from the input directory are
+     * moved to the done folder.
+     */
+    @Bean
+    @StepScope
+    public TailingTransactionFileReader streamingItemReader(
+            @Value("#{stepExecution.jobExecutionId}") Long jobExecutionId) {
+        ApplicationProperties.Batch batch = appProperties.getBatch();
+        boolean directoryMode = batch.getInputDirectory() != null;
+        Path input = directoryMode ? Paths.get(batch.getInputDirectory()) : streamingInputFile();
+
+        TailingTransactionFileReader reader = new TailingTransactionFileReader(input,
+                directoryMode ? batch.getInputFilePattern() : null,
+                batch.getStreamingBatchSize(), batch.getStreamingMaxWaitMillis(), metrics);
+        reader.setStopRequested(() -> {
+            JobExecution execution = jobExplorer.getJobExecution(jobExecutionId);
+            return execution == null || execution.isStopping();
+        });
+
+        if (directoryMode) {
+            reader.setFinishedFileHandler(inputFileArchiveListener::moveToDone);
+        } else {
+            try {
+                reader.setStartOffset(Files.exists(input) ? watermarkService.resumeOffset(input) : 0);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read the watermark of " + input, e);
+            }
+            reader.setCommittedOffsetHandler((file, offset) -> {
+                try {
+                    watermarkService.advance(file, offset);
+                } catch (IOException e) {
+                    logger.warn("Failed to advance the watermark of {}: {}", file, e.getMessage());
+                }
+            });
+        }
+        return reader;
+    }
+
+    /**
+     * Re-injects the rows waiting in quarantine, usually after their lines were fixed,
+     * through the same processor and writer as the batch job. Rows written are marked
+     * replayed; rows that fail again stay quarantined with the new reason. A restart
+     * reads the rows still waiting, so the reader keeps no position.
+     */
+    @Bean
+    public Job replayQuarantineJob(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        ItemProcessor<FinancialTransaction, FinancialTransaction> replayProcessor = transaction -> {
+            FinancialTransaction result = processor.process(transaction);
+            if (result == null) {
+                quarantineService.quarantine(List.of(new QuarantineService.Rejection(transaction,
+                        QuarantineReason.DUPLICATE_ID, "transactionId is already stored")));
+            }
+            return result;
+        };
+
+        return new JobBuilder("replayQuarantineJob", jobRepository)
+                .listener(jobCancellationListener)
+                .start(chunkStep("replayQuarantineStep", jobRepository, transactionManager,
+                        quarantineReplayReader(), replayProcessor, quarantiningWriter(transactionItemWriter()),
+                        appProperties.getBatch().getChunkSize()))
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public JdbcCursorItemReader<FinancialTransaction> quarantineReplayReader() {
+        TransactionLineParser parser = new TransactionLineParser();
+        return new JdbcCursorItemReaderBuilder<FinancialTransaction>()
+                .name("quarantineReplayReader")
+                .dataSource(dataSource)
+                .sql(QuarantineService.REPLAY_SQL)
+                .rowMapper((rs, rowNum) -> {
+                    FinancialTransaction transaction = parser.parse(rs.getString("raw_line"));
+                    transaction.setQuarantineId(rs.getLong("id"));
+                    transaction.setSourceFile(rs.getString("source_file"));
+                    transaction.setSourceOffset(rs.getLong("source_offset"));
+                    return transaction;
+                })
+                .saveState(false)
+                .build();
+    }
+
+    /**
+     * Recomputes the daily rollups from the transactions: clears them, then rebuilds
+     * ranges of days in parallel on the partition pool. Each partition deletes its days
+     * and runs one INSERT ... SELECT per rollup table in one transaction, so a restart
+     * redoes only the ranges that did not commit. A range replaces what writers added to
+     * its days since the clear, and holds off writers of its JVM until it commits. Writers
+     * of other JVMs are not held off, so the clear and every range fail while partitions
+     * of another job wait in {@code partition_work_items} or are held by a live worker.
+     */
+    @Bean
+    public Job rebuildRollupsJob(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        Step clearStep = new StepBuilder("clearRollupsStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    checkNoPartitionWriters();
+                    rollupService.clear();
+                    return RepeatStatus.FINISHED;
+                }, transactionManager)
+                .build();
+
+        return new JobBuilder("rebuildRollupsJob", jobRepository)
+                .listener(jobCancellationListener)
+                .start(clearStep)
+                .next(partitionStep("rebuildRollupsStep", jobRepository, rollupRebuildPartitioner,
+                        rebuildRollupsWorkerStep(jobRepository, transactionManager))
+                        .build())
+                .build();
+    }
+
+    @Bean
+    public Step rebuildRollupsWorkerStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("rebuildRollupsWorkerStep", jobRepository)
+                .tasklet(rebuildRollupsTasklet(null, null), transactionManager)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public Tasklet rebuildRollupsTasklet(
+            @Value("#{stepExecutionContext['" + RollupRebuildPartitioner.FROM_DATE_KEY + "']}") String fromDate,
+            @Value("#{stepExecutionContext['" + RollupRebuildPartitioner.UNTIL_DATE_KEY + "']}") String untilDate) {
+        return (contribution, chunkContext) -> {
+            checkNoPartitionWriters();
+            long rows = rollupService.rebuild(LocalDate.parse(fromDate), LocalDate.parse(untilDate));
+            contribution.incrementWriteCount(rows);
+            return RepeatStatus.FINISHED;
+        };
+    }
+
+    private void checkNoPartitionWriters() {
+        if (workItemService.hasLiveWorkExcept("rebuildRollupsWorkerStep")) {
+            throw new IllegalStateException("Partitions of another job are being processed by workers; "
+                    + "rebuild the rollups once they have finished");
+        }
+    }
+
+    @Bean
+    public TaskExecutor partitionTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(appProperties.getBatch().getPartitionThreads());
+        executor.setMaxPoolSize(appProperties.getBatch().getPartitionThreads());
+        executor.setThreadNamePrefix("partition-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Threads that run jobs launched through {@code BatchJobService}. Launches beyond the
+     * pool size wait in the queue; a full queue fails the launch.
+     */
+    @Bean
+    public TaskExecutor jobLaunchTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(appProperties.getBatch().getJobLaunchThreads());
+        executor.setMaxPoolSize(appProperties.getBatch().getJobLaunchThreads());
+        executor.setQueueCapacity(appProperties.getBatch().getJobLaunchQueueCapacity());
+        executor.setThreadNamePrefix("job-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Virtual threads for async item processing. The concurrency limit blocks the step
+     * thread once that many items are in flight.
+     */
+    @Bean
+    public TaskExecutor asyncProcessingTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("process-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(appProperties.getBatch().getAsyncConcurrencyLimit());
+        return executor;
+    }
+
+    private Path streamingInputFile() {
+        String location = appProperties.getBatch().getInputFile();
+        try {
+            Resource resource = resourceLoader.getResource(location);
+            if (resource.isFile() && !GzipTransactionFileReader.isGzip(resource.getFile().toPath())) {
+                return resource.getFile().toPath();
+            }
+        } catch (IOException e) {
+            // Reported below
+        }
+        throw new IllegalStateException(
+                "Streaming needs an input directory or an uncompressed input file on the file system: " + location);
+    }
+
+    /**
+     * Partitioned step that runs its partitions on the partition pool, or with
+     * {@link PartitionMode#DATABASE} hands them to worker JVMs through the job repository
+     * database. The worker step must be a bean so that workers can look it up by name.
+     */
+    private PartitionStepBuilder partitionStep(String stepName, JobRepository jobRepository,
+                                               Partitioner partitioner, Step workerStep) {
+        ApplicationProperties.Batch batch = appProperties.getBatch();
+        PartitionStepBuilder builder = new StepBuilder(stepName, jobRepository)
+                .partitioner(workerStep.getName(), partitioner);
+
+        if (batch.getPartitionMode() == PartitionMode.DATABASE) {
+            return builder.partitionHandler(new DatabasePartitionHandler(workerStep.getName(), batch.getGridSize(),
+                    batch.getPartitionPollMillis(), batch.getPartitionClaimTimeoutMillis(), workItemService, jobExplorer, jobRepository));
+        }
+        return builder
+                .step(workerStep)
+                .gridSize(batch.getGridSize())
+                .taskExecutor(partitionTaskExecutor());
+    }
+
+    private static long orWholeResource(Long offset) {
+        return offset != null ? offset : TransactionFilePartitioner.WHOLE_RESOURCE;
+    }
+
+    private ItemWriter<FinancialTransaction> transactionItemWriter() {
+        return appProperties.getBatch().getWriterMode() == WriterMode.JDBC ? jdbcWriter : writer;
+    }
+
+    /**
+     * The writer of the batch and streaming steps, which diverts rows that would fail the
+     * write to quarantine unless that is turned off.
+     */
+    private ItemWriter<FinancialTransaction> chunkItemWriter() {
+        ItemWriter<FinancialTransaction> delegate = transactionItemWriter();
+        return appProperties.getBatch().isQuarantineEnabled() ? quarantiningWriter(delegate) : delegate;
+    }
+
+    private ItemWriter<FinancialTransaction> quarantiningWriter(ItemWriter<FinancialTransaction> delegate) {
+        return new QuarantiningTransactionWriter(delegate, quarantineService, validator, duplicateChecker::onQuarantined);
+    }
+
+    private Step chunkStep(String stepName,
+                           JobRepository jobRepository,
+                           PlatformTransactionManager transactionManager,
+                           ItemReader<FinancialTransaction> reader,
+                           int chunkSize) {
+        return chunkStep(stepName, jobRepository, transactionManager, reader, processor, chunkItemWriter(), chunkSize);
+    }
+
+    private Step chunkStep(String stepName,
+                           JobRepository jobRepository,
+                           PlatformTransactionManager transactionManager,
+                           ItemReader<FinancialTransaction> reader,
+                           ItemProcessor<FinancialTransaction, FinancialTransaction> itemProcessor,
+                           ItemWriter<FinancialTransaction> itemWriter,
+                           int chunkSize) {
+        if (appProperties.getBatch().getProcessingMode() == ProcessingMode.ASYNC) {
+            return asyncChunkStep(stepName, jobRepository, transactionManager, reader, itemProcessor, itemWriter,
+                    chunkSize);
+        }
+
+        FaultTolerantStepBuilder<FinancialTransaction, FinancialTransaction> builder = new StepBuilder(stepName, jobRepository)
+                .<FinancialTransaction, FinancialTransaction>chunk(chunkSize, transactionManager)
+                .reader(reader)
+                .processor(itemProcessor)
+                .writer(itemWriter)
+                .faultTolerant();
+        configureChunkStep(builder);
+        builder.listener((SkipListener<FinancialTransaction, FinancialTransaction>) duplicateChecker);
+        builder.listener((ItemWriteListener<FinancialTransaction>) statisticsAccumulator);
+        builder.listener((ItemProcessListener<FinancialTransaction, FinancialTransaction>) metricsListener);
+        builder.listener((ItemWriteListener<FinancialTransaction>) metricsListener);
+        return builder.build();
+    }
+
+    /**
+     * Chunk step whose items are processed concurrently on virtual threads. The step
+     * only sees futures: they are resolved in read order when the chunk is written, so
+     * writes, skips and rescans behave as in the serial step. Process and write listeners
+     * that need the transactions are called around the delegates instead of by the step,
+     * and write skips are passed on with the future resolved.
+     */
+    private Step asyncChunkStep(String stepName,
+                                JobRepository jobRepository,
+                                PlatformTransactionManager transactionManager,
+                                ItemReader<FinancialTransaction> reader,
+                                ItemProcessor<FinancialTransaction, FinancialTransaction> itemProcessor,
+                                ItemWriter<FinancialTransaction> itemWriter,
+                                int chunkSize) {
+        CompositeItemProcessListener<FinancialTransaction, FinancialTransaction> processListeners =
+                new CompositeItemProcessListener<>();
+        processListeners.register(metricsListener);
+        processListeners.register(new ItemProcessListener<>() {
+            // The failed future fails its write, so the item is skipped there
+            @Override
+            public void onProcessError(FinancialTransaction item, Exception e) {
+                duplicateChecker.onSkipInProcess(item, e);
+            }
+        });
+
+        AsyncItemProcessor<FinancialTransaction, FinancialTransaction> asyncProcessor = new AsyncItemProcessor<>();
+        asyncProcessor.setDelegate(listeningProcessor(itemProcessor, processListeners));
+        asyncProcessor.setTaskExecutor(asyncProcessingTaskExecutor());
+
+        CompositeItemWriteListener<FinancialTransaction> writeListeners = new CompositeItemWriteListener<>();
+        writeListeners.register(statisticsAccumulator);
+        writeListeners.register(metricsListener);
+
+        AsyncItemWriter<FinancialTransaction> asyncWriter = new AsyncItemWriter<>();
+        asyncWriter.setDelegate(listeningWriter(itemWriter, writeListeners));
+
+        FaultTolerantStepBuilder<FinancialTransaction, Future<FinancialTransaction>> builder = new StepBuilder(stepName, jobRepository)
+                .<FinancialTransaction, Future<FinancialTransaction>>chunk(chunkSize, transactionManager)
+                .reader(reader)
+                .processor(asyncProcessor)
+                .writer(asyncWriter)
+                .faultTolerant();
+        configureChunkStep(builder);
+        builder.listener(new SkipListener<FinancialTransaction, Future<FinancialTransaction>>() {
+            @Override
+            public void onSkipInWrite(Future<FinancialTransaction> item, Throwable t) {
+                FinancialTransaction transaction = processedItem(item);
+                if (transaction != null) {
+                    duplicateChecker.onSkipInWrite(transaction, t);
+                }
+            }
+        });
+        return builder.build();
+    }
+
+    /**
+     * Skip policy, listeners and streams shared by the serial and the async chunk step.
+     * Listeners are registered through composites of a single listener type: the step
+     * builder also registers step and chunk listeners for every item listener interface
+     * they implement, which would hand futures to them in the async step.
+     */
+    private void configureChunkStep(FaultTolerantStepBuilder<FinancialTransaction, ?> builder) {
+        CompositeStepExecutionListener stepListeners = new CompositeStepExecutionListener();
+        stepListeners.register(stepExecutionListener);
+        stepListeners.register(statisticsAccumulator);
+        stepListeners.register(inputFileArchiveListener);
+
+        CompositeItemReadListener<FinancialTransaction> readListeners = new CompositeItemReadListener<>();
+        readListeners.register(duplicateChecker);
+        readListeners.register(metricsListener);
+
+        builder.skipLimit(appProperties.getBatch().getSkipLimit())
                 .skip(Exception.class)
                 .skipPolicy(new AlwaysSkipItemSkipPolicy())
-                .listener(stepExecutionListener)
-                .build();
+                .listener(new CompositeChunkListener(
+                        validationTimeListener, fraudRulesReloadListener, duplicateChecker, metricsListener));
+        builder.listener(stepListeners);
+        builder.listener(readListeners);
+        builder.stream(statisticsAccumulator);
+    }
+
+    private static ItemProcessor<FinancialTransaction, FinancialTransaction> listeningProcessor(
+            ItemProcessor<FinancialTransaction, FinancialTransaction> delegate,
+            ItemProcessListener<FinancialTransaction, FinancialTransaction> listener) {
+        return item -> {
+            listener.beforeProcess(item);
+            FinancialTransaction result;
+            try {
+                result = delegate.process(item);
+            } catch (Exception e) {
+                listener.onProcessError(item, e);
+                throw e;
+            }
+            listener.afterProcess(item, result);
+            return result;
+        };
+    }
+
+    /**
+     * @return the item of a future that completed normally, or null if processing failed
+     * or filtered it
+     */
+    private static FinancialTransaction processedItem(Future<FinancialTransaction> future) {
+        if (!future.isDone()) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static ItemWriter<FinancialTransaction> listeningWriter(ItemWriter<FinancialTransaction> delegate,
+                                                                    ItemWriteListener<FinancialTransaction> listener) {
+        return items -> {
+            listener.beforeWrite(items);
+            try {
+                delegate.write(items);
+            } catch (Exception e) {
+                listener.onWriteError(e, items);
+                throw e;
+            }
+            listener.afterWrite(items);
+        };
     }
-}
\ No newline at end of file
+}
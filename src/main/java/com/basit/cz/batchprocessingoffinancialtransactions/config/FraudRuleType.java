@@ -0,0 +1,32 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.config;
+
+public enum FraudRuleType {
+    AMOUNT_ABOVE("Amount above a limit", 1),
+    HOUR_BETWEEN("Hour of day within a range, wrapping past midnight", 1),
+    DAY_OF_WEEK("Day of week in a set", 1),
+    TRANSACTION_TYPE_AMOUNT_ABOVE("Given transaction type with an amount above a limit", 2),
+    ROUND_AMOUNT("Amount is a multiple of a value", 4),
+    MERCHANT_CONTAINS("Merchant ID contains one of a set of substrings", 4),
+    VELOCITY_COUNT("Account transactions in a window at or above a count", 20),
+    VELOCITY_AMOUNT("Account transactions in a window adding up to more than a limit", 20),
+    VELOCITY_MERCHANTS("Distinct merchants of an account in a window at or above a count", 20);
+
+    private final String description;
+    private final int defaultCost;
+
+    FraudRuleType(String description, int defaultCost) {
+        this.description = description;
+        this.defaultCost = defaultCost;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Relative evaluation cost used to order rules that do not declare one.
+     */
+    public int getDefaultCost() {
+        return defaultCost;
+    }
+}
@@ -0,0 +1,16 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.config;
+
+public enum PartitionMode {
+    LOCAL("Partitions run on the partition thread pool of the JVM that runs the job"),
+    DATABASE("Partitions published as work items in the job repository database and claimed by worker JVMs");
+
+    private final String description;
+
+    PartitionMode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
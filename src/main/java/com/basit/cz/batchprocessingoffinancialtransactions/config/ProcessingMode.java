@@ -0,0 +1,16 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.config;
+
+public enum ProcessingMode {
+    SERIAL("Items processed one after another on the step thread"),
+    ASYNC("Items of a chunk processed concurrently on virtual threads, resolved at write time");
+
+    private final String description;
+
+    ProcessingMode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,18 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.config;
+
+public enum QuarantineReason {
+    INVALID_FIELD("A field is missing or fails a Bean Validation constraint of the entity"),
+    FIELD_TOO_LONG("A field is longer than its column"),
+    AMOUNT_OUT_OF_RANGE("The amount does not fit the amount column"),
+    DUPLICATE_ID("The transaction ID is already stored or occurs earlier in the chunk");
+
+    private final String description;
+
+    QuarantineReason(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,16 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.config;
+
+public enum QuarantineStatus {
+    QUARANTINED("Waiting to be fixed and replayed"),
+    REPLAYED("Written to the transactions table by a replay");
+
+    private final String description;
+
+    QuarantineStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,17 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.config;
+
+public enum WorkItemStatus {
+    PENDING("Waiting for a worker"),
+    CLAIMED("Leased by a worker, or by a dead worker until its lease expires"),
+    FINISHED("Partition step ended, whatever its status");
+
+    private final String description;
+
+    WorkItemStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,16 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.config;
+
+public enum WriterMode {
+    JPA("Repository saveAll through the JPA entity lifecycle"),
+    JDBC("Batched JDBC inserts with database-assigned ids");
+
+    private final String description;
+
+    WriterMode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
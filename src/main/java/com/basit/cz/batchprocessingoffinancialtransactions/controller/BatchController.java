@@ -1,19 +1,27 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.controller;
 
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.BatchJobService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionStatusCounterService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionStreamingService;
 import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
-import com.basit.cz.batchprocessingoffinancialtransactions.repository.FinancialTransactionRepository;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.JobProgress;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.core.Job;
-import org.springframework.batch.core.JobParameters;
-import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.launch.JobExecutionNotRunningException;
+import org.springframework.batch.core.launch.NoSuchJobExecutionException;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,32 +32,46 @@ public class BatchController {
     private static final Logger logger = LoggerFactory.getLogger(BatchController.class);
 
     @Autowired
-    private JobLauncher jobLauncher;
+    private BatchJobService batchJobService;
 
     @Autowired
-    private Job processTransactionsJob;
+    private TransactionStreamingService streamingService;
 
     @Autowired
-    private FinancialTransactionRepository repository;
+    private TransactionStatusCounterService statusCounters;
 
     @PostMapping("/run")
-    @Operation(summary = "Run the batch job for processing financial transactions", description = "Manually trigger the batch job to process financial transactions.")
+    @Operation(summary = "Run the batch job for processing financial transactions", description = "Starts the batch job in the background and returns its execution id without waiting for the run. Incremental runs only read what was appended to the input file since the last completed run.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Batch job started successfully"),
+            @ApiResponse(responseCode = "202", description = "Batch job started"),
+            @ApiResponse(responseCode = "409", description = "The streaming job is reading the input"),
+            @ApiResponse(responseCode = "503", description = "Too many batch jobs queued"),
             @ApiResponse(responseCode = "500", description = "Failed to start the batch job")
     })
-    public ResponseEntity<Map<String, Object>> runBatchJob() {
+    public ResponseEntity<Map<String, Object>> runBatchJob(
+            @RequestParam(defaultValue = "false") boolean incremental) {
         Map<String, Object> response = new HashMap<>();
 
+        // The streaming job already reads the input as it grows and moves its watermark
+        if (streamingService.isActive()) {
+            logger.info("Manual batch job execution refused, the streaming job is reading the input");
+            response.put("status", "error");
+            response.put("message", "The streaming job is reading the input");
+            streamingService.getExecutionId().ifPresent(id -> response.put("streamingExecutionId", id));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+
         try {
             logger.info("Manual batch job execution requested");
 
-            JobParameters jobParameters = new JobParametersBuilder()
-                    .addLong("startTime", System.currentTimeMillis())
-                    .addString("trigger", "Manual Execution")
-                    .toJobParameters();
+            JobExecution execution = batchJobService.launch("Manual Execution", incremental);
+            response.put("executionId", execution.getId());
 
-            jobLauncher.run(processTransactionsJob, jobParameters);
+            if (execution.getStatus() == BatchStatus.FAILED) {
+                response.put("status", "error");
+                response.put("message", "Batch job was not started: " + execution.getExitStatus().getExitDescription());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
 
             response.put("status", "success");
             response.put("message", "Batch job started successfully");
@@ -61,6 +83,87 @@ public class BatchController {
             return ResponseEntity.internalServerError().body(response);
         }
 
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/batch/executions/" + response.get("executionId")))
+                .body(response);
+    }
+
+    @GetMapping("/executions/{executionId}")
+    @Operation(summary = "Get the progress of a batch job execution", description = "Live read, write and skip counts of an execution, with rows per second and the estimated time left.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the execution progress"),
+            @ApiResponse(responseCode = "404", description = "Unknown execution")
+    })
+    public ResponseEntity<JobProgress> getExecution(@PathVariable long executionId) {
+        return ResponseEntity.of(batchJobService.getProgress(executionId));
+    }
+
+    @PostMapping("/executions/{executionId}/stop")
+    @Operation(summary = "Stop a batch job execution", description = "Stops a running execution after its current chunk. A stopped execution can be restarted.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Stop requested"),
+            @ApiResponse(responseCode = "404", description = "Unknown execution"),
+            @ApiResponse(responseCode = "409", description = "Execution is not running")
+    })
+    public ResponseEntity<Map<String, Object>> stopExecution(@PathVariable long executionId) {
+        return executionCommand(executionId, "Stop requested", () -> batchJobService.stop(executionId));
+    }
+
+    @PostMapping("/executions/{executionId}/restart")
+    @Operation(summary = "Restart a batch job execution", description = "Restarts a stopped or failed execution in the background, resuming after the work it already committed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Batch job restarted"),
+            @ApiResponse(responseCode = "404", description = "Unknown execution"),
+            @ApiResponse(responseCode = "409", description = "Execution is running, complete or abandoned")
+    })
+    public ResponseEntity<Map<String, Object>> restartExecution(@PathVariable long executionId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            JobExecution execution = batchJobService.restart(executionId);
+            response.put("executionId", execution.getId());
+            response.put("status", "success");
+            response.put("message", "Batch job restarted as execution " + execution.getId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/batch/executions/" + execution.getId()))
+                    .body(response);
+
+        } catch (NoSuchJobExecutionException e) {
+            response.put("status", "error");
+            response.put("message", "No job execution with id " + executionId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        } catch (JobExecutionAlreadyRunningException | JobInstanceAlreadyCompleteException | JobRestartException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            logger.error("Error restarting job execution {}: ", executionId, e);
+            response.put("status", "error");
+            response.put("message", "Failed to restart batch job: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    @PostMapping("/executions/{executionId}/cancel")
+    @Operation(summary = "Cancel a batch job execution", description = "Stops a running execution and abandons it, so it is never restarted.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Cancel requested"),
+            @ApiResponse(responseCode = "404", description = "Unknown execution"),
+            @ApiResponse(responseCode = "409", description = "Execution has already completed")
+    })
+    public ResponseEntity<Map<String, Object>> cancelExecution(@PathVariable long executionId) {
+        return executionCommand(executionId, "Cancel requested", () -> batchJobService.cancel(executionId));
+    }
+
+    @GetMapping("/streaming")
+    @Operation(summary = "Get the streaming job execution", description = "Whether streaming is enabled and the id of the streaming execution, whose progress is served under /executions.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the streaming execution")
+    })
+    public ResponseEntity<Map<String, Object>> getStreaming() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", streamingService.isEnabled());
+        streamingService.getExecutionId().ifPresent(id -> response.put("executionId", id));
         return ResponseEntity.ok(response);
     }
 
@@ -74,10 +177,11 @@ public class BatchController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            long validCount = repository.countByStatus(TransactionStatus.VALID);
-            long invalidCount = repository.countByStatus(TransactionStatus.INVALID);
-            long fraudulentCount = repository.countByStatus(TransactionStatus.FRAUDULENT);
-            long pendingCount = repository.countByStatus(TransactionStatus.PENDING);
+            Map<TransactionStatus, TransactionStatusCounterService.StatusTotals> totals = statusCounters.getTotals();
+            long validCount = totals.get(TransactionStatus.VALID).count();
+            long invalidCount = totals.get(TransactionStatus.INVALID).count();
+            long fraudulentCount = totals.get(TransactionStatus.FRAUDULENT).count();
+            long pendingCount = totals.get(TransactionStatus.PENDING).count();
 
             response.put("validTransactions", validCount);
             response.put("invalidTransactions", invalidCount);
@@ -93,4 +197,44 @@ public class BatchController {
 
         return ResponseEntity.ok(response);
     }
+
+    private ResponseEntity<Map<String, Object>> executionCommand(long executionId, String message,
+                                                                 ExecutionCommand command) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("executionId", executionId);
+
+        try {
+            command.run();
+            response.put("status", "success");
+            response.put("message", message);
+            return ResponseEntity.accepted().body(response);
+
+        } catch (NoSuchJobExecutionException e) {
+            response.put("status", "error");
+            response.put("message", "No job execution with id " + executionId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        } catch (JobExecutionNotRunningException e) {
+            response.put("status", "error");
+            response.put("message", "Job execution " + executionId + " is not running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (JobExecutionAlreadyRunningException e) {
+            response.put("status", "error");
+            response.put("message", "Job execution " + executionId + " is already running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (JobInstanceAlreadyCompleteException e) {
+            response.put("status", "error");
+            response.put("message", "Job execution " + executionId + " has already completed");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            logger.error("Error controlling job execution {}: ", executionId, e);
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExecutionCommand {
+        void run() throws Exception;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.controller;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.BatchJobService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.QuarantineService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.QuarantineStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.QuarantinedTransaction;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/batch/quarantine")
+public class QuarantineController {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuarantineController.class);
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private QuarantineService quarantineService;
+
+    @Autowired
+    private BatchJobService batchJobService;
+
+    @GetMapping
+    @Operation(summary = "List quarantined rows", description = "Rows diverted from the write with their raw line, reason code and source offset, in id order. Pass the last id as after to get the next page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the quarantined rows"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit"),
+            @ApiResponse(responseCode = "500", description = "Failed to retrieve the quarantined rows")
+    })
+    public ResponseEntity<Map<String, Object>> getQuarantined(
+            @RequestParam(defaultValue = "QUARANTINED") QuarantineStatus status,
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        if (limit < 1 || limit > MAX_LIMIT) {
+            response.put("status", "error");
+            response.put("message", "limit must be between 1 and " + MAX_LIMIT);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            List<QuarantinedTransaction> rows = quarantineService.find(status, after, limit);
+            response.put("items", rows);
+            response.put("count", rows.size());
+            response.put("total", quarantineService.count(status));
+        } catch (Exception e) {
+            logger.error("Error getting quarantined rows: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to get quarantined rows: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping(value = "/{id}", consumes = "text/plain")
+    @Operation(summary = "Fix a quarantined row", description = "Replaces the raw CSV line of a row waiting for replay with the request body.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Row updated"),
+            @ApiResponse(responseCode = "400", description = "Empty or too long line"),
+            @ApiResponse(responseCode = "404", description = "No such row waiting for replay")
+    })
+    public ResponseEntity<Map<String, Object>> fixQuarantined(@PathVariable long id, @RequestBody String rawLine) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+
+        String line = rawLine.strip();
+        if (line.isEmpty() || line.length() > QuarantineService.MAX_RAW_LINE_LENGTH || line.indexOf('\n') >= 0) {
+            response.put("status", "error");
+            response.put("message", "Body must be one CSV line of at most " + QuarantineService.MAX_RAW_LINE_LENGTH + " characters");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        if (!quarantineService.fix(id, line)) {
+            response.put("status", "error");
+            response.put("message", "No quarantined row " + id + " is waiting for replay");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/replay")
+    @Operation(summary = "Replay the quarantined rows", description = "Starts a job that re-injects every row waiting in quarantine through the processor and writer in the background and returns its execution id.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Replay started"),
+            @ApiResponse(responseCode = "503", description = "Too many batch jobs queued"),
+            @ApiResponse(responseCode = "500", description = "Failed to start the replay")
+    })
+    public ResponseEntity<Map<String, Object>> replay() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            JobExecution execution = batchJobService.launchQuarantineReplay("Manual Execution");
+            response.put("executionId", execution.getId());
+
+            if (execution.getStatus() == BatchStatus.FAILED) {
+                response.put("status", "error");
+                response.put("message", "Quarantine replay was not started: " + execution.getExitStatus().getExitDescription());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+
+            response.put("status", "success");
+            response.put("message", "Quarantine replay started successfully");
+
+        } catch (Exception e) {
+            logger.error("Error starting quarantine replay: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to start quarantine replay: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/batch/executions/" + response.get("executionId")))
+                .body(response);
+    }
+}
@@ -0,0 +1,138 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.controller;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.BatchJobService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionRollupService;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.DailyVolume;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.MerchantVolume;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
+
+    private static final int MAX_MERCHANTS = 1000;
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Autowired
+    private BatchJobService batchJobService;
+
+    @GetMapping("/daily-volume")
+    @Operation(summary = "Get the daily transaction volume", description = "Number and amount of transactions per day, transaction type and status, read from the daily rollups.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the daily volume"),
+            @ApiResponse(responseCode = "400", description = "from is after to"),
+            @ApiResponse(responseCode = "500", description = "Failed to retrieve the daily volume")
+    })
+    public ResponseEntity<Map<String, Object>> getDailyVolume(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Map<String, Object> response = new HashMap<>();
+        if (from.isAfter(to)) {
+            response.put("status", "error");
+            response.put("message", "from must not be after to");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            List<DailyVolume> volume = rollupService.getDailyVolume(from, to);
+            response.put("items", volume);
+            response.put("count", volume.size());
+        } catch (Exception e) {
+            logger.error("Error getting daily volume: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to get daily volume: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/merchants")
+    @Operation(summary = "Get the merchants with the largest volume", description = "Number and amount of transactions per merchant over a range of days, largest amount first, read from the daily rollups.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the merchant volume"),
+            @ApiResponse(responseCode = "400", description = "Invalid range or limit"),
+            @ApiResponse(responseCode = "500", description = "Failed to retrieve the merchant volume")
+    })
+    public ResponseEntity<Map<String, Object>> getTopMerchants(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "20") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        if (from.isAfter(to) || limit < 1 || limit > MAX_MERCHANTS) {
+            response.put("status", "error");
+            response.put("message", from.isAfter(to) ? "from must not be after to"
+                    : "limit must be between 1 and " + MAX_MERCHANTS);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            List<MerchantVolume> merchants = rollupService.getTopMerchants(from, to, limit);
+            response.put("items", merchants);
+            response.put("count", merchants.size());
+        } catch (Exception e) {
+            logger.error("Error getting merchant volume: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to get merchant volume: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/rollups/rebuild")
+    @Operation(summary = "Rebuild the daily rollups", description = "Starts a job that recomputes the daily rollups from the transactions in the background and returns its execution id. Run it while no transactions are being written.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Rebuild started"),
+            @ApiResponse(responseCode = "503", description = "Too many batch jobs queued"),
+            @ApiResponse(responseCode = "500", description = "Failed to start the rebuild")
+    })
+    public ResponseEntity<Map<String, Object>> rebuildRollups() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            JobExecution execution = batchJobService.launchRollupRebuild("Manual Execution");
+            response.put("executionId", execution.getId());
+
+            if (execution.getStatus() == BatchStatus.FAILED) {
+                response.put("status", "error");
+                response.put("message", "Rollup rebuild was not started: " + execution.getExitStatus().getExitDescription());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+
+            response.put("status", "success");
+            response.put("message", "Rollup rebuild started successfully");
+
+        } catch (Exception e) {
+            logger.error("Error starting rollup rebuild: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to start rollup rebuild: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/batch/executions/" + response.get("executionId")))
+                .body(response);
+    }
+}
@@ -0,0 +1,98 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.controller;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionQueryService;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.TransactionFilter;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.TransactionPage;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/transactions")
+public class TransactionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionController.class);
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private TransactionQueryService queryService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "List transactions a page at a time", description = "Returns transactions in timestamp order, of one account or with at least a fraud score, optionally within a timestamp range. Pass the returned nextCursor as 'after' to get the next page; it is absent on the last page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of transactions"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter, cursor or limit"),
+            @ApiResponse(responseCode = "500", description = "Failed to read transactions")
+    })
+    public ResponseEntity<Map<String, Object>> listTransactions(
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) Double minFraudScore,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            TransactionPage page = queryService.page(new TransactionFilter(accountNumber, minFraudScore, from, to),
+                    after, limit);
+            response.put("items", page.items());
+            response.put("count", page.items().size());
+            if (page.nextCursor() != null) {
+                response.put("nextCursor", page.nextCursor());
+            }
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            logger.error("Error listing transactions: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to list transactions: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(produces = NDJSON)
+    @Operation(summary = "Stream transactions as NDJSON", description = "Streams every matching transaction after the optional cursor, one JSON object per line, straight from a database cursor. Takes the same filters as the paged listing.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of transactions"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or cursor")
+    })
+    public ResponseEntity<StreamingResponseBody> streamTransactions(
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) Double minFraudScore,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String after) {
+        TransactionFilter filter = new TransactionFilter(accountNumber, minFraudScore, from, to);
+        try {
+            queryService.check(filter, after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        StreamingResponseBody body = output -> {
+            long count = queryService.writeNdjson(filter, after, output);
+            logger.debug("Streamed {} transactions", count);
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+}
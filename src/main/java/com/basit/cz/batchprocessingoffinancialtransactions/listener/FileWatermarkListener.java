@@ -0,0 +1,119 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.GzipTransactionFileReader;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.FileWatermarkService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Fixes the byte range of the input file a run consumes and advances the file's
+ * watermark when the run completes.
+ * <p>
+ * Runs with the {@value #INCREMENTAL_PARAMETER} job parameter set to true read from the
+ * watermark to the last complete line; other runs read the whole file. The range is
+ * saved in the job ExecutionContext before the first step, so a restarted run reads the
+ * same range.
+ */
+@Component
+public class FileWatermarkListener implements JobExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileWatermarkListener.class);
+
+    public static final String INCREMENTAL_PARAMETER = "incremental";
+    public static final String INPUT_START_OFFSET_KEY = "input.startOffset";
+    public static final String INPUT_END_OFFSET_KEY = "input.endOffset";
+    public static final String WATERMARK_OFFSET_KEY = "watermark.offset";
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private FileWatermarkService watermarkService;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        ExecutionContext context = jobExecution.getExecutionContext();
+        if (context.containsKey(WATERMARK_OFFSET_KEY)) {
+            return; // Restart: keep the range of the failed run
+        }
+        if (appProperties.getBatch().getInputDirectory() != null) {
+            return; // Processed files leave the input directory
+        }
+
+        Path file = inputFile();
+        boolean incremental = Boolean.parseBoolean(jobExecution.getJobParameters().getString(INCREMENTAL_PARAMETER));
+        if (file == null) {
+            if (incremental) {
+                logger.warn("Input {} is not an uncompressed file, incremental run reads all of it",
+                        appProperties.getBatch().getInputFile());
+            }
+            return;
+        }
+
+        try {
+            long endOffset = watermarkService.completeLinesEnd(file);
+            if (incremental) {
+                long startOffset = Math.min(watermarkService.resumeOffset(file), endOffset);
+                context.putLong(INPUT_START_OFFSET_KEY, startOffset);
+                context.putLong(INPUT_END_OFFSET_KEY, endOffset);
+                logger.info("Incremental run reads {} bytes [{}, {})", file.getFileName(), startOffset, endOffset);
+            }
+            context.putLong(WATERMARK_OFFSET_KEY, endOffset);
+            jobRepository.updateExecutionContext(jobExecution);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read the watermark of " + file, e);
+        }
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        ExecutionContext context = jobExecution.getExecutionContext();
+        Path file = inputFile();
+        if (jobExecution.getStatus() != BatchStatus.COMPLETED || file == null
+                || !context.containsKey(WATERMARK_OFFSET_KEY)) {
+            return;
+        }
+
+        try {
+            watermarkService.advance(file, context.getLong(WATERMARK_OFFSET_KEY));
+        } catch (Exception e) {
+            logger.error("Failed to advance the watermark of {}: ", file, e);
+        }
+    }
+
+    /**
+     * @return the input file, or null if the input is not a file or is compressed, since
+     * watermarks are offsets into the uncompressed lines
+     */
+    private Path inputFile() {
+        try {
+            Resource resource = resourceLoader.getResource(appProperties.getBatch().getInputFile());
+            if (!resource.isFile()) {
+                return null;
+            }
+            Path file = resource.getFile().toPath();
+            return GzipTransactionFileReader.isGzip(file) ? null : file;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
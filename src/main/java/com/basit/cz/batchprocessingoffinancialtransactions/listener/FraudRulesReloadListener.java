@@ -0,0 +1,19 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.FraudDetectionService;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FraudRulesReloadListener implements ChunkListener {
+
+    @Autowired
+    private FraudDetectionService fraudDetectionService;
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        fraudDetectionService.reloadIfChanged();
+    }
+}
@@ -0,0 +1,68 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionDirectoryPartitioner;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Moves the file of a completed directory partition to the done folder. Files of failed
+ * or stopped steps stay in place, so a restart finds them again and resumes each from its
+ * last committed offset.
+ */
+@Component
+public class InputFileArchiveListener implements StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InputFileArchiveListener.class);
+
+    @Autowired
+    private ApplicationProperties appProperties;
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (!stepExecution.getExecutionContext().containsKey(TransactionDirectoryPartitioner.INPUT_FILE_KEY)) {
+            return null;
+        }
+
+        Path file = Paths.get(URI.create(
+                stepExecution.getExecutionContext().getString(TransactionDirectoryPartitioner.INPUT_FILE_KEY)));
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED) {
+            moveToDone(file);
+        }
+        return null;
+    }
+
+    /**
+     * Move a fully processed input file to the done folder.
+     */
+    public void moveToDone(Path file) {
+        String directory = appProperties.getBatch().getDoneDirectory();
+        Path targetDirectory = directory != null ? Paths.get(directory) : file.resolveSibling("done");
+        try {
+            Files.createDirectories(targetDirectory);
+            Path target = targetDirectory.resolve(file.getFileName());
+            try {
+                Files.move(file, target);
+            } catch (FileAlreadyExistsException e) {
+                target = targetDirectory.resolve(file.getFileName() + "." + System.currentTimeMillis());
+                Files.move(file, target);
+            }
+            logger.info("Moved {} to {}", file, target);
+        } catch (IOException e) {
+            logger.error("Failed to move {} to {}: ", file, targetDirectory, e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Abandons cancelled executions once they have stopped, so a cancelled run is never
+ * restarted. The status is changed before the job saves its final state.
+ */
+@Component
+public class JobCancellationListener implements JobExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobCancellationListener.class);
+
+    private final Set<Long> cancelledExecutions = ConcurrentHashMap.newKeySet();
+
+    public void requestCancel(long executionId) {
+        cancelledExecutions.add(executionId);
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (cancelledExecutions.remove(jobExecution.getId())
+                && jobExecution.getStatus() == BatchStatus.STOPPED) {
+            jobExecution.setStatus(BatchStatus.ABANDONED);
+            logger.info("Job execution {} cancelled", jobExecution.getId());
+        }
+    }
+}
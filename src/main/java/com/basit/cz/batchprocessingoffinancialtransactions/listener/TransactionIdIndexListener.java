@@ -0,0 +1,24 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionIdIndexService;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TransactionIdIndexListener implements JobExecutionListener {
+
+    @Autowired
+    private TransactionIdIndexService indexService;
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        indexService.buildIndex(jobExecution.getId());
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        indexService.releaseIndex(jobExecution.getId());
+    }
+}
@@ -0,0 +1,97 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds chunk latency, committed row counts and skips of one step into
+ * {@link TransactionMetrics}. Row and skip counts are taken as deltas of the StepExecution
+ * counters after each commit, so rolled-back attempts are not counted.
+ * <p>
+ * Skips are not counted from SkipListener callbacks: after a write failure the
+ * fault-tolerant step rescans the chunk item by item and drops the write-skip callbacks
+ * of those rescans. The error hooks only remember the last exception type per phase so
+ * the skip counters can be tagged with a reason.
+ */
+@Component
+@StepScope
+public class TransactionMetricsListener implements ChunkListener, ItemReadListener<FinancialTransaction>,
+        ItemProcessListener<FinancialTransaction, FinancialTransaction>, ItemWriteListener<FinancialTransaction> {
+
+    @Autowired
+    private TransactionMetrics metrics;
+
+    private long chunkStartNanos;
+    private long lastReadCount;
+    private long lastWriteCount;
+    private long lastFilterCount;
+    private long lastReadSkipCount;
+    private long lastProcessSkipCount;
+    private long lastWriteSkipCount;
+
+    private Class<? extends Throwable> lastReadError;
+    private Class<? extends Throwable> lastProcessError;
+    private Class<? extends Throwable> lastWriteError;
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        chunkStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        long readCount = stepExecution.getReadCount();
+        long writeCount = stepExecution.getWriteCount();
+        long filterCount = stepExecution.getFilterCount();
+
+        metrics.recordCommittedChunk(chunkStartNanos,
+                readCount - lastReadCount, writeCount - lastWriteCount, filterCount - lastFilterCount);
+
+        lastReadCount = readCount;
+        lastWriteCount = writeCount;
+        lastFilterCount = filterCount;
+
+        long readSkipCount = stepExecution.getReadSkipCount();
+        long processSkipCount = stepExecution.getProcessSkipCount();
+        long writeSkipCount = stepExecution.getWriteSkipCount();
+
+        metrics.recordSkips("read", lastReadError, readSkipCount - lastReadSkipCount);
+        metrics.recordSkips("process", lastProcessError, processSkipCount - lastProcessSkipCount);
+        metrics.recordSkips("write", lastWriteError, writeSkipCount - lastWriteSkipCount);
+
+        lastReadSkipCount = readSkipCount;
+        lastProcessSkipCount = processSkipCount;
+        lastWriteSkipCount = writeSkipCount;
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        metrics.recordRolledBackChunk(chunkStartNanos);
+    }
+
+    @Override
+    public void onReadError(Exception ex) {
+        lastReadError = ex.getClass();
+    }
+
+    @Override
+    public void onProcessError(FinancialTransaction item, Exception e) {
+        lastProcessError = e.getClass();
+    }
+
+    @Override
+    public void onWriteError(Exception exception, Chunk<? extends FinancialTransaction> items) {
+        lastWriteError = exception.getClass();
+    }
+}
@@ -19,10 +19,11 @@ public class TransactionStepExecutionListener implements StepExecutionListener {
 
     @Override
     public ExitStatus afterStep(StepExecution stepExecution) {
-        logger.info("Step {} completed. Read: {}, Written: {}, Skipped: {}",
+        logger.info("Step {} completed. Read: {}, Written: {}, Filtered: {}, Skipped: {}",
                 stepExecution.getStepName(),
                 stepExecution.getReadCount(),
                 stepExecution.getWriteCount(),
+                stepExecution.getFilterCount(),
                 stepExecution.getSkipCount());
 
         if (stepExecution.getSkipCount() > 0) {
@@ -0,0 +1,39 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Holds the reference time for future-dated checks of one step's current chunk, so
+ * validation does not read the clock per row. The time is taken when the first row of
+ * the chunk is validated, after the chunk has been read: a streaming read can wait for
+ * data for minutes, and rows stamped when they arrive must not be ahead of it. Step
+ * scoped, so concurrent steps and partitions each keep their own.
+ */
+@Component
+@StepScope
+public class ValidationTimeListener implements ChunkListener {
+
+    private volatile LocalDateTime validationTime;
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        validationTime = null;
+    }
+
+    /**
+     * @return the time rows of the current chunk are checked against
+     */
+    public LocalDateTime getValidationTime() {
+        LocalDateTime time = validationTime;
+        if (time == null) {
+            time = LocalDateTime.now();
+            validationTime = time;
+        }
+        return time;
+    }
+}
@@ -0,0 +1,65 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts as a {@code long} count of cents, so the processing hot path compares and sums
+ * them without allocating. An amount that is missing, has a nonzero digit past the cents
+ * or does not fit in a long has no cents value and is {@link #NONE}; code that meets one
+ * falls back to the exact {@link BigDecimal}.
+ */
+public final class AmountCents {
+
+    /**
+     * No cents value. Also excludes {@code Long.MIN_VALUE} cents themselves, which such
+     * amounts handle through the BigDecimal fallback.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private AmountCents() {
+    }
+
+    /**
+     * @return the exact cents of an amount, or {@link #NONE} if it has none
+     */
+    public static long of(BigDecimal amount) {
+        if (amount == null) {
+            return NONE;
+        }
+        BigDecimal cents = amount.movePointRight(2);
+        if (cents.scale() > 0 && cents.stripTrailingZeros().scale() > 0) {
+            return NONE; // A fraction of a cent
+        }
+        if (cents.compareTo(MIN_CENTS) <= 0 || cents.compareTo(MAX_CENTS) > 0) {
+            return NONE;
+        }
+        return cents.longValue();
+    }
+
+    /**
+     * @return the cents as an amount with scale 2
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * The largest whole number of cents not above a limit, saturated to the long range.
+     * For every cents value {@code c}, {@code c > floorOf(limit)} exactly when the amount
+     * of {@code c} is above {@code limit}, so limits compile to a single long comparison.
+     */
+    public static long floorOf(BigDecimal limit) {
+        BigDecimal cents = limit.movePointRight(2);
+        if (cents.compareTo(MAX_CENTS) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (cents.compareTo(MIN_CENTS) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return cents.setScale(0, RoundingMode.FLOOR).longValueExact();
+    }
+}
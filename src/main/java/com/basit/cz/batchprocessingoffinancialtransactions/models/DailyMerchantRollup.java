@@ -0,0 +1,86 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import jakarta.persistence.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One stripe of the row count and amount of a day's transactions at one merchant, kept
+ * up to date by the writers. Transactions without a merchant are counted under an empty
+ * merchant id.
+ */
+@Entity
+@Table(name = "daily_merchant_rollups")
+@IdClass(DailyMerchantRollup.Key.class)
+public class DailyMerchantRollup {
+
+    @Id
+    @Column(name = "transaction_date")
+    private LocalDate transactionDate;
+
+    @Id
+    @Column(name = "merchant_id")
+    private String merchantId;
+
+    @Id
+    @Column(name = "stripe")
+    private int stripe;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "amount_cents", nullable = false)
+    private long amountCents;
+
+    public DailyMerchantRollup() {
+    }
+
+    // Getters and Setters
+    public LocalDate getTransactionDate() { return transactionDate; }
+    public void setTransactionDate(LocalDate transactionDate) { this.transactionDate = transactionDate; }
+
+    public String getMerchantId() { return merchantId; }
+    public void setMerchantId(String merchantId) { this.merchantId = merchantId; }
+
+    public int getStripe() { return stripe; }
+    public void setStripe(int stripe) { this.stripe = stripe; }
+
+    public long getRowCount() { return rowCount; }
+    public void setRowCount(long rowCount) { this.rowCount = rowCount; }
+
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate transactionDate;
+        private String merchantId;
+        private int stripe;
+
+        public Key() {
+        }
+
+        public Key(LocalDate transactionDate, String merchantId, int stripe) {
+            this.transactionDate = transactionDate;
+            this.merchantId = merchantId;
+            this.stripe = stripe;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(transactionDate, key.transactionDate)
+                    && Objects.equals(merchantId, key.merchantId) && stripe == key.stripe;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(transactionDate, merchantId, stripe);
+        }
+    }
+}
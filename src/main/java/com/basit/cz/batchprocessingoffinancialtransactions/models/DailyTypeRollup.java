@@ -0,0 +1,97 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import jakarta.persistence.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One stripe of the row count and amount of a day's transactions of one type and status,
+ * kept up to date by the writers. A day's totals are the sums over its stripes.
+ */
+@Entity
+@Table(name = "daily_type_rollups")
+@IdClass(DailyTypeRollup.Key.class)
+public class DailyTypeRollup {
+
+    @Id
+    @Column(name = "transaction_date")
+    private LocalDate transactionDate;
+
+    @Id
+    @Column(name = "transaction_type")
+    private String transactionType;
+
+    @Id
+    @Column(name = "status", length = 20)
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status;
+
+    @Id
+    @Column(name = "stripe")
+    private int stripe;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "amount_cents", nullable = false)
+    private long amountCents;
+
+    public DailyTypeRollup() {
+    }
+
+    // Getters and Setters
+    public LocalDate getTransactionDate() { return transactionDate; }
+    public void setTransactionDate(LocalDate transactionDate) { this.transactionDate = transactionDate; }
+
+    public String getTransactionType() { return transactionType; }
+    public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
+
+    public TransactionStatus getStatus() { return status; }
+    public void setStatus(TransactionStatus status) { this.status = status; }
+
+    public int getStripe() { return stripe; }
+    public void setStripe(int stripe) { this.stripe = stripe; }
+
+    public long getRowCount() { return rowCount; }
+    public void setRowCount(long rowCount) { this.rowCount = rowCount; }
+
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private LocalDate transactionDate;
+        private String transactionType;
+        private TransactionStatus status;
+        private int stripe;
+
+        public Key() {
+        }
+
+        public Key(LocalDate transactionDate, String transactionType, TransactionStatus status, int stripe) {
+            this.transactionDate = transactionDate;
+            this.transactionType = transactionType;
+            this.status = status;
+            this.stripe = stripe;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(transactionDate, key.transactionDate)
+                    && Objects.equals(transactionType, key.transactionType) && status == key.status
+                    && stripe == key.stripe;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(transactionDate, transactionType, status, stripe);
+        }
+    }
+}
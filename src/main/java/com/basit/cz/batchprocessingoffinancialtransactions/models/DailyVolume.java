@@ -0,0 +1,16 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Number and total amount of one day's transactions of a type and status.
+ */
+public record DailyVolume(LocalDate date,
+                          String transactionType,
+                          TransactionStatus status,
+                          long count,
+                          BigDecimal amount) {
+}
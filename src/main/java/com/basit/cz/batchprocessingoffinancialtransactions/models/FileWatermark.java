@@ -0,0 +1,70 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far into an input file the job has consumed: the offset just after the last
+ * processed line, a hash identifying the content before that offset, and the timestamp
+ * of the last transaction in it. Incremental runs start reading at the offset while
+ * the hash still matches.
+ */
+@Entity
+@Table(name = "file_watermark")
+public class FileWatermark {
+
+    @Id
+    @Column(name = "file_path", length = 512)
+    private String filePath;
+
+    @Column(name = "byte_offset", nullable = false)
+    private long byteOffset;
+
+    @Column(name = "prefix_hash", length = 64, nullable = false)
+    private String prefixHash;
+
+    @Column(name = "last_transaction_timestamp")
+    private LocalDateTime lastTransactionTimestamp;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public FileWatermark() {
+    }
+
+    public FileWatermark(String filePath) {
+        this.filePath = filePath;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+
+    public long getByteOffset() { return byteOffset; }
+    public void setByteOffset(long byteOffset) { this.byteOffset = byteOffset; }
+
+    public String getPrefixHash() { return prefixHash; }
+    public void setPrefixHash(String prefixHash) { this.prefixHash = prefixHash; }
+
+    public LocalDateTime getLastTransactionTimestamp() { return lastTransactionTimestamp; }
+    public void setLastTransactionTimestamp(LocalDateTime lastTransactionTimestamp) { this.lastTransactionTimestamp = lastTransactionTimestamp; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @Override
+    public String toString() {
+        return "FileWatermark{" +
+                "filePath='" + filePath + '\'' +
+                ", byteOffset=" + byteOffset +
+                ", lastTransactionTimestamp=" + lastTransactionTimestamp +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package com.basit.cz.batchprocessingoffinancialtransactions.models;
 
 import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 
@@ -8,7 +9,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "financial_transactions")
+@Table(name = "financial_transactions", indexes = {
+        // Keyset pagination on (timestamp, id), see FinancialTransactionRepository
+        @Index(name = "idx_transaction_timestamp_id", columnList = "timestamp, id"),
+        @Index(name = "idx_transaction_account_timestamp_id", columnList = "account_number, timestamp, id"),
+        // Report detail sections of one run
+        @Index(name = "idx_transaction_job_status", columnList = "job_execution_id, status")
+})
 public class FinancialTransaction {
 
     @Id
@@ -27,6 +34,10 @@ public class FinancialTransaction {
     @DecimalMin(value = "0.01", message = "Amount must be positive")
     private BigDecimal amount;
 
+    // Amount in cents for the processing hot path; the BigDecimal is built from it on demand
+    @Transient
+    private long amountCents = AmountCents.NONE;
+
     @Column(name = "transaction_type", nullable = false)
     @NotBlank(message = "Transaction type is required")
     private String transactionType;
@@ -58,6 +69,24 @@ public class FinancialTransaction {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Job execution that wrote the row
+    @Column(name = "job_execution_id")
+    private Long jobExecutionId;
+
+    // Where the row was read, so that a row diverted to quarantine can be traced back
+    @Transient
+    private String sourceFile;
+
+    @Transient
+    private long sourceOffset = -1;
+
+    @Transient
+    private int sourceLength = -1;
+
+    // Set on rows replayed from quarantine
+    @Transient
+    private Long quarantineId;
+
     // Constructors
     public FinancialTransaction() {
         this.createdAt = LocalDateTime.now();
@@ -78,6 +107,12 @@ public class FinancialTransaction {
         this.merchantId = merchantId;
     }
 
+    @PrePersist
+    public void prePersist() {
+        // The entity is persisted through its fields, so materialize the amount
+        getAmount();
+    }
+
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -93,8 +128,34 @@ public class FinancialTransaction {
     public String getAccountNumber() { return accountNumber; }
     public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
 
-    public BigDecimal getAmount() { return amount; }
-    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public BigDecimal getAmount() {
+        if (amount == null && amountCents != AmountCents.NONE) {
+            amount = AmountCents.toDecimal(amountCents);
+        }
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+        this.amountCents = AmountCents.of(amount);
+    }
+
+    /**
+     * @return the amount in cents, or {@link AmountCents#NONE} if it is missing or not a
+     * whole number of cents, in which case {@link #getAmount()} is authoritative
+     */
+    @JsonIgnore
+    public long getAmountCents() {
+        if (amountCents == AmountCents.NONE && amount != null) {
+            amountCents = AmountCents.of(amount); // Loaded by JPA, which sets only the column
+        }
+        return amountCents;
+    }
+
+    public void setAmountCents(long amountCents) {
+        this.amountCents = amountCents;
+        this.amount = null;
+    }
 
     public String getTransactionType() { return transactionType; }
     public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
@@ -123,13 +184,38 @@ public class FinancialTransaction {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public Long getJobExecutionId() { return jobExecutionId; }
+    public void setJobExecutionId(Long jobExecutionId) { this.jobExecutionId = jobExecutionId; }
+
+    @JsonIgnore
+    public String getSourceFile() { return sourceFile; }
+    public void setSourceFile(String sourceFile) { this.sourceFile = sourceFile; }
+
+    /**
+     * @return byte offset of the row's line in its source, or -1 if unknown
+     */
+    @JsonIgnore
+    public long getSourceOffset() { return sourceOffset; }
+    public void setSourceOffset(long sourceOffset) { this.sourceOffset = sourceOffset; }
+
+    /**
+     * @return length in bytes of the row's line, without its line break, or -1 if unknown
+     */
+    @JsonIgnore
+    public int getSourceLength() { return sourceLength; }
+    public void setSourceLength(int sourceLength) { this.sourceLength = sourceLength; }
+
+    @JsonIgnore
+    public Long getQuarantineId() { return quarantineId; }
+    public void setQuarantineId(Long quarantineId) { this.quarantineId = quarantineId; }
+
     @Override
     public String toString() {
         return "FinancialTransaction{" +
                 "id=" + id +
                 ", transactionId='" + transactionId + '\'' +
                 ", accountNumber='" + accountNumber + '\'' +
-                ", amount=" + amount +
+                ", amount=" + getAmount() +
                 ", status=" + status +
                 '}';
     }
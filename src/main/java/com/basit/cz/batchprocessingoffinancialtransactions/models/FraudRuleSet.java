@@ -0,0 +1,83 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.FraudRuleType;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fraud rule definitions as read from the rules file. A transaction is fraudulent when
+ * the weights of the rules it matches add up to more than the threshold.
+ */
+public class FraudRuleSet {
+
+    private double threshold = 0.7;
+    private List<Rule> rules = new ArrayList<>();
+
+    public double getThreshold() { return threshold; }
+    public void setThreshold(double threshold) { this.threshold = threshold; }
+
+    public List<Rule> getRules() { return rules; }
+    public void setRules(List<Rule> rules) { this.rules = rules; }
+
+    /**
+     * One rule. Which parameters apply depends on the type; amounts left empty default to
+     * {@code app.batch.fraud-threshold}.
+     */
+    public static class Rule {
+        private String name;
+        private FraudRuleType type;
+        private double weight;
+        private Integer cost;
+        private boolean enabled = true;
+        private BigDecimal amount;
+        private String transactionType;
+        private int fromHour;
+        private int toHour;
+        private List<DayOfWeek> days = new ArrayList<>();
+        private List<String> values = new ArrayList<>();
+        private int windowMinutes;
+        private int count;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public FraudRuleType getType() { return type; }
+        public void setType(FraudRuleType type) { this.type = type; }
+
+        public double getWeight() { return weight; }
+        public void setWeight(double weight) { this.weight = weight; }
+
+        public Integer getCost() { return cost; }
+        public void setCost(Integer cost) { this.cost = cost; }
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public BigDecimal getAmount() { return amount; }
+        public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+        public String getTransactionType() { return transactionType; }
+        public void setTransactionType(String transactionType) { this.transactionType = transactionType; }
+
+        public int getFromHour() { return fromHour; }
+        public void setFromHour(int fromHour) { this.fromHour = fromHour; }
+
+        public int getToHour() { return toHour; }
+        public void setToHour(int toHour) { this.toHour = toHour; }
+
+        public List<DayOfWeek> getDays() { return days; }
+        public void setDays(List<DayOfWeek> days) { this.days = days; }
+
+        public List<String> getValues() { return values; }
+        public void setValues(List<String> values) { this.values = values; }
+
+        public int getWindowMinutes() { return windowMinutes; }
+        public void setWindowMinutes(int windowMinutes) { this.windowMinutes = windowMinutes; }
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+    }
+}
@@ -0,0 +1,22 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Live counts of one job execution, summed over its chunk steps, with throughput and an
+ * estimate of the time left. {@code percentComplete} and {@code etaSeconds} are null
+ * when the input size or progress is not known yet.
+ */
+public record JobProgress(long executionId,
+                          String status,
+                          String exitCode,
+                          LocalDateTime startTime,
+                          LocalDateTime endTime,
+                          long readCount,
+                          long writeCount,
+                          long filterCount,
+                          long skipCount,
+                          double rowsPerSecond,
+                          Double percentComplete,
+                          Long etaSeconds) {
+}
@@ -0,0 +1,12 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and total amount of a merchant's transactions over a range of days. The
+ * merchant id is empty for transactions without a merchant.
+ */
+public record MerchantVolume(String merchantId,
+                             long count,
+                             BigDecimal amount) {
+}
@@ -0,0 +1,74 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.WorkItemStatus;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A partition of a step published for worker JVMs, one per partition step execution.
+ * A worker claims it by taking a lease until {@code leaseExpiresAt}, in milliseconds of
+ * the database clock, and renews the lease while the partition runs. A lease that runs
+ * out means the worker died, and any worker may claim the partition again.
+ */
+@Entity
+@Table(name = "partition_work_items", indexes = {
+        @Index(name = "idx_work_item_status", columnList = "status")
+})
+public class PartitionWorkItem {
+
+    @Id
+    @Column(name = "step_execution_id")
+    private Long stepExecutionId;
+
+    @Column(name = "job_execution_id", nullable = false)
+    private Long jobExecutionId;
+
+    // Name of the worker step bean that runs the partition
+    @Column(name = "step_name", length = 100, nullable = false)
+    private String stepName;
+
+    @Column(name = "status", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private WorkItemStatus status;
+
+    @Column(name = "worker_id")
+    private String workerId;
+
+    @Column(name = "lease_expires_at")
+    private Long leaseExpiresAt;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public PartitionWorkItem() {
+    }
+
+    // Getters and Setters
+    public Long getStepExecutionId() { return stepExecutionId; }
+    public void setStepExecutionId(Long stepExecutionId) { this.stepExecutionId = stepExecutionId; }
+
+    public Long getJobExecutionId() { return jobExecutionId; }
+    public void setJobExecutionId(Long jobExecutionId) { this.jobExecutionId = jobExecutionId; }
+
+    public String getStepName() { return stepName; }
+    public void setStepName(String stepName) { this.stepName = stepName; }
+
+    public WorkItemStatus getStatus() { return status; }
+    public void setStatus(WorkItemStatus status) { this.status = status; }
+
+    public String getWorkerId() { return workerId; }
+    public void setWorkerId(String workerId) { this.workerId = workerId; }
+
+    public Long getLeaseExpiresAt() { return leaseExpiresAt; }
+    public void setLeaseExpiresAt(Long leaseExpiresAt) { this.leaseExpiresAt = leaseExpiresAt; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
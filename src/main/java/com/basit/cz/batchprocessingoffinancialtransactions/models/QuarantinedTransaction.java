@@ -0,0 +1,99 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.QuarantineReason;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.QuarantineStatus;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row diverted from the transactions table at write time, with the line it was read
+ * from and where. Rows are only appended by the batch writers; fixing a row replaces
+ * its {@code rawLine}, and a replay marks it {@link QuarantineStatus#REPLAYED}.
+ */
+@Entity
+@Table(name = "quarantined_transactions", indexes = {
+        @Index(name = "idx_quarantine_status_id", columnList = "status, id")
+})
+public class QuarantinedTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transaction_id")
+    private String transactionId;
+
+    @Column(name = "source_file", length = 512)
+    private String sourceFile;
+
+    // Byte offset of the line in the source file, or -1 if it has none (e.g. gzip input)
+    @Column(name = "source_offset", nullable = false)
+    private long sourceOffset;
+
+    @Column(name = "reason_code", length = 30, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private QuarantineReason reasonCode;
+
+    @Column(name = "reason_detail", length = 1000)
+    private String reasonDetail;
+
+    @Column(name = "raw_line", length = 8192, nullable = false)
+    private String rawLine;
+
+    @Column(name = "status", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private QuarantineStatus status;
+
+    @Column(name = "job_execution_id")
+    private Long jobExecutionId;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "quarantined_at")
+    private LocalDateTime quarantinedAt;
+
+    @Column(name = "replayed_at")
+    private LocalDateTime replayedAt;
+
+    public QuarantinedTransaction() {
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTransactionId() { return transactionId; }
+    public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+
+    public String getSourceFile() { return sourceFile; }
+    public void setSourceFile(String sourceFile) { this.sourceFile = sourceFile; }
+
+    public long getSourceOffset() { return sourceOffset; }
+    public void setSourceOffset(long sourceOffset) { this.sourceOffset = sourceOffset; }
+
+    public QuarantineReason getReasonCode() { return reasonCode; }
+    public void setReasonCode(QuarantineReason reasonCode) { this.reasonCode = reasonCode; }
+
+    public String getReasonDetail() { return reasonDetail; }
+    public void setReasonDetail(String reasonDetail) { this.reasonDetail = reasonDetail; }
+
+    public String getRawLine() { return rawLine; }
+    public void setRawLine(String rawLine) { this.rawLine = rawLine; }
+
+    public QuarantineStatus getStatus() { return status; }
+    public void setStatus(QuarantineStatus status) { this.status = status; }
+
+    public Long getJobExecutionId() { return jobExecutionId; }
+    public void setJobExecutionId(Long jobExecutionId) { this.jobExecutionId = jobExecutionId; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getQuarantinedAt() { return quarantinedAt; }
+    public void setQuarantinedAt(LocalDateTime quarantinedAt) { this.quarantinedAt = quarantinedAt; }
+
+    public LocalDateTime getReplayedAt() { return replayedAt; }
+    public void setReplayedAt(LocalDateTime replayedAt) { this.replayedAt = replayedAt; }
+}
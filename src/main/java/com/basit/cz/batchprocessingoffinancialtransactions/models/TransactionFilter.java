@@ -0,0 +1,14 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Which transactions a query returns: those of one account or with at least a fraud
+ * score, or else all of them, within an optional timestamp range. Null fields do not
+ * restrict the query.
+ */
+public record TransactionFilter(String accountNumber,
+                                Double minFraudScore,
+                                LocalDateTime from,
+                                LocalDateTime to) {
+}
@@ -0,0 +1,10 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import java.util.List;
+
+/**
+ * One page of transactions in (timestamp, id) order. {@code nextCursor} fetches the
+ * page after it and is null on the last page.
+ */
+public record TransactionPage(List<FinancialTransaction> items, String nextCursor) {
+}
@@ -0,0 +1,147 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts and amount sums per {@link TransactionStatus} and per transaction type, plus a
+ * histogram of fraud scores in tenths, for the transactions written by one run. Kept in
+ * the step and job ExecutionContext so reports never have to aggregate the table.
+ * Amounts are summed as long cents; only amounts without a cents value and sums that
+ * would overflow are added as BigDecimal.
+ * <p>
+ * Not thread-safe; callers merge instances under their own lock.
+ */
+public class TransactionStatistics implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    public static final int FRAUD_SCORE_BUCKETS = 10;
+
+    private final Map<TransactionStatus, Totals> byStatus = new EnumMap<>(TransactionStatus.class);
+    private final Map<String, Totals> byType = new TreeMap<>();
+    private final long[] fraudScoreHistogram = new long[FRAUD_SCORE_BUCKETS];
+
+    public void record(FinancialTransaction transaction) {
+        long amountCents = transaction.getAmountCents();
+        BigDecimal amount = null;
+        if (amountCents == AmountCents.NONE) {
+            amountCents = 0;
+            amount = transaction.getAmount();
+        }
+
+        if (transaction.getStatus() != null) {
+            byStatus.computeIfAbsent(transaction.getStatus(), status -> new Totals()).add(1, amountCents, amount);
+        }
+        String type = transaction.getTransactionType() != null ? transaction.getTransactionType() : "UNKNOWN";
+        byType.computeIfAbsent(type, key -> new Totals()).add(1, amountCents, amount);
+
+        Double fraudScore = transaction.getFraudScore();
+        if (fraudScore != null) {
+            fraudScoreHistogram[bucket(fraudScore)]++;
+        }
+    }
+
+    public TransactionStatistics merge(TransactionStatistics other) {
+        other.byStatus.forEach((status, totals) ->
+                byStatus.computeIfAbsent(status, key -> new Totals()).add(totals));
+        other.byType.forEach((type, totals) ->
+                byType.computeIfAbsent(type, key -> new Totals()).add(totals));
+        for (int i = 0; i < FRAUD_SCORE_BUCKETS; i++) {
+            fraudScoreHistogram[i] += other.fraudScoreHistogram[i];
+        }
+        return this;
+    }
+
+    public TransactionStatistics copy() {
+        return new TransactionStatistics().merge(this);
+    }
+
+    public boolean isEmpty() {
+        return byType.isEmpty();
+    }
+
+    public long getCount(TransactionStatus status) {
+        Totals totals = byStatus.get(status);
+        return totals != null ? totals.count : 0;
+    }
+
+    public BigDecimal getAmount(TransactionStatus status) {
+        Totals totals = byStatus.get(status);
+        return totals != null ? totals.getAmount() : BigDecimal.ZERO;
+    }
+
+    public long getTotalCount() {
+        return byType.values().stream().mapToLong(Totals::getCount).sum();
+    }
+
+    public Map<TransactionStatus, Totals> getByStatus() {
+        return Collections.unmodifiableMap(byStatus);
+    }
+
+    public Map<String, Totals> getByType() {
+        return Collections.unmodifiableMap(byType);
+    }
+
+    /**
+     * @return row counts per fraud score bucket; bucket i covers [i/10, (i+1)/10), the last one includes 1.0
+     */
+    public long[] getFraudScoreHistogram() {
+        return fraudScoreHistogram.clone();
+    }
+
+    private static int bucket(double fraudScore) {
+        // Scores are sums of rule weights, so 0.7 may arrive as 0.6999999999999998
+        int bucket = (int) (fraudScore * FRAUD_SCORE_BUCKETS + 1e-9);
+        return Math.max(0, Math.min(FRAUD_SCORE_BUCKETS - 1, bucket));
+    }
+
+    public static class Totals implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private long count;
+        private long amountCents;
+        // Amounts without a cents value and cents that overflowed the sum, null if none
+        private BigDecimal amountRest;
+
+        /**
+         * @param amount an amount to add as BigDecimal, may be null
+         */
+        void add(long count, long amountCents, BigDecimal amount) {
+            this.count += count;
+            try {
+                this.amountCents = Math.addExact(this.amountCents, amountCents);
+            } catch (ArithmeticException e) {
+                addRest(AmountCents.toDecimal(amountCents));
+            }
+            if (amount != null) {
+                addRest(amount);
+            }
+        }
+
+        void add(Totals other) {
+            add(other.count, other.amountCents, other.amountRest);
+        }
+
+        private void addRest(BigDecimal amount) {
+            amountRest = amountRest != null ? amountRest.add(amount) : amount;
+        }
+
+        public long getCount() { return count; }
+
+        public BigDecimal getAmount() {
+            BigDecimal amount = AmountCents.toDecimal(amountCents);
+            return amountRest != null ? amount.add(amountRest) : amount;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import jakarta.persistence.*;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One stripe of the running row count and amount of the transactions with a status.
+ * Each status has the same number of stripes and a chunk adds to one of them, so chunks
+ * committing in parallel rarely wait on the same row. A status's totals are the sums
+ * over its stripes.
+ */
+@Entity
+@Table(name = "transaction_status_counters")
+@IdClass(TransactionStatusCounter.Key.class)
+public class TransactionStatusCounter {
+
+    @Id
+    @Column(name = "status", length = 20)
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status;
+
+    @Id
+    @Column(name = "stripe")
+    private int stripe;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "amount_cents", nullable = false)
+    private long amountCents;
+
+    public TransactionStatusCounter() {
+    }
+
+    // Getters and Setters
+    public TransactionStatus getStatus() { return status; }
+    public void setStatus(TransactionStatus status) { this.status = status; }
+
+    public int getStripe() { return stripe; }
+    public void setStripe(int stripe) { this.stripe = stripe; }
+
+    public long getRowCount() { return rowCount; }
+    public void setRowCount(long rowCount) { this.rowCount = rowCount; }
+
+    public long getAmountCents() { return amountCents; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+
+    public static class Key implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private TransactionStatus status;
+        private int stripe;
+
+        public Key() {
+        }
+
+        public Key(TransactionStatus status, int stripe) {
+            this.status = status;
+            this.stripe = stripe;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && status == key.status && stripe == key.stripe;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, stripe);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.repository;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FileWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FileWatermarkRepository extends JpaRepository<FileWatermark, String> {
+}
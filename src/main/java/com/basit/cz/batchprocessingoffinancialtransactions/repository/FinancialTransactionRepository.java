@@ -2,16 +2,26 @@ package com.basit.cz.batchprocessingoffinancialtransactions.repository;
 
 import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
 import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import jakarta.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface FinancialTransactionRepository extends JpaRepository<FinancialTransaction, Long> {
+public interface FinancialTransactionRepository extends JpaRepository<FinancialTransaction, Long>,
+        FinancialTransactionRepositoryCustom {
 
     // Count methods for reporting
     @Query("SELECT COUNT(t) FROM FinancialTransaction t WHERE t.status = :status")
@@ -23,6 +33,16 @@ public interface FinancialTransactionRepository extends JpaRepository<FinancialT
     // Find transactions by status
     List<FinancialTransaction> findByStatus(TransactionStatus status);
 
+    // Forward-only cursor for reports; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT t FROM FinancialTransaction t WHERE t.jobExecutionId IN :jobExecutionIds AND t.status = :status")
+    Stream<FinancialTransaction> streamByStatusWrittenBy(@Param("status") TransactionStatus status,
+                                                         @Param("jobExecutionIds") Collection<Long> jobExecutionIds);
+
     // Find transactions by fraud score threshold
     @Query("SELECT t FROM FinancialTransaction t WHERE t.fraudScore >= :threshold")
     List<FinancialTransaction> findByFraudScoreGreaterThanEqual(@Param("threshold") Double threshold);
@@ -35,10 +55,71 @@ public interface FinancialTransactionRepository extends JpaRepository<FinancialT
     // Find transactions by account number
     List<FinancialTransaction> findByAccountNumber(String accountNumber);
 
+    // Keyset pages and cursors ordered by (timestamp, id), starting after a position. The
+    // redundant timestamp >= bound lets the database seek the (..., timestamp, id) indexes to
+    // the position instead of scanning up to it, so deep pages cost the same as the first.
+    String AFTER_POSITION = " t.timestamp <= :to AND t.timestamp >= :afterTimestamp"
+            + " AND (t.timestamp > :afterTimestamp OR (t.timestamp = :afterTimestamp AND t.id > :afterId))"
+            + " ORDER BY t.timestamp, t.id";
+    String BY_ACCOUNT_AFTER = "SELECT t FROM FinancialTransaction t WHERE t.accountNumber = :accountNumber AND"
+            + AFTER_POSITION;
+    String BY_FRAUD_SCORE_AFTER = "SELECT t FROM FinancialTransaction t WHERE t.fraudScore >= :minFraudScore AND"
+            + AFTER_POSITION;
+    String BY_TIMESTAMP_AFTER = "SELECT t FROM FinancialTransaction t WHERE" + AFTER_POSITION;
+
+    @Query(BY_ACCOUNT_AFTER)
+    List<FinancialTransaction> findByAccountNumberAfter(@Param("accountNumber") String accountNumber,
+                                                        @Param("to") LocalDateTime to,
+                                                        @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                        @Param("afterId") long afterId, Limit limit);
+
+    @Query(BY_FRAUD_SCORE_AFTER)
+    List<FinancialTransaction> findByFraudScoreAfter(@Param("minFraudScore") double minFraudScore,
+                                                     @Param("to") LocalDateTime to,
+                                                     @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                     @Param("afterId") long afterId, Limit limit);
+
+    @Query(BY_TIMESTAMP_AFTER)
+    List<FinancialTransaction> findByTimestampAfter(@Param("to") LocalDateTime to,
+                                                    @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                    @Param("afterId") long afterId, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(BY_ACCOUNT_AFTER)
+    Stream<FinancialTransaction> streamByAccountNumberAfter(@Param("accountNumber") String accountNumber,
+                                                            @Param("to") LocalDateTime to,
+                                                            @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                            @Param("afterId") long afterId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(BY_FRAUD_SCORE_AFTER)
+    Stream<FinancialTransaction> streamByFraudScoreAfter(@Param("minFraudScore") double minFraudScore,
+                                                         @Param("to") LocalDateTime to,
+                                                         @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                         @Param("afterId") long afterId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(BY_TIMESTAMP_AFTER)
+    Stream<FinancialTransaction> streamByTimestampAfter(@Param("to") LocalDateTime to,
+                                                        @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                        @Param("afterId") long afterId);
+
     // Check for duplicate transaction ID
     boolean existsByTransactionId(String transactionId);
 
-    // Dashboard statistics
-    @Query("SELECT t.status, COUNT(t), SUM(t.amount) FROM FinancialTransaction t GROUP BY t.status")
-    List<Object[]> getStatusSummary();
+    // Resolve a whole chunk of transaction IDs with a single IN (...) lookup
+    @Query("SELECT t.transactionId FROM FinancialTransaction t WHERE t.transactionId IN :transactionIds")
+    List<String> findExistingTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
 }
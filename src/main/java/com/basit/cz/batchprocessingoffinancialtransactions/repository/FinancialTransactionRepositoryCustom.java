@@ -0,0 +1,9 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.repository;
+
+import java.util.List;
+
+public interface FinancialTransactionRepositoryCustom {
+
+    // Dashboard statistics: status, count and amount sum of every status with transactions
+    List<Object[]> getStatusSummary();
+}
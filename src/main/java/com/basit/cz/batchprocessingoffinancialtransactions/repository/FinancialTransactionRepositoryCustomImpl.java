@@ -0,0 +1,28 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.repository;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionStatusCounterService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves the status summary from the maintained status counters instead of a
+ * GROUP BY over the table, in the shape the former JPQL query returned.
+ */
+public class FinancialTransactionRepositoryCustomImpl implements FinancialTransactionRepositoryCustom {
+
+    @Autowired
+    private TransactionStatusCounterService statusCounters;
+
+    @Override
+    public List<Object[]> getStatusSummary() {
+        List<Object[]> summary = new ArrayList<>();
+        statusCounters.getTotals().forEach((status, totals) -> {
+            if (totals.count() > 0) {
+                summary.add(new Object[]{status, totals.count(), totals.amount()});
+            }
+        });
+        return summary;
+    }
+}
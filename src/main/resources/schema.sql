@@ -11,11 +11,80 @@ CREATE TABLE IF NOT EXISTS financial_transactions (
     fraud_score DECIMAL(5,2),
     error_message VARCHAR(1000),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    job_execution_id BIGINT
     );
 
 
 CREATE INDEX idx_transaction_status ON financial_transactions(status);
 CREATE INDEX idx_transaction_timestamp ON financial_transactions(timestamp);
 CREATE INDEX idx_account_number ON financial_transactions(account_number);
-CREATE INDEX idx_fraud_score ON financial_transactions(fraud_score);
\ No newline at end of file
+CREATE INDEX idx_fraud_score ON financial_transactions(fraud_score);
+CREATE INDEX idx_transaction_timestamp_id ON financial_transactions(timestamp, id);
+CREATE INDEX idx_transaction_account_timestamp_id ON financial_transactions(account_number, timestamp, id);
+CREATE INDEX idx_transaction_job_status ON financial_transactions(job_execution_id, status);
+
+CREATE TABLE IF NOT EXISTS file_watermark (
+    file_path VARCHAR(512) NOT NULL PRIMARY KEY,
+    byte_offset BIGINT NOT NULL,
+    prefix_hash VARCHAR(64) NOT NULL,
+    last_transaction_timestamp TIMESTAMP,
+    updated_at TIMESTAMP
+    );
+
+CREATE TABLE IF NOT EXISTS transaction_status_counters (
+    status VARCHAR(20) NOT NULL,
+    stripe INT NOT NULL,
+    row_count BIGINT NOT NULL,
+    amount_cents BIGINT NOT NULL,
+    PRIMARY KEY (status, stripe)
+    );
+
+CREATE TABLE IF NOT EXISTS daily_type_rollups (
+    transaction_date DATE NOT NULL,
+    transaction_type VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    stripe INT NOT NULL,
+    row_count BIGINT NOT NULL,
+    amount_cents BIGINT NOT NULL,
+    PRIMARY KEY (transaction_date, transaction_type, status, stripe)
+    );
+
+CREATE TABLE IF NOT EXISTS daily_merchant_rollups (
+    transaction_date DATE NOT NULL,
+    merchant_id VARCHAR(255) NOT NULL,
+    stripe INT NOT NULL,
+    row_count BIGINT NOT NULL,
+    amount_cents BIGINT NOT NULL,
+    PRIMARY KEY (transaction_date, merchant_id, stripe)
+    );
+
+CREATE TABLE IF NOT EXISTS partition_work_items (
+    step_execution_id BIGINT NOT NULL PRIMARY KEY,
+    job_execution_id BIGINT NOT NULL,
+    step_name VARCHAR(100) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    worker_id VARCHAR(255),
+    lease_expires_at BIGINT,
+    attempts INT NOT NULL,
+    updated_at TIMESTAMP
+    );
+
+CREATE INDEX idx_work_item_status ON partition_work_items(status);
+
+CREATE TABLE IF NOT EXISTS quarantined_transactions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    transaction_id VARCHAR(255),
+    source_file VARCHAR(512),
+    source_offset BIGINT NOT NULL,
+    reason_code VARCHAR(30) NOT NULL,
+    reason_detail VARCHAR(1000),
+    raw_line VARCHAR(8192) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    job_execution_id BIGINT,
+    attempts INT NOT NULL,
+    quarantined_at TIMESTAMP,
+    replayed_at TIMESTAMP
+    );
+
+CREATE INDEX idx_quarantine_status_id ON quarantined_transactions(status, id);
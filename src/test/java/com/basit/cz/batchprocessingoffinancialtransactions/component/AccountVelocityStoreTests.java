@@ -0,0 +1,43 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that account numbers which differ only in leading zeros keep separate
+ * velocity histories.
+ */
+class AccountVelocityStoreTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final int[] WINDOW = {3600};
+
+    @Test
+    void accountKeysKeepLeadingZeros() {
+        assertThat(AccountVelocityStore.accountKey("ACC012"))
+                .isNotEqualTo(AccountVelocityStore.accountKey("ACC0012"))
+                .isNotEqualTo(AccountVelocityStore.accountKey("ACC12"));
+        assertThat(AccountVelocityStore.accountKey("ACC999999999999999999")).isPositive();
+        assertThat(AccountVelocityStore.accountKey("ACC")).isEqualTo(-1);
+        assertThat(AccountVelocityStore.accountKey("ACC01x")).isEqualTo(-1);
+    }
+
+    @Test
+    void accountsDifferingInLeadingZerosHaveSeparateHistories() {
+        AccountVelocityStore store = new AccountVelocityStore(1024, 16);
+        store.record("ACC012", NOW.minusMinutes(2), 1000, "MERCHANT001");
+        store.record("ACC012", NOW.minusMinutes(1), 2000, "MERCHANT002");
+        store.record("ACC0012", NOW, 500, "MERCHANT001");
+
+        AccountVelocityStore.Window first = store.windows("ACC012", NOW, WINDOW)[0];
+        assertThat(first.count()).isEqualTo(2);
+        assertThat(first.amountCents()).isEqualTo(3000);
+
+        AccountVelocityStore.Window second = store.windows("ACC0012", NOW, WINDOW)[0];
+        assertThat(second.count()).isEqualTo(1);
+        assertThat(second.amountCents()).isEqualTo(500);
+    }
+}
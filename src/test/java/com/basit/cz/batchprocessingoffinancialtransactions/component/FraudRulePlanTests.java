@@ -0,0 +1,106 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FraudRuleSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the evaluation order of compiled rules, that a score adds up every rule that
+ * hits, and that incomplete rule definitions are rejected.
+ */
+class FraudRulePlanTests {
+
+    private static final BigDecimal DEFAULT_AMOUNT = new BigDecimal("10000");
+    // A Saturday night
+    private static final LocalDateTime NIGHT = LocalDateTime.of(2025, 3, 1, 23, 30);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TransactionMetrics metrics = new TransactionMetrics(registry);
+    private final AccountVelocityStore velocityStore = new AccountVelocityStore(1024, 16);
+
+    @Test
+    void rulesRunCheapestFirstAndHeavierFirstAmongEqualCosts() throws Exception {
+        FraudRulePlan plan = compile("""
+                {"threshold": 0.5, "rules": [
+                  {"name": "burst", "type": "VELOCITY_COUNT", "weight": 0.4, "windowMinutes": 10, "count": 3},
+                  {"name": "merchant", "type": "MERCHANT_CONTAINS", "weight": 0.1, "values": ["ATM"]},
+                  {"name": "weekend", "type": "DAY_OF_WEEK", "weight": 0.1, "days": ["SATURDAY"]},
+                  {"name": "big", "type": "AMOUNT_ABOVE", "weight": 0.3},
+                  {"name": "cheap-burst", "type": "VELOCITY_COUNT", "weight": 0.1, "windowMinutes": 10, "count": 3, "cost": 0},
+                  {"name": "disabled", "type": "AMOUNT_ABOVE", "weight": 0.9, "enabled": false}
+                ]}""");
+
+        assertThat(plan.getRuleNames()).containsExactly("cheap-burst", "big", "weekend", "merchant", "burst");
+        assertThat(plan.getThreshold()).isEqualTo(0.5);
+    }
+
+    @Test
+    void scoreAddsEveryRuleThatHits() throws Exception {
+        FraudRulePlan plan = compile("""
+                {"threshold": 0.5, "rules": [
+                  {"name": "big", "type": "AMOUNT_ABOVE", "weight": 0.3},
+                  {"name": "weekend", "type": "DAY_OF_WEEK", "weight": 0.1, "days": ["SATURDAY", "SUNDAY"]},
+                  {"name": "night", "type": "HOUR_BETWEEN", "weight": 0.2, "fromHour": 23, "toHour": 6},
+                  {"name": "merchant", "type": "MERCHANT_CONTAINS", "weight": 0.15, "values": ["atm"]},
+                  {"name": "burst", "type": "VELOCITY_COUNT", "weight": 0.2, "windowMinutes": 10, "count": 2}
+                ]}""");
+
+        FinancialTransaction transaction = transaction("20000.00", "ATM-042", NIGHT);
+        velocityStore.record("ACC12345", NIGHT.minusMinutes(1), 100, "ATM-042");
+        velocityStore.record("ACC12345", NIGHT, 2_000_000, "ATM-042");
+
+        // Every rule hits, even though the first ones already pass the threshold
+        double score = plan.score(transaction);
+        assertThat(score).isEqualTo(0.95);
+        assertThat(plan.isFraudulent(score)).isTrue();
+        assertThat(registry.counter(TransactionMetrics.FRAUD_RULE_HITS, "rule", "burst").count()).isEqualTo(1);
+
+        FinancialTransaction quiet = transaction("10.00", "MERCHANT001", NIGHT.withHour(12).plusDays(2));
+        quiet.setAccountNumber("ACC99999");
+        double quietScore = plan.score(quiet);
+        assertThat(quietScore).isZero();
+        assertThat(plan.isFraudulent(quietScore)).isFalse();
+    }
+
+    @Test
+    void incompleteRulesAreRejected() {
+        assertThatThrownBy(() -> compile("""
+                {"threshold": 0.5, "rules": [
+                  {"name": "same", "type": "AMOUNT_ABOVE", "weight": 0.3},
+                  {"name": "same", "type": "DAY_OF_WEEK", "weight": 0.1, "days": ["SATURDAY"]}
+                ]}""")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Duplicate");
+        assertThatThrownBy(() -> compile("""
+                {"threshold": 0.5, "rules": [
+                  {"name": "burst", "type": "VELOCITY_COUNT", "weight": 0.3, "count": 3}
+                ]}""")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("windowMinutes");
+        assertThatThrownBy(() -> compile("""
+                {"threshold": 0.5, "rules": [
+                  {"name": "night", "type": "HOUR_BETWEEN", "weight": 0.3, "fromHour": 24, "toHour": 6}
+                ]}""")).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("invalid hour");
+    }
+
+    private FraudRulePlan compile(String json) throws Exception {
+        return FraudRulePlan.compile(objectMapper.readValue(json, FraudRuleSet.class), DEFAULT_AMOUNT,
+                velocityStore, metrics);
+    }
+
+    private static FinancialTransaction transaction(String amount, String merchantId, LocalDateTime timestamp) {
+        FinancialTransaction transaction = new FinancialTransaction();
+        transaction.setTransactionId("TXN00001");
+        transaction.setAccountNumber("ACC12345");
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTransactionType("DEBIT");
+        transaction.setMerchantId(merchantId);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}
@@ -0,0 +1,269 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Reads the same CSV compressed as a single gzip member, as concatenated members split
+ * mid-line, and as BGZF blocks, checking each against the uncompressed file, and resumes
+ * each from a position saved in the middle of a member.
+ */
+class GzipTransactionFileReaderTests {
+
+    // Enough rows for several 256 KiB pieces and BGZF blocks
+    private static final int ROWS = 20_000;
+    private static final int THREADS = 2;
+    // Uncompressed bytes per block, as bgzip writes them
+    private static final int BGZF_BLOCK_DATA = 65280;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+
+    @TempDir
+    Path dir;
+
+    private ExecutorService executor;
+    private byte[] content;
+    private List<String> expected;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(THREADS);
+
+        StringBuilder csv = new StringBuilder("transactionId,accountNumber,amount,transactionType,description,timestamp,merchantId\n");
+        for (int row = 1; row <= ROWS; row++) {
+            csv.append(String.format("TXN%05d", row)).append(",ACC").append(10000 + row % 50)
+                    .append(',').append(row).append(".25,DEBIT,Purchase ").append("x".repeat(row % 40))
+                    .append(",2023-08-20T10:30:00,MERCHANT").append(row % 7).append('\n');
+        }
+        content = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        Path plain = Files.write(dir.resolve("transactions.csv"), content);
+        expected = readAll(new MappedTransactionFileReader(plain, 0, -1), new ExecutionContext());
+        assertThat(expected).hasSize(ROWS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void singleMemberMatchesUncompressedFile() throws Exception {
+        Path file = Files.write(dir.resolve("single.csv.gz"), member(content, 0, content.length, "transactions.csv"));
+
+        assertThat(GzipTransactionFileReader.isGzip(file)).isTrue();
+        assertThat(readAll(reader(file), new ExecutionContext())).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void concatenatedMembersMatchUncompressedFile() throws Exception {
+        Path file = Files.write(dir.resolve("members.csv.gz"), concatenatedMembers());
+
+        assertThat(readAll(reader(file), new ExecutionContext())).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void bgzfBlocksMatchUncompressedFile() throws Exception {
+        Path file = Files.write(dir.resolve("blocks.csv.gz"), bgzf());
+
+        assertThat(readAll(reader(file), new ExecutionContext())).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void singleMemberResumesInsideTheMember() throws Exception {
+        Path file = Files.write(dir.resolve("single.csv.gz"), member(content, 0, content.length, null));
+
+        assertResumesInsideMember(file, ROWS / 2, 0);
+    }
+
+    @Test
+    void concatenatedMembersResumeInsideAMember() throws Exception {
+        Path file = Files.write(dir.resolve("members.csv.gz"), concatenatedMembers());
+
+        assertResumesInsideMember(file, ROWS * 2 / 3, -1);
+    }
+
+    @Test
+    void bgzfResumesInsideABlock() throws Exception {
+        Path file = Files.write(dir.resolve("blocks.csv.gz"), bgzf());
+
+        assertResumesInsideMember(file, ROWS / 3, -1);
+    }
+
+    @Test
+    void corruptMemberFailsTheRead() throws Exception {
+        byte[] gzip = member(content, 0, content.length, null);
+        // Flip a bit of the CRC in the trailer
+        gzip[gzip.length - 8] ^= 1;
+        Path file = Files.write(dir.resolve("corrupt.csv.gz"), gzip);
+
+        assertThatThrownBy(() -> readAll(reader(file), new ExecutionContext()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("CRC");
+    }
+
+    /**
+     * Read {@code before} rows, save the position as a committed chunk would, and read
+     * the rest with a new reader opened from the saved context.
+     *
+     * @param expectedMemberOffset compressed offset the position must be saved at, or -1
+     *                             for any member after the first
+     */
+    private void assertResumesInsideMember(Path file, int before, long expectedMemberOffset) throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+        GzipTransactionFileReader first = reader(file);
+        first.open(executionContext);
+        List<String> read = new ArrayList<>();
+        try {
+            for (int i = 0; i < before; i++) {
+                read.add(describe(first.read()));
+            }
+            first.update(executionContext);
+        } finally {
+            first.close();
+        }
+
+        String prefix = "transactionCsvReader.";
+        long memberOffset = executionContext.getLong(prefix + GzipTransactionFileReader.MEMBER_OFFSET_KEY);
+        long memberDataOffset = executionContext.getLong(prefix + GzipTransactionFileReader.MEMBER_DATA_OFFSET_KEY);
+        if (expectedMemberOffset >= 0) {
+            assertThat(memberOffset).isEqualTo(expectedMemberOffset);
+        } else {
+            assertThat(memberOffset).isPositive();
+        }
+        assertThat(memberDataOffset).as("saved inside the member").isPositive();
+        assertThat(executionContext.getLong(prefix + MappedTransactionFileReader.BYTE_OFFSET_KEY)).isEqualTo(memberOffset);
+
+        read.addAll(readAll(reader(file), executionContext));
+        assertThat(read).containsExactlyElementsOf(expected);
+    }
+
+    private GzipTransactionFileReader reader(Path file) {
+        return new GzipTransactionFileReader(file, new TaskExecutorAdapter(executor), THREADS);
+    }
+
+    private static List<String> readAll(ItemStreamReader<FinancialTransaction> reader,
+                                        ExecutionContext executionContext) throws Exception {
+        List<String> rows = new ArrayList<>();
+        reader.open(executionContext);
+        try {
+            FinancialTransaction transaction;
+            while ((transaction = reader.read()) != null) {
+                rows.add(describe(transaction));
+            }
+        } finally {
+            reader.close();
+        }
+        return rows;
+    }
+
+    private static String describe(FinancialTransaction transaction) {
+        return String.join("|", transaction.getTransactionId(), transaction.getAccountNumber(),
+                transaction.getAmount().toPlainString(), transaction.getTransactionType(),
+                transaction.getDescription(), transaction.getTimestamp().toString(), transaction.getMerchantId());
+    }
+
+    /**
+     * The file in five members of uneven sizes, split in the middle of lines.
+     */
+    private byte[] concatenatedMembers() throws IOException {
+        int[] splits = {0, 1000, content.length / 3 + 17, content.length / 2 + 5, content.length - 333, content.length};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i + 1 < splits.length; i++) {
+            out.write(member(content, splits[i], splits[i + 1], null));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The file as BGZF blocks of at most {@value #BGZF_BLOCK_DATA} uncompressed bytes,
+     * followed by the empty end-of-file block.
+     */
+    private byte[] bgzf() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += BGZF_BLOCK_DATA) {
+            out.write(bgzfBlock(content, offset, Math.min(content.length, offset + BGZF_BLOCK_DATA)));
+        }
+        out.write(bgzfBlock(content, 0, 0));
+        return out.toByteArray();
+    }
+
+    private static byte[] member(byte[] data, int from, int to, String name) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header(name != null ? FNAME : 0));
+        if (name != null) {
+            out.write(name.getBytes(StandardCharsets.ISO_8859_1));
+            out.write(0);
+        }
+        out.write(deflate(data, from, to));
+        out.write(trailer(data, from, to));
+        return out.toByteArray();
+    }
+
+    private static byte[] bgzfBlock(byte[] data, int from, int to) throws IOException {
+        byte[] deflated = deflate(data, from, to);
+        // Header, extra field with the BC subfield, data and trailer
+        int blockSize = 10 + 8 + deflated.length + 8;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(header(FEXTRA));
+        out.write(new byte[]{6, 0, 'B', 'C', 2, 0, (byte) (blockSize - 1), (byte) ((blockSize - 1) >> 8)});
+        out.write(deflated);
+        out.write(trailer(data, from, to));
+        return out.toByteArray();
+    }
+
+    private static byte[] header(int flags) {
+        return new byte[]{0x1f, (byte) 0x8b, 8, (byte) flags, 0, 0, 0, 0, 0, (byte) 0xff};
+    }
+
+    private static byte[] deflate(byte[] data, int from, int to) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(data, from, to - from);
+            deflater.finish();
+            byte[] buffer = new byte[to - from + 1024];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] trailer(byte[] data, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(data, from, to - from);
+        long value = crc.getValue();
+        int size = to - from;
+        return new byte[]{
+                (byte) value, (byte) (value >> 8), (byte) (value >> 16), (byte) (value >> 24),
+                (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)};
+    }
+}
@@ -0,0 +1,61 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that refreshing the index with the rows a large run stored itself keeps the
+ * Bloom filter at its sized false-positive rate, while IDs of other writers are added.
+ */
+class TransactionIdIndexTests {
+
+    private static final int CAPACITY = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int PROBES = 100_000;
+
+    @Test
+    void refreshWithOwnRowsKeepsFalsePositiveRateBounded() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            filter.put("STORED" + i);
+        }
+        TransactionIdIndex index = new TransactionIdIndex(filter, CAPACITY / 2, CAPACITY / 2);
+        long id = CAPACITY / 2;
+
+        // A run five times the size of the filter, refreshed with its own committed rows
+        for (int i = 0; i < CAPACITY * 5; i++) {
+            String transactionId = "RUN" + i;
+            assertThat(index.claim(transactionId)).isTrue();
+            index.addStored(++id, transactionId);
+        }
+        // A few rows of another writer
+        for (int i = 0; i < 100; i++) {
+            index.addStored(++id, "OTHER" + i);
+        }
+
+        assertThat(index.getMaxStoredId()).isEqualTo(id);
+        assertThat(index.getStoredCount()).isEqualTo(CAPACITY / 2 + 100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(index.isDefinitelyNew("OTHER" + i)).isFalse();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (!index.isDefinitelyNew("NEW" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / PROBES).isLessThan(FALSE_POSITIVE_RATE * 2);
+    }
+
+    @Test
+    void ownRowsDoNotMakeAnEmptyTableLookStored() {
+        TransactionIdIndex index = new TransactionIdIndex(new BloomFilter(CAPACITY, FALSE_POSITIVE_RATE), 0, 0);
+        index.claim("RUN1");
+        index.addStored(1, "RUN1");
+
+        assertThat(index.getStoredCount()).isZero();
+        assertThat(index.isDefinitelyNew("NEW1")).isTrue();
+    }
+}
@@ -0,0 +1,321 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.FraudDetectionService;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.TransactionIdIndexService;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.BatchConfiguration;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.FraudRulesReloadListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.InputFileArchiveListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.TransactionMetricsListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.TransactionStepExecutionListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.ValidationTimeListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails a job part-way through its input file and restarts it, checking that every row
+ * is written exactly once and that the restart reads only the rows after the last
+ * committed chunk, for each reader that saves a byte offset. One case runs the
+ * fault-tolerant step the batch job itself is built with, so a chunk scan over a bad
+ * row comes before the failure.
+ */
+class TransactionReaderRestartTests {
+
+    private static final int ROWS = 2500;
+    private static final int CHUNK_SIZE = 100;
+    private static final int FAILING_ROW = 1234;
+    private static final int COMMITTED_BEFORE_FAILURE = (FAILING_ROW - 1) / CHUNK_SIZE * CHUNK_SIZE;
+    // Fails every write, so the fault-tolerant step scans its chunk and skips it
+    private static final int BAD_ROW = 150;
+
+    @TempDir
+    Path dir;
+
+    private EmbeddedDatabase database;
+    private JobRepository jobRepository;
+    private TaskExecutorJobLauncher jobLauncher;
+    private Path file;
+    private byte[] content;
+
+    private final List<String> written = new ArrayList<>();
+    private boolean failed;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("restart-" + UUID.randomUUID())
+                .addScript("/org/springframework/batch/core/schema-h2.sql")
+                .build();
+        JdbcTransactionManager transactionManager = new JdbcTransactionManager(database);
+
+        JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+        factory.setDataSource(database);
+        factory.setTransactionManager(transactionManager);
+        factory.afterPropertiesSet();
+        jobRepository = factory.getObject();
+
+        jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.afterPropertiesSet();
+
+        StringBuilder csv = new StringBuilder("transactionId,accountNumber,amount,transactionType,description,timestamp,merchantId\n");
+        for (int row = 1; row <= ROWS; row++) {
+            csv.append(transactionId(row)).append(",ACC").append(row % 50)
+                    .append(',').append(row).append(".25,DEBIT,Purchase ").append(row)
+                    .append(",2023-08-20T10:30:00,MERCHANT001\n");
+        }
+        content = csv.toString().getBytes(StandardCharsets.UTF_8);
+        file = dir.resolve("transactions.csv");
+        Files.write(file, content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void memoryMappedReaderResumesAfterLastCommittedChunk() throws Exception {
+        assertExactlyOnceAfterRestart(() -> new MappedTransactionFileReader(file, 0, -1));
+    }
+
+    @Test
+    void streamReaderResumesAfterLastCommittedChunk() throws Exception {
+        assertExactlyOnceAfterRestart(() -> new StreamTransactionReader(new ByteArrayResource(content), false));
+    }
+
+    @Test
+    void gzippedStreamReaderResumesAfterLastCommittedChunk() throws Exception {
+        byte[] gzipped = gzip(content);
+        assertExactlyOnceAfterRestart(() -> new StreamTransactionReader(new ByteArrayResource(gzipped), true));
+    }
+
+    @Test
+    void gzipFileReaderResumesAfterLastCommittedChunk() throws Exception {
+        Path gzipped = Files.write(dir.resolve("transactions.csv.gz"), gzip(content));
+        assertExactlyOnceAfterRestart(() -> gzipReader(gzipped));
+    }
+
+    @Test
+    void gzipFileReaderResumesInProductionChunkStep() throws Exception {
+        Path gzipped = Files.write(dir.resolve("transactions.csv.gz"), gzip(content));
+        JobParameters parameters = new JobParametersBuilder().addString("input", gzipped.toString()).toJobParameters();
+
+        JobExecution first = jobLauncher.run(productionJob(new FailingReader(gzipReader(gzipped))), parameters);
+        assertThat(first.getStatus()).isEqualTo(BatchStatus.FAILED);
+        assertThat(first.getStepExecutions().iterator().next().getWriteSkipCount()).isEqualTo(1);
+        assertThat(written).hasSize(COMMITTED_BEFORE_FAILURE - 1);
+
+        JobExecution restart = jobLauncher.run(productionJob(gzipReader(gzipped)), parameters);
+        assertThat(restart.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+        StepExecution step = restart.getStepExecutions().iterator().next();
+        assertThat(step.getReadCount()).isEqualTo(ROWS - COMMITTED_BEFORE_FAILURE);
+        assertThat(step.getWriteSkipCount()).isZero();
+
+        List<String> expected = new ArrayList<>(ROWS);
+        for (int row = 1; row <= ROWS; row++) {
+            if (row != BAD_ROW) {
+                expected.add(transactionId(row));
+            }
+        }
+        assertThat(written).containsExactlyElementsOf(expected);
+        // Totals of the failed run are restored from the step's saved context
+        assertThat(TransactionStatisticsAccumulator.forJob(restart).getTotalCount()).isEqualTo(ROWS - 1);
+    }
+
+    private void assertExactlyOnceAfterRestart(Supplier<ItemStreamReader<FinancialTransaction>> readers)
+            throws Exception {
+        JobParameters parameters = new JobParametersBuilder().addString("input", file.toString()).toJobParameters();
+
+        JobExecution first = jobLauncher.run(job(readers.get()), parameters);
+        assertThat(first.getStatus()).isEqualTo(BatchStatus.FAILED);
+        assertThat(written).hasSize(COMMITTED_BEFORE_FAILURE);
+
+        JobExecution restart = jobLauncher.run(job(readers.get()), parameters);
+        assertThat(restart.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+        StepExecution step = restart.getStepExecutions().iterator().next();
+        assertThat(step.getReadCount()).isEqualTo(ROWS - COMMITTED_BEFORE_FAILURE);
+
+        List<String> expected = new ArrayList<>(ROWS);
+        for (int row = 1; row <= ROWS; row++) {
+            expected.add(transactionId(row));
+        }
+        assertThat(written).containsExactlyElementsOf(expected);
+    }
+
+    private Job job(ItemStreamReader<FinancialTransaction> reader) {
+        ItemWriter<FinancialTransaction> writer = chunk -> {
+            for (FinancialTransaction transaction : chunk) {
+                if (!failed && transaction.getTransactionId().equals(transactionId(FAILING_ROW))) {
+                    failed = true;
+                    throw new IllegalStateException("Killed at row " + FAILING_ROW);
+                }
+            }
+            for (FinancialTransaction transaction : chunk) {
+                written.add(transaction.getTransactionId());
+            }
+        };
+
+        return new JobBuilder("restartJob", jobRepository)
+                .start(new StepBuilder("restartStep", jobRepository)
+                        .<FinancialTransaction, FinancialTransaction>chunk(CHUNK_SIZE, new JdbcTransactionManager(database))
+                        .reader(reader)
+                        .writer(writer)
+                        .build())
+                .build();
+    }
+
+    /**
+     * A job whose step is built by the batch configuration's own chunk step method, with
+     * its skip policy, listeners and streams, and a writer that fails on the bad row.
+     */
+    private Job productionJob(ItemStreamReader<FinancialTransaction> reader) {
+        ItemWriter<FinancialTransaction> writer = chunk -> {
+            for (FinancialTransaction transaction : chunk) {
+                if (transaction.getTransactionId().equals(transactionId(BAD_ROW))) {
+                    throw new IllegalStateException("Bad row " + BAD_ROW);
+                }
+            }
+            for (FinancialTransaction transaction : chunk) {
+                written.add(transaction.getTransactionId());
+            }
+        };
+        ItemProcessor<FinancialTransaction, FinancialTransaction> processor = transaction -> transaction;
+
+        Step step = ReflectionTestUtils.invokeMethod(productionConfiguration(), "chunkStep", "restartStep",
+                jobRepository, new JdbcTransactionManager(database), reader, processor, writer, CHUNK_SIZE);
+        return new JobBuilder("restartJob", jobRepository).start(step).build();
+    }
+
+    /**
+     * The configuration with the listeners its chunk steps register, created per run as
+     * the step scope would.
+     */
+    private static BatchConfiguration productionConfiguration() {
+        ApplicationProperties appProperties = new ApplicationProperties();
+        TransactionMetrics metrics = new TransactionMetrics(new SimpleMeterRegistry());
+
+        FraudDetectionService fraudDetectionService = new FraudDetectionService();
+        ReflectionTestUtils.setField(fraudDetectionService, "appProperties", appProperties);
+        ReflectionTestUtils.setField(fraudDetectionService, "velocityStore", new AccountVelocityStore(1024, 16));
+        ReflectionTestUtils.setField(fraudDetectionService, "metrics", metrics);
+        ReflectionTestUtils.setField(fraudDetectionService, "resourceLoader", new DefaultResourceLoader());
+        fraudDetectionService.loadRules();
+        FraudRulesReloadListener fraudRulesReloadListener = new FraudRulesReloadListener();
+        ReflectionTestUtils.setField(fraudRulesReloadListener, "fraudDetectionService", fraudDetectionService);
+
+        // No index is built for the job, so duplicates are not looked up
+        TransactionDuplicateChecker duplicateChecker = new TransactionDuplicateChecker();
+        ReflectionTestUtils.setField(duplicateChecker, "appProperties", appProperties);
+        ReflectionTestUtils.setField(duplicateChecker, "indexService", new TransactionIdIndexService());
+
+        TransactionMetricsListener metricsListener = new TransactionMetricsListener();
+        ReflectionTestUtils.setField(metricsListener, "metrics", metrics);
+
+        InputFileArchiveListener inputFileArchiveListener = new InputFileArchiveListener();
+        ReflectionTestUtils.setField(inputFileArchiveListener, "appProperties", appProperties);
+
+        BatchConfiguration configuration = new BatchConfiguration();
+        ReflectionTestUtils.setField(configuration, "appProperties", appProperties);
+        ReflectionTestUtils.setField(configuration, "stepExecutionListener", new TransactionStepExecutionListener());
+        ReflectionTestUtils.setField(configuration, "statisticsAccumulator", new TransactionStatisticsAccumulator());
+        ReflectionTestUtils.setField(configuration, "inputFileArchiveListener", inputFileArchiveListener);
+        ReflectionTestUtils.setField(configuration, "duplicateChecker", duplicateChecker);
+        ReflectionTestUtils.setField(configuration, "metricsListener", metricsListener);
+        ReflectionTestUtils.setField(configuration, "validationTimeListener", new ValidationTimeListener());
+        ReflectionTestUtils.setField(configuration, "fraudRulesReloadListener", fraudRulesReloadListener);
+        return configuration;
+    }
+
+    private static GzipTransactionFileReader gzipReader(Path file) {
+        return new GzipTransactionFileReader(file, new SimpleAsyncTaskExecutor(), 1);
+    }
+
+    private static String transactionId(int row) {
+        return String.format("TXN%05d", row);
+    }
+
+    /**
+     * Fails the step while reading the failing row. Read errors are not skipped when they
+     * are not exceptions, so this ends the run the way a crash would.
+     */
+    private record FailingReader(ItemStreamReader<FinancialTransaction> delegate)
+            implements ItemStreamReader<FinancialTransaction> {
+
+        @Override
+        public FinancialTransaction read() throws Exception {
+            FinancialTransaction transaction = delegate.read();
+            if (transaction != null && transaction.getTransactionId().equals(transactionId(FAILING_ROW))) {
+                throw new AssertionError("Killed at row " + FAILING_ROW);
+            }
+            return transaction;
+        }
+
+        @Override
+        public void open(ExecutionContext executionContext) {
+            delegate.open(executionContext);
+        }
+
+        @Override
+        public void update(ExecutionContext executionContext) {
+            delegate.update(executionContext);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,120 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.AccountVelocityStore;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.listener.FraudRulesReloadListener;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks loading the fraud rules, and reloading them from a changed file before a chunk
+ * while keeping the current rules when the new file cannot be used.
+ */
+class FraudDetectionServiceTests {
+
+    private static final String HIGH_WEIGHT = """
+            {"threshold": 0.5, "rules": [{"name": "big", "type": "AMOUNT_ABOVE", "weight": 0.9, "amount": 100}]}""";
+    private static final String LOW_WEIGHT = """
+            {"threshold": 0.5, "rules": [{"name": "big", "type": "AMOUNT_ABOVE", "weight": 0.3, "amount": 100}]}""";
+
+    @TempDir
+    Path dir;
+
+    private final ApplicationProperties appProperties = new ApplicationProperties();
+    private final FraudDetectionService service = new FraudDetectionService();
+    private final FraudRulesReloadListener reloadListener = new FraudRulesReloadListener();
+    private Path rulesFile;
+
+    @BeforeEach
+    void setUp() {
+        rulesFile = dir.resolve("fraud-rules.json");
+        ReflectionTestUtils.setField(service, "appProperties", appProperties);
+        ReflectionTestUtils.setField(service, "velocityStore", new AccountVelocityStore(1024, 16));
+        ReflectionTestUtils.setField(service, "metrics", new TransactionMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(reloadListener, "fraudDetectionService", service);
+    }
+
+    @Test
+    void bundledRulesLoad() {
+        service.loadRules();
+
+        assertThat(service.calculateFraudScore(transaction("10.00"))).isZero();
+    }
+
+    @Test
+    void changedFileIsReloadedBeforeTheNextChunk() throws Exception {
+        write(HIGH_WEIGHT, 1);
+        appProperties.getBatch().setFraudRulesFile(rulesFile.toUri().toString());
+        service.loadRules();
+        assertThat(service.calculateFraudScore(transaction("500.00"))).isEqualTo(0.9);
+
+        write(LOW_WEIGHT, 2);
+        reloadListener.beforeChunk(null);
+        assertThat(service.calculateFraudScore(transaction("500.00"))).isEqualTo(0.3);
+        assertThat(service.isFraudulent(0.3)).isFalse();
+    }
+
+    @Test
+    void unusableFileKeepsTheCurrentRules() throws Exception {
+        write(HIGH_WEIGHT, 1);
+        appProperties.getBatch().setFraudRulesFile(rulesFile.toUri().toString());
+        service.loadRules();
+
+        write("{\"threshold\": 0.5, \"rules\": [", 2);
+        reloadListener.beforeChunk(null);
+        assertThat(service.calculateFraudScore(transaction("500.00"))).isEqualTo(0.9);
+
+        write("{\"threshold\": 0.5, \"rules\": [{\"name\": \"burst\", \"type\": \"VELOCITY_COUNT\", \"weight\": 0.5}]}", 3);
+        reloadListener.beforeChunk(null);
+        assertThat(service.calculateFraudScore(transaction("500.00"))).isEqualTo(0.9);
+
+        write(LOW_WEIGHT, 4);
+        reloadListener.beforeChunk(null);
+        assertThat(service.calculateFraudScore(transaction("500.00"))).isEqualTo(0.3);
+    }
+
+    @Test
+    void unusableFileFailsAtStartup() throws Exception {
+        write("not json", 1);
+        appProperties.getBatch().setFraudRulesFile(rulesFile.toUri().toString());
+
+        assertThatThrownBy(service::loadRules).isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Write the rules with a modification time {@code version} seconds after a fixed
+     * instant, so each version is seen as a change however fast the test runs.
+     */
+    private void write(String rules, int version) throws Exception {
+        Files.writeString(rulesFile, rules);
+        Files.setLastModifiedTime(rulesFile, FileTime.from(Instant.parse("2025-01-01T00:00:00Z").plusSeconds(version)));
+    }
+
+    private static FinancialTransaction transaction(String amount) {
+        FinancialTransaction transaction = new FinancialTransaction();
+        transaction.setTransactionId("TXN00001");
+        transaction.setAccountNumber("ACC12345");
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTransactionType("DEBIT");
+        transaction.setMerchantId("MERCHANT001");
+        transaction.setTimestamp(LocalDateTime.of(2025, 3, 3, 12, 0));
+        return transaction;
+    }
+}
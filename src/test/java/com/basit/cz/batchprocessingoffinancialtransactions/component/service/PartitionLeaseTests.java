@@ -0,0 +1,342 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.DatabasePartitionHandler;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.explore.support.JobExplorerFactoryBean;
+import org.springframework.batch.core.partition.support.SimpleStepExecutionSplitter;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the manager and two workers of a partitioned step against one file-mode H2
+ * database, each with its own connections and job repository as separate JVMs would
+ * have, and checks the lease protocol of {@code partition_work_items}: one winner per
+ * claim, stealing an expired lease, giving up after too many attempts, failing
+ * partitions nobody claims, and fencing a stalled worker by the step execution version.
+ */
+class PartitionLeaseTests {
+
+    private static final String WORKER_STEP = "workerStep";
+    private static final long LEASE_MILLIS = 300;
+    private static final int RACE_ROUNDS = 10;
+    private static final int RACE_PARTITIONS = 20;
+
+    @TempDir
+    Path dir;
+
+    private String url;
+    private Jvm first;
+    private Jvm second;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        url = "jdbc:h2:file:" + dir.resolve("jobs").toAbsolutePath() + ";DB_CLOSE_DELAY=-1";
+        first = new Jvm();
+        new ResourceDatabasePopulator(
+                new ClassPathResource("org/springframework/batch/core/schema-h2.sql"),
+                new ClassPathResource("schema.sql")).execute(first.dataSource);
+        second = new Jvm();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        first.jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void concurrentClaimsHaveOneWinner() throws Exception {
+        for (int round = 0; round < RACE_ROUNDS; round++) {
+            List<StepExecution> partitions = first.partitions(RACE_PARTITIONS);
+            first.workItems.publish(partitions, WORKER_STEP);
+
+            CyclicBarrier start = new CyclicBarrier(2);
+            Future<List<PartitionWorkItemService.Claim>> firstClaims = executor.submit(() -> {
+                start.await();
+                return first.claim(RACE_PARTITIONS);
+            });
+            Future<List<PartitionWorkItemService.Claim>> secondClaims = executor.submit(() -> {
+                start.await();
+                return second.claim(RACE_PARTITIONS);
+            });
+
+            Set<Long> claimed = new HashSet<>();
+            int claims = 0;
+            for (Future<List<PartitionWorkItemService.Claim>> future : List.of(firstClaims, secondClaims)) {
+                for (PartitionWorkItemService.Claim claim : future.get(10, TimeUnit.SECONDS)) {
+                    assertThat(claim.attempts()).isEqualTo(1);
+                    claimed.add(claim.stepExecutionId());
+                    claims++;
+                }
+            }
+            assertThat(claims).as("each partition claimed once").isEqualTo(RACE_PARTITIONS);
+            assertThat(claimed).containsExactlyInAnyOrderElementsOf(ids(partitions));
+
+            for (Long id : claimed) {
+                assertThat(first.jdbcTemplate.queryForObject(
+                        "SELECT attempts FROM partition_work_items WHERE step_execution_id = ?", Integer.class, id))
+                        .isEqualTo(1);
+            }
+            // Finish the round, so its leases cannot expire into the next one
+            first.jdbcTemplate.update("UPDATE partition_work_items SET status = 'FINISHED'");
+        }
+    }
+
+    @Test
+    void expiredLeaseIsStolenAndTheOldHolderLosesIt() throws Exception {
+        StepExecution partition = first.partitions(1).get(0);
+        first.workItems.publish(List.of(partition), WORKER_STEP);
+
+        assertThat(first.claim(1)).hasSize(1);
+        assertThat(second.claim(1)).as("lease is live").isEmpty();
+        assertThat(first.workItems.renew(partition.getId(), first.workerId())).isTrue();
+        assertThat(first.workItems.hasLiveClaim(partition.getJobExecutionId())).isTrue();
+
+        TimeUnit.MILLISECONDS.sleep(LEASE_MILLIS * 2);
+        assertThat(first.workItems.hasLiveClaim(partition.getJobExecutionId())).isFalse();
+        List<PartitionWorkItemService.Claim> stolen = second.claim(1);
+        assertThat(stolen).extracting(PartitionWorkItemService.Claim::attempts).containsExactly(2);
+
+        assertThat(first.workItems.renew(partition.getId(), first.workerId())).isFalse();
+        first.workItems.finish(partition.getId(), first.workerId());
+        first.workItems.release(partition.getId(), first.workerId());
+        assertThat(workItem(partition)).containsEntry("STATUS", "CLAIMED").containsEntry("WORKER_ID", second.workerId());
+
+        second.workItems.finish(partition.getId(), second.workerId());
+        assertThat(workItem(partition)).containsEntry("STATUS", "FINISHED");
+        assertThat(first.workItems.getUnfinished(partition.getJobExecutionId())).isEmpty();
+    }
+
+    @Test
+    void partitionClaimedMoreThanMaxAttemptsIsFailed() throws Exception {
+        first.appProperties.getBatch().setPartitionMaxAttempts(1);
+        StepExecution partition = first.partitions(1).get(0);
+        first.workItems.publish(List.of(partition), WORKER_STEP);
+
+        // The first holder dies without renewing
+        assertThat(second.claim(1)).hasSize(1);
+        TimeUnit.MILLISECONDS.sleep(LEASE_MILLIS * 2);
+
+        PartitionWorkItemService.Claim claim = first.claim(1).get(0);
+        assertThat(claim.attempts()).isEqualTo(2);
+        first.run(claim);
+
+        StepExecution stored = first.jobExplorer.getStepExecution(partition.getJobExecutionId(), partition.getId());
+        assertThat(stored.getStatus()).isEqualTo(BatchStatus.FAILED);
+        assertThat(stored.getExitStatus().getExitDescription()).contains("within 1 attempts");
+        assertThat(first.stepRuns).hasValue(0);
+        assertThat(workItem(partition)).containsEntry("STATUS", "FINISHED");
+    }
+
+    @Test
+    void partitionsNobodyClaimsAreFailedAfterTheClaimTimeout() throws Exception {
+        JobExecution jobExecution = first.jobExecution();
+        StepExecution manager = jobExecution.createStepExecution("managerStep");
+        first.jobRepository.add(manager);
+
+        SimpleStepExecutionSplitter splitter = new SimpleStepExecutionSplitter(first.jobRepository, true, WORKER_STEP,
+                gridSize -> {
+                    Map<String, ExecutionContext> contexts = new HashMap<>();
+                    contexts.put("a", new ExecutionContext());
+                    contexts.put("b", new ExecutionContext());
+                    return contexts;
+                });
+        DatabasePartitionHandler handler = new DatabasePartitionHandler(WORKER_STEP, 2, 20, LEASE_MILLIS,
+                first.workItems, first.jobExplorer, first.jobRepository);
+
+        Collection<StepExecution> partitions = handler.handle(splitter, manager);
+
+        assertThat(partitions).hasSize(2);
+        for (StepExecution partition : partitions) {
+            assertThat(partition.getStatus()).isEqualTo(BatchStatus.FAILED);
+            assertThat(partition.getExitStatus().getExitDescription()).contains("No worker claimed the partition");
+            assertThat(first.jobExplorer.getStepExecution(jobExecution.getId(), partition.getId()).getStatus())
+                    .isEqualTo(BatchStatus.FAILED);
+        }
+        assertThat(first.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM partition_work_items", Long.class)).isZero();
+    }
+
+    @Test
+    void abandonWithdrawsOnlyPartitionsWithoutALiveLease() throws Exception {
+        List<StepExecution> partitions = first.partitions(3);
+        first.workItems.publish(partitions, WORKER_STEP);
+        long jobExecutionId = partitions.get(0).getJobExecutionId();
+
+        // One pending, one held by a worker that died, one held by a live worker
+        assertThat(second.claim(1)).hasSize(1);
+        TimeUnit.MILLISECONDS.sleep(LEASE_MILLIS * 2);
+        assertThat(first.claim(1)).hasSize(1);
+
+        List<Long> abandoned = first.workItems.abandonUnclaimed(jobExecutionId);
+
+        assertThat(abandoned).containsExactlyInAnyOrder(partitions.get(1).getId(), partitions.get(2).getId());
+        assertThat(first.workItems.getUnfinished(jobExecutionId)).containsExactly(partitions.get(0).getId());
+        assertThat(workItem(partitions.get(0))).containsEntry("WORKER_ID", first.workerId());
+    }
+
+    @Test
+    void stalledWorkerIsFencedByTheStepExecutionVersion() throws Exception {
+        StepExecution partition = first.partitions(1).get(0);
+        first.workItems.publish(List.of(partition), WORKER_STEP);
+
+        // The first worker claims and loads the partition, then stalls past its lease
+        PartitionWorkItemService.Claim stalledClaim = first.claim(1).get(0);
+        StepExecution stalled = first.jobExplorer.getStepExecution(partition.getJobExecutionId(), partition.getId());
+        TimeUnit.MILLISECONDS.sleep(LEASE_MILLIS * 2);
+
+        // The second worker takes it over and commits progress
+        PartitionWorkItemService.Claim claim = second.claim(1).get(0);
+        StepExecution current = second.jobExplorer.getStepExecution(partition.getJobExecutionId(), partition.getId());
+        current.setStatus(BatchStatus.STARTED);
+        current.setReadCount(100);
+        second.jobRepository.update(current);
+        assertThat(claim.attempts()).isEqualTo(2);
+
+        // The first worker wakes up and runs its stale copy
+        first.run(stalledClaim, stalled);
+
+        assertThat(first.stepRuns).as("stale worker ran no chunk").hasValue(0);
+        StepExecution stored = first.jobExplorer.getStepExecution(partition.getJobExecutionId(), partition.getId());
+        assertThat(stored.getReadCount()).isEqualTo(100);
+        assertThat(stored.getVersion()).isEqualTo(current.getVersion());
+        assertThat(workItem(partition)).containsEntry("STATUS", "CLAIMED").containsEntry("WORKER_ID", second.workerId());
+    }
+
+    private Map<String, Object> workItem(StepExecution partition) {
+        return first.jdbcTemplate.queryForMap(
+                "SELECT status, worker_id FROM partition_work_items WHERE step_execution_id = ?", partition.getId());
+    }
+
+    private static List<Long> ids(List<StepExecution> partitions) {
+        List<Long> ids = new ArrayList<>();
+        for (StepExecution partition : partitions) {
+            ids.add(partition.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * What one JVM has of the database: its own connections, job repository and work
+     * item service, and a worker whose step counts the times it runs.
+     */
+    private final class Jvm {
+
+        private final SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(), url, "sa", "");
+        private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        private final ApplicationProperties appProperties = new ApplicationProperties();
+        private final PartitionWorkItemService workItems = new PartitionWorkItemService();
+        private final PartitionWorkerService worker = new PartitionWorkerService();
+        private final AtomicInteger stepRuns = new AtomicInteger();
+        private JobRepository jobRepository;
+        private JobExplorer jobExplorer;
+
+        Jvm() throws Exception {
+            JdbcTransactionManager transactionManager = new JdbcTransactionManager(dataSource);
+            JobRepositoryFactoryBean repositoryFactory = new JobRepositoryFactoryBean();
+            repositoryFactory.setDataSource(dataSource);
+            repositoryFactory.setTransactionManager(transactionManager);
+            repositoryFactory.afterPropertiesSet();
+            jobRepository = repositoryFactory.getObject();
+
+            JobExplorerFactoryBean explorerFactory = new JobExplorerFactoryBean();
+            explorerFactory.setDataSource(dataSource);
+            explorerFactory.setTransactionManager(transactionManager);
+            explorerFactory.afterPropertiesSet();
+            jobExplorer = explorerFactory.getObject();
+
+            appProperties.getBatch().setPartitionLeaseMillis(LEASE_MILLIS);
+            ReflectionTestUtils.setField(workItems, "appProperties", appProperties);
+            ReflectionTestUtils.setField(workItems, "jdbcTemplate", jdbcTemplate);
+
+            StaticApplicationContext context = new StaticApplicationContext();
+            context.getBeanFactory().registerSingleton(WORKER_STEP, new StepBuilder(WORKER_STEP, jobRepository)
+                    .tasklet((contribution, chunkContext) -> {
+                        stepRuns.incrementAndGet();
+                        return RepeatStatus.FINISHED;
+                    }, transactionManager)
+                    .build());
+            ReflectionTestUtils.setField(worker, "appProperties", appProperties);
+            ReflectionTestUtils.setField(worker, "workItems", workItems);
+            ReflectionTestUtils.setField(worker, "jobExplorer", jobExplorer);
+            ReflectionTestUtils.setField(worker, "jobRepository", jobRepository);
+            ReflectionTestUtils.setField(worker, "applicationContext", context);
+        }
+
+        JobExecution jobExecution() throws Exception {
+            return jobRepository.createJobExecution("partitionedJob",
+                    new JobParametersBuilder().addString("run", UUID.randomUUID().toString()).toJobParameters());
+        }
+
+        /**
+         * Partition step executions of a new job execution, as the manager creates them.
+         */
+        List<StepExecution> partitions(int count) throws Exception {
+            JobExecution jobExecution = jobExecution();
+            List<StepExecution> partitions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                StepExecution partition = jobExecution.createStepExecution(WORKER_STEP + ":partition" + i);
+                jobRepository.add(partition);
+                partitions.add(partition);
+            }
+            return partitions;
+        }
+
+        String workerId() {
+            return worker.getWorkerId();
+        }
+
+        List<PartitionWorkItemService.Claim> claim(int max) {
+            return workItems.claim(workerId(), max);
+        }
+
+        /**
+         * Run a claimed partition as the worker's poll would, loading its step execution now.
+         */
+        void run(PartitionWorkItemService.Claim claim) {
+            run(claim, jobExplorer.getStepExecution(claim.jobExecutionId(), claim.stepExecutionId()));
+        }
+
+        void run(PartitionWorkItemService.Claim claim, StepExecution stepExecution) {
+            ReflectionTestUtils.invokeMethod(worker, "run", claim, stepExecution);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.component.service;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.DailyVolume;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.MerchantVolume;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the rollups against the transactions they summarize: after a rebuild, when two
+ * chunks add the first rows of a key at once, and that rebuilds of different ranges run
+ * together while writers wait for them.
+ */
+class TransactionRollupServiceTests {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 1);
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TransactionRollupService rollups;
+    private ExecutorService executor;
+    private int nextId;
+    // MERGE statements run, so a retry after a lost insert race shows
+    private final AtomicInteger upserts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("rollups-" + UUID.randomUUID())
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database) {
+            @Override
+            public <T> T execute(String sql, PreparedStatementCallback<T> action) {
+                if (sql.startsWith("MERGE")) {
+                    upserts.incrementAndGet();
+                }
+                return super.execute(sql, action);
+            }
+        };
+        transactionTemplate = new TransactionTemplate(new JdbcTransactionManager(database));
+
+        ApplicationProperties appProperties = new ApplicationProperties();
+        appProperties.getBatch().setRollupStripes(1);
+        rollups = new TransactionRollupService();
+        ReflectionTestUtils.setField(rollups, "appProperties", appProperties);
+        ReflectionTestUtils.setField(rollups, "jdbcTemplate", jdbcTemplate);
+        rollups.init();
+
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        database.shutdown();
+    }
+
+    @Test
+    void rebuildReplacesRangeWithTotalsOfStoredTransactions() {
+        store(DAY, "DEBIT", TransactionStatus.VALID, "10.25", "MERCHANT001");
+        store(DAY, "DEBIT", TransactionStatus.VALID, "5.50", "MERCHANT002");
+        store(DAY, "CREDIT", TransactionStatus.INVALID, "1.00", "MERCHANT001");
+        store(DAY.plusDays(1), "DEBIT", TransactionStatus.VALID, "7.00", null);
+        // Rollups counted twice for the range, and rows of a day outside it
+        transactionTemplate.executeWithoutResult(status -> {
+            rollups.record(List.of(transaction(DAY, "DEBIT", TransactionStatus.VALID, "10.25", "MERCHANT001")));
+            rollups.record(List.of(transaction(DAY, "DEBIT", TransactionStatus.VALID, "10.25", "MERCHANT001")));
+            rollups.record(List.of(transaction(DAY.plusDays(5), "DEBIT", TransactionStatus.VALID, "3.00", "MERCHANT003")));
+        });
+
+        long rows = transactionTemplate.execute(status -> rollups.rebuild(DAY, DAY.plusDays(2)));
+
+        assertThat(rows).isEqualTo(3 + 3);
+        List<DailyVolume> volume = rollups.getDailyVolume(DAY, DAY.plusDays(5));
+        assertThat(volume).hasSize(4);
+        assertVolume(volume.get(0), DAY, "CREDIT", TransactionStatus.INVALID, 1, "1.00");
+        assertVolume(volume.get(1), DAY, "DEBIT", TransactionStatus.VALID, 2, "15.75");
+        assertVolume(volume.get(2), DAY.plusDays(1), "DEBIT", TransactionStatus.VALID, 1, "7.00");
+        assertVolume(volume.get(3), DAY.plusDays(5), "DEBIT", TransactionStatus.VALID, 1, "3.00");
+
+        List<MerchantVolume> merchants = rollups.getTopMerchants(DAY, DAY.plusDays(1), 10);
+        assertThat(merchants).extracting(MerchantVolume::merchantId)
+                .containsExactly("MERCHANT001", TransactionRollupService.NO_MERCHANT, "MERCHANT002");
+        assertThat(merchants.get(0).count()).isEqualTo(2);
+        assertThat(merchants.get(0).amount()).isEqualByComparingTo("11.25");
+    }
+
+    @Test
+    void chunksAddingTheFirstRowsOfAKeyAtOnceAreBothCounted() throws Exception {
+        CountDownLatch firstRecorded = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+
+        Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            rollups.record(List.of(transaction(DAY, "DEBIT", TransactionStatus.VALID, "1.00", "MERCHANT001")));
+            firstRecorded.countDown();
+            await(secondStarted);
+            sleep(200);
+        }));
+        Future<?> second = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            await(firstRecorded);
+            secondStarted.countDown();
+            rollups.record(List.of(transaction(DAY, "DEBIT", TransactionStatus.VALID, "2.00", "MERCHANT001")));
+        }));
+        first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        second.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        List<DailyVolume> volume = rollups.getDailyVolume(DAY, DAY);
+        assertThat(volume).hasSize(1);
+        assertVolume(volume.get(0), DAY, "DEBIT", TransactionStatus.VALID, 2, "3.00");
+        assertThat(rollups.getTopMerchants(DAY, DAY, 10).get(0).count()).isEqualTo(2);
+        // One upsert per table and chunk, plus the retry of the one that lost the race
+        assertThat(upserts.get()).isGreaterThan(4);
+    }
+
+    @Test
+    void rebuildsRunTogetherWhileWritersWait() throws Exception {
+        CountDownLatch firstInside = new CountDownLatch(1);
+        CountDownLatch secondInside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writerInside = new CountDownLatch(1);
+
+        Future<?> firstRebuild = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            rollups.rebuild(DAY, DAY.plusDays(1));
+            firstInside.countDown();
+            await(release);
+        }));
+        assertThat(firstInside.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+
+        Future<?> secondRebuild = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            rollups.rebuild(DAY.plusDays(1), DAY.plusDays(2));
+            secondInside.countDown();
+            await(release);
+        }));
+        assertThat(secondInside.await(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                .as("second range rebuilt while the first is open").isTrue();
+
+        Future<?> writer = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            rollups.beginWrite();
+            writerInside.countDown();
+        }));
+        assertThat(writerInside.await(300, TimeUnit.MILLISECONDS)).as("writer held off").isFalse();
+
+        release.countDown();
+        assertThat(writerInside.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        firstRebuild.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        secondRebuild.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        writer.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void store(LocalDate date, String type, TransactionStatus status, String amount, String merchantId) {
+        jdbcTemplate.update("INSERT INTO financial_transactions (transaction_id, account_number, amount, " +
+                        "transaction_type, timestamp, merchant_id, status) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                "TXN" + (++nextId), "ACC12345", new BigDecimal(amount), type,
+                Timestamp.valueOf(date.atTime(12, 0)), merchantId, status.name());
+    }
+
+    private static FinancialTransaction transaction(LocalDate date, String type, TransactionStatus status,
+                                                    String amount, String merchantId) {
+        FinancialTransaction transaction = new FinancialTransaction();
+        transaction.setTransactionType(type);
+        transaction.setStatus(status);
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setTimestamp(LocalDateTime.of(date, LocalTime.NOON));
+        transaction.setMerchantId(merchantId);
+        return transaction;
+    }
+
+    private static void assertVolume(DailyVolume volume, LocalDate date, String type, TransactionStatus status,
+                                     long count, String amount) {
+        assertThat(volume.date()).isEqualTo(date);
+        assertThat(volume.transactionType()).isEqualTo(type);
+        assertThat(volume.status()).isEqualTo(status);
+        assertThat(volume.count()).isEqualTo(count);
+        assertThat(volume.amount()).isEqualByComparingTo(amount);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionDirectoryPartitioner;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that only completed partition files are archived, and that a failed partition's
+ * file is found again under the same partition name so a restart resumes it.
+ */
+class InputFileArchiveListenerTests {
+
+    @TempDir
+    Path dir;
+
+    private final ApplicationProperties appProperties = new ApplicationProperties();
+    private final InputFileArchiveListener listener = new InputFileArchiveListener();
+    private final TransactionDirectoryPartitioner partitioner = new TransactionDirectoryPartitioner();
+
+    @BeforeEach
+    void setUp() {
+        appProperties.getBatch().setInputDirectory(dir.toString());
+        ReflectionTestUtils.setField(listener, "appProperties", appProperties);
+        ReflectionTestUtils.setField(partitioner, "appProperties", appProperties);
+    }
+
+    @Test
+    void completedFileIsMovedToDone() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.csv"), "header\n");
+
+        listener.afterStep(partitionStep(file, BatchStatus.COMPLETED));
+
+        assertThat(file).doesNotExist();
+        assertThat(dir.resolve("done").resolve("a.csv")).exists();
+        assertThat(partitioner.partition(1)).isEmpty();
+    }
+
+    @Test
+    void failedFileStaysToBeResumed() throws Exception {
+        Path file = Files.writeString(dir.resolve("a.csv"), "header\n");
+
+        listener.afterStep(partitionStep(file, BatchStatus.FAILED));
+        listener.afterStep(partitionStep(file, BatchStatus.STOPPED));
+
+        assertThat(file).exists();
+        assertThat(partitioner.partition(1)).containsOnlyKeys("a.csv");
+    }
+
+    private static StepExecution partitionStep(Path file, BatchStatus status) {
+        StepExecution stepExecution = new StepExecution("workerStep:a.csv", new JobExecution(1L));
+        stepExecution.getExecutionContext().putString(TransactionDirectoryPartitioner.INPUT_FILE_KEY,
+                file.toAbsolutePath().toUri().toString());
+        stepExecution.setStatus(status);
+        return stepExecution;
+    }
+}
@@ -0,0 +1,83 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.listener;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TailingTransactionFileReader;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.service.ValidationService;
+import com.basit.cz.batchprocessingoffinancialtransactions.models.FinancialTransaction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that a row appended to a tailed file after a long idle wait, and stamped with
+ * the time it was written, is not validated as future-dated.
+ */
+class ValidationTimeListenerTests {
+
+    private static final long IDLE_MILLIS = 2000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rowAppendedAfterIdleWaitIsNotFutureDated() throws Exception {
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, "transactionId,accountNumber,amount,transactionType,description,timestamp,merchantId\n");
+
+        TailingTransactionFileReader reader = new TailingTransactionFileReader(file, null, 1, 100,
+                new TransactionMetrics(new SimpleMeterRegistry()));
+        ValidationTimeListener listener = new ValidationTimeListener();
+        ValidationService validationService = new ValidationService();
+
+        reader.open(new ExecutionContext());
+        try {
+            listener.beforeChunk(null);
+            LocalDateTime chunkStart = LocalDateTime.now();
+
+            CompletableFuture<Void> append = CompletableFuture.runAsync(() -> {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(IDLE_MILLIS);
+                    String line = "TXN00001,ACC12345,10.50,DEBIT,Purchase," + LocalDateTime.now().withNano(0) + ",MERCHANT001\n";
+                    Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            FinancialTransaction transaction = reader.read();
+            append.get();
+
+            assertThat(transaction.getTransactionId()).isEqualTo("TXN00001");
+            assertThat(transaction.getTimestamp()).isAfter(chunkStart);
+            assertThat(validationService.validateTransaction(transaction, listener.getValidationTime()))
+                    .as("validated against the chunk's time: %s", transaction.getErrorMessage())
+                    .isTrue();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    void eachChunkTakesItsOwnTime() throws Exception {
+        ValidationTimeListener listener = new ValidationTimeListener();
+
+        listener.beforeChunk(null);
+        LocalDateTime first = listener.getValidationTime();
+        assertThat(listener.getValidationTime()).isSameAs(first);
+
+        TimeUnit.MILLISECONDS.sleep(10);
+        listener.beforeChunk(null);
+        assertThat(listener.getValidationTime()).isAfter(first);
+    }
+}
@@ -0,0 +1,169 @@
+package com.basit.cz.batchprocessingoffinancialtransactions.models;
+
+import com.basit.cz.batchprocessingoffinancialtransactions.component.AccountVelocityStore;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.FraudRulePlan;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionLineParser;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionMetrics;
+import com.basit.cz.batchprocessingoffinancialtransactions.component.TransactionValidator;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.FraudRuleType;
+import com.basit.cz.batchprocessingoffinancialtransactions.config.TransactionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.From;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.Tuple;
+import net.jqwik.api.constraints.Size;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that amounts handled as long cents give the same results as the BigDecimal
+ * arithmetic they replace, for amounts with and without a cents value.
+ */
+class AmountCentsTests {
+
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("1000000");
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private final TransactionLineParser parser = new TransactionLineParser();
+    private final TransactionValidator validator = new TransactionValidator();
+
+    @Property
+    void ofIsExactOrNone(@ForAll("amounts") BigDecimal amount) {
+        long cents = AmountCents.of(amount);
+
+        BigDecimal scaled = amount.movePointRight(2);
+        boolean representable = scaled.remainder(BigDecimal.ONE).signum() == 0
+                && scaled.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) > 0
+                && scaled.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0;
+        if (representable) {
+            assertThat(AmountCents.toDecimal(cents)).isEqualByComparingTo(amount);
+        } else {
+            assertThat(cents).isEqualTo(AmountCents.NONE);
+        }
+    }
+
+    @Property
+    void floorOfComparesLikeBigDecimal(@ForAll("cents") long cents, @ForAll("amounts") BigDecimal limit) {
+        boolean above = AmountCents.toDecimal(cents).compareTo(limit) > 0;
+
+        assertThat(cents > AmountCents.floorOf(limit)).isEqualTo(above);
+    }
+
+    @Property
+    void parserKeepsTheExactAmount(@ForAll("amounts") BigDecimal amount, @ForAll boolean plain) {
+        FinancialTransaction transaction = parse(plain ? amount.toPlainString() : amount.toString());
+
+        assertThat(transaction.getErrorMessage()).isNull();
+        assertThat(transaction.getAmount()).isEqualByComparingTo(amount);
+        assertThat(transaction.getAmountCents()).isEqualTo(AmountCents.of(amount));
+    }
+
+    @Property
+    void validationMatchesBigDecimalRules(@ForAll("amounts") BigDecimal amount) {
+        int violations = validator.validate(parse(amount.toPlainString()), NOW);
+
+        assertThat((violations & TransactionValidator.AMOUNT_NOT_POSITIVE) != 0).isEqualTo(amount.signum() <= 0);
+        assertThat((violations & TransactionValidator.AMOUNT_OVER_LIMIT) != 0)
+                .isEqualTo(amount.compareTo(MAX_AMOUNT) > 0);
+    }
+
+    @Property
+    void amountRulesMatchBigDecimalRules(@ForAll("amounts") BigDecimal amount, @ForAll("amounts") BigDecimal limit,
+                                         @ForAll("multiples") BigDecimal multiple) {
+        FraudRuleSet ruleSet = new FraudRuleSet();
+        ruleSet.setThreshold(0); // Evaluate every rule
+        ruleSet.setRules(List.of(
+                rule("above", FraudRuleType.AMOUNT_ABOVE, 0.25, limit),
+                rule("round", FraudRuleType.ROUND_AMOUNT, 0.5, multiple)));
+        FraudRulePlan plan = FraudRulePlan.compile(ruleSet, BigDecimal.ONE, new AccountVelocityStore(16, 4),
+                new TransactionMetrics(new SimpleMeterRegistry()));
+
+        double expected = (amount.compareTo(limit) > 0 ? 0.25 : 0)
+                + (amount.remainder(multiple).signum() == 0 ? 0.5 : 0);
+
+        assertThat(plan.score(parse(amount.toPlainString()))).isEqualTo(expected);
+    }
+
+    @Property
+    void statisticsSumMatchesBigDecimalSum(@ForAll @Size(max = 20) List<@From("amounts") BigDecimal> amounts) {
+        TransactionStatistics first = new TransactionStatistics();
+        TransactionStatistics second = new TransactionStatistics();
+        BigDecimal expected = BigDecimal.ZERO;
+        for (int i = 0; i < amounts.size(); i++) {
+            FinancialTransaction transaction = parse(amounts.get(i).toPlainString());
+            transaction.setStatus(TransactionStatus.VALID);
+            (i % 2 == 0 ? first : second).record(transaction);
+            expected = expected.add(amounts.get(i));
+        }
+
+        TransactionStatistics merged = first.copy().merge(second);
+
+        assertThat(merged.getAmount(TransactionStatus.VALID)).isEqualByComparingTo(expected);
+        assertThat(merged.getCount(TransactionStatus.VALID)).isEqualTo(amounts.size());
+    }
+
+    /**
+     * Everyday amounts, amounts with fractions of a cent, and amounts at and past the
+     * edges of the long cents range.
+     */
+    @Provide
+    Arbitrary<BigDecimal> amounts() {
+        Arbitrary<BigDecimal> everyday = Combinators.combine(
+                        Arbitraries.longs().between(-2_000_000_00L, 2_000_000_00L),
+                        Arbitraries.integers().between(0, 2))
+                .as(BigDecimal::valueOf);
+        Arbitrary<BigDecimal> anyScale = Combinators.combine(
+                        Arbitraries.longs(),
+                        Arbitraries.integers().between(-3, 6))
+                .as(BigDecimal::valueOf);
+        Arbitrary<BigDecimal> huge = Combinators.combine(
+                        Arbitraries.bigIntegers().between(BigInteger.TEN.pow(21).negate(), BigInteger.TEN.pow(21)),
+                        Arbitraries.integers().between(0, 3))
+                .as(BigDecimal::new);
+        Arbitrary<BigDecimal> edges = Arbitraries.of(Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE,
+                        Long.MAX_VALUE - 1, 0L, 1L, -1L, 100_000_000L, 100_000_001L)
+                .flatMap(cents -> Arbitraries.integers().between(1, 3).map(scale -> BigDecimal.valueOf(cents, scale)));
+
+        return Arbitraries.frequencyOf(
+                Tuple.of(5, everyday),
+                Tuple.of(2, anyScale),
+                Tuple.of(1, huge),
+                Tuple.of(2, edges));
+    }
+
+    @Provide
+    Arbitrary<Long> cents() {
+        return Arbitraries.longs().between(Long.MIN_VALUE + 1, Long.MAX_VALUE);
+    }
+
+    @Provide
+    Arbitrary<BigDecimal> multiples() {
+        return Combinators.combine(
+                        Arbitraries.longs().between(1, 100_000),
+                        Arbitraries.integers().between(-2, 4))
+                .as(BigDecimal::valueOf);
+    }
+
+    private FinancialTransaction parse(String amount) {
+        return parser.parse("TXN001,ACC12345," + amount + ",DEBIT,Test,2024-01-15T10:30:00,MERCHANT01");
+    }
+
+    private static FraudRuleSet.Rule rule(String name, FraudRuleType type, double weight, BigDecimal amount) {
+        FraudRuleSet.Rule rule = new FraudRuleSet.Rule();
+        rule.setName(name);
+        rule.setType(type);
+        rule.setWeight(weight);
+        rule.setAmount(amount);
+        return rule;
+    }
+}